@@ -1,5 +1,6 @@
 package com.battleship.ai.agent;
 
+import com.battleship.ai.prior.HeatmapPrior;
 import com.battleship.common.model.Coordinate;
 import com.battleship.common.model.Board;
 import static com.battleship.common.model.ModelTypes.CellState;
@@ -12,9 +13,27 @@ import java.util.*;
  * Target: группирует попадания, определяет ориентацию кластера и добивает, стреляя только по продолжению линии.
  * Ограничения: не стреляет по уже обстрелянным клеткам, по соседям потопленных (8 направлений)
  * и по диагоналям от любых HIT, т.к. корабли не касаются по диагонали.
+ * Если задана тепловая карта, в Hunt-режиме клетки выбираются с весом по частоте занятости кораблями.
  */
 public class HuntTargetAgent implements BattleshipAgent {
-    private final Random random = new Random();
+    // Минимальный вес, чтобы клетки без статистики тоже оставались кандидатами
+    private static final double MIN_PRIOR_WEIGHT = 0.01;
+
+    private final Random random;
+    private final HeatmapPrior prior;
+
+    public HuntTargetAgent() {
+        this(new Random());
+    }
+
+    public HuntTargetAgent(Random random) {
+        this(random, null);
+    }
+
+    public HuntTargetAgent(Random random, HeatmapPrior prior) {
+        this.random = random;
+        this.prior = prior;
+    }
 
     @Override
     public Coordinate chooseAction(Board board) {
@@ -182,9 +201,29 @@ public class HuntTargetAgent implements BattleshipAgent {
             throw new IllegalStateException("No valid moves");
         }
 
+        if (prior != null) {
+            return choosePriorWeighted(candidates);
+        }
+
         return candidates.get(random.nextInt(candidates.size()));
     }
 
+    private Coordinate choosePriorWeighted(List<Coordinate> candidates) {
+        double total = 0;
+        for (Coordinate c : candidates) {
+            total += MIN_PRIOR_WEIGHT + prior.occupancy(c.toIndex());
+        }
+
+        double point = random.nextDouble() * total;
+        for (Coordinate c : candidates) {
+            point -= MIN_PRIOR_WEIGHT + prior.occupancy(c.toIndex());
+            if (point <= 0) {
+                return c;
+            }
+        }
+        return candidates.get(candidates.size() - 1);
+    }
+
     private boolean isValidTarget(Coordinate c, Board board) {
         // Проверка границ
         if (c.x() < 0 || c.x() >= Coordinate.BOARD_SIZE ||
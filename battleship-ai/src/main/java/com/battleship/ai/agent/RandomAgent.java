@@ -0,0 +1,54 @@
+package com.battleship.ai.agent;
+
+import com.battleship.common.model.Board;
+import com.battleship.common.model.Coordinate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Базовый агент: стреляет в случайную необстрелянную клетку.
+ * Нужен как нижняя планка при сравнении силы AI.
+ */
+public class RandomAgent implements BattleshipAgent {
+    private final Random random;
+
+    public RandomAgent() {
+        this(new Random());
+    }
+
+    public RandomAgent(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public Coordinate chooseAction(Board board) {
+        Set<Coordinate> shots = board.getShots();
+        List<Coordinate> candidates = new ArrayList<>();
+
+        for (int i = 0; i < Coordinate.BOARD_SIZE * Coordinate.BOARD_SIZE; i++) {
+            Coordinate c = Coordinate.fromIndex(i);
+            if (!shots.contains(c)) {
+                candidates.add(c);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            throw new IllegalStateException("No valid moves");
+        }
+
+        return candidates.get(random.nextInt(candidates.size()));
+    }
+
+    @Override
+    public void reset() {
+        // Состояние не хранится между играми
+    }
+
+    @Override
+    public String getName() {
+        return "Random";
+    }
+}
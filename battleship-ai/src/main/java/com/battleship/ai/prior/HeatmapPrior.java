@@ -0,0 +1,126 @@
+package com.battleship.ai.prior;
+
+import com.battleship.common.model.Coordinate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Снимок тепловой карты по завершённым партиям: частота занятости клетки кораблём
+ * и частота первого выстрела, нормированные на число (затухающих) партий.
+ * Используется агентами как априорное распределение при поиске кораблей.
+ */
+public class HeatmapPrior {
+    public static final int CELLS = Coordinate.BOARD_SIZE * Coordinate.BOARD_SIZE;
+
+    private static final String HEADER = "# battleship heatmap v1";
+
+    private final double games;
+    private final double[] occupancy;
+    private final double[] firstShot;
+
+    public HeatmapPrior(double games, double[] occupancy, double[] firstShot) {
+        if (occupancy.length != CELLS || firstShot.length != CELLS) {
+            throw new IllegalArgumentException("Тепловая карта должна содержать " + CELLS + " клеток");
+        }
+        this.games = games;
+        this.occupancy = occupancy.clone();
+        this.firstShot = firstShot.clone();
+    }
+
+    public double getGames() {
+        return games;
+    }
+
+    // Доля партий, в которых клетка была занята кораблём
+    public double occupancy(int index) {
+        return occupancy[index];
+    }
+
+    // Доля партий, открытых выстрелом в эту клетку
+    public double firstShot(int index) {
+        return firstShot[index];
+    }
+
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, "heatmap", ".tmp");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            writer.write("games=" + format(games));
+            writer.newLine();
+            writer.write("occupancy=" + join(occupancy));
+            writer.newLine();
+            writer.write("firstShot=" + join(firstShot));
+            writer.newLine();
+        }
+
+        // Читатели никогда не видят наполовину записанный файл
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static HeatmapPrior load(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).equals(HEADER)) {
+            throw new IOException("Неизвестный формат тепловой карты: " + file);
+        }
+
+        double games = 0;
+        double[] occupancy = null;
+        double[] firstShot = null;
+
+        for (String line : lines.subList(1, lines.size())) {
+            int separator = line.indexOf('=');
+            if (separator < 0) {
+                continue;
+            }
+            String value = line.substring(separator + 1);
+            switch (line.substring(0, separator)) {
+                case "games" -> games = Double.parseDouble(value);
+                case "occupancy" -> occupancy = parse(value);
+                case "firstShot" -> firstShot = parse(value);
+                default -> { }
+            }
+        }
+
+        if (occupancy == null || firstShot == null) {
+            throw new IOException("Тепловая карта неполная: " + file);
+        }
+        return new HeatmapPrior(games, occupancy, firstShot);
+    }
+
+    private static double[] parse(String value) throws IOException {
+        String[] parts = value.split(",");
+        if (parts.length != CELLS) {
+            throw new IOException("Ожидалось " + CELLS + " значений, получено " + parts.length);
+        }
+        double[] result = new double[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            result[i] = Double.parseDouble(parts[i]);
+        }
+        return result;
+    }
+
+    private static String join(double[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(format(values[i]));
+        }
+        return sb.toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+}
@@ -0,0 +1,126 @@
+package com.battleship.ai.remote;
+
+import com.battleship.common.model.Board;
+import com.battleship.common.model.Coordinate;
+import static com.battleship.common.model.ModelTypes.CellState;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Бинарный протокол между сервером и внешними AI воркерами.
+ * Кадр: [int длина тела][byte тип][int requestId][payload].
+ * MOVE_REQUEST несёт 100 байт наблюдения (состояния клеток доски противника, корабли скрыты),
+ * MOVE_RESPONSE — 1 байт индекса клетки или -1, если ход выбрать не удалось.
+ */
+public final class AIWorkerProtocol {
+
+    public static final byte MOVE_REQUEST = 1;
+    public static final byte MOVE_RESPONSE = 2;
+    public static final byte PING = 3;
+    public static final byte PONG = 4;
+
+    public static final int CELLS = Coordinate.BOARD_SIZE * Coordinate.BOARD_SIZE;
+    public static final int LENGTH_SIZE = 4;
+    public static final int HEADER_SIZE = 1 + 4;
+    public static final int MAX_BODY_SIZE = HEADER_SIZE + CELLS;
+    public static final byte NO_MOVE = -1;
+
+    private static final CellState[] CELL_STATES = CellState.values();
+
+    private AIWorkerProtocol() {
+    }
+
+    // Наблюдение кодируется заранее, чтобы не держать ссылку на живую доску в очереди
+    public static byte[] encodeObservation(Board board) {
+        byte[] cells = new byte[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            CellState state = board.getCellState(Coordinate.fromIndex(i));
+            cells[i] = (byte) (state == CellState.SHIP ? CellState.EMPTY : state).ordinal();
+        }
+        return cells;
+    }
+
+    /**
+     * @throws IllegalArgumentException неизвестное состояние клетки
+     */
+    public static Board decodeObservation(ByteBuffer buffer) {
+        Board board = new Board();
+        for (int i = 0; i < CELLS; i++) {
+            int ordinal = buffer.get();
+            if (ordinal < 0 || ordinal >= CELL_STATES.length) {
+                throw new IllegalArgumentException("Неверное состояние клетки " + i + ": " + ordinal);
+            }
+            CellState state = CELL_STATES[ordinal];
+            if (state != CellState.EMPTY) {
+                board.setCellState(Coordinate.fromIndex(i), state);
+            }
+        }
+        return board;
+    }
+
+    public static void writeMoveRequest(ByteBuffer buffer, int requestId, byte[] observation) {
+        buffer.putInt(HEADER_SIZE + CELLS);
+        buffer.put(MOVE_REQUEST);
+        buffer.putInt(requestId);
+        buffer.put(observation);
+    }
+
+    public static void writeMoveResponse(ByteBuffer buffer, int requestId, Coordinate move) {
+        buffer.putInt(HEADER_SIZE + 1);
+        buffer.put(MOVE_RESPONSE);
+        buffer.putInt(requestId);
+        buffer.put(move != null ? (byte) move.toIndex() : NO_MOVE);
+    }
+
+    public static void writeControl(ByteBuffer buffer, byte type, int requestId) {
+        buffer.putInt(HEADER_SIZE);
+        buffer.put(type);
+        buffer.putInt(requestId);
+    }
+
+    /**
+     * Адрес воркера: unix:/path/to.sock, tcp:host:port или просто host:port
+     */
+    public static SocketAddress parseAddress(String address) {
+        String value = address.trim();
+        if (value.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(Path.of(value.substring("unix:".length())));
+        }
+        if (value.startsWith("tcp:")) {
+            value = value.substring("tcp:".length());
+        }
+
+        int separator = value.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Неверный адрес AI воркера: " + address);
+        }
+        return new InetSocketAddress(value.substring(0, separator), Integer.parseInt(value.substring(separator + 1)));
+    }
+
+    public static SocketChannel connect(SocketAddress address) throws IOException {
+        SocketChannel channel = address instanceof UnixDomainSocketAddress
+            ? SocketChannel.open(StandardProtocolFamily.UNIX)
+            : SocketChannel.open();
+        channel.connect(address);
+        if (address instanceof InetSocketAddress) {
+            channel.socket().setTcpNoDelay(true);
+        }
+        return channel;
+    }
+
+    public static ServerSocketChannel bind(SocketAddress address) throws IOException {
+        ServerSocketChannel server = address instanceof UnixDomainSocketAddress
+            ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+            : ServerSocketChannel.open();
+        server.bind(address);
+        return server;
+    }
+}
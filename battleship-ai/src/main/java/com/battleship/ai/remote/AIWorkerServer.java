@@ -0,0 +1,144 @@
+package com.battleship.ai.remote;
+
+import com.battleship.ai.agent.BattleshipAgent;
+import com.battleship.ai.agent.HuntTargetAgent;
+import com.battleship.common.model.Board;
+import com.battleship.common.model.Coordinate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+
+/**
+ * Внешний процесс AI воркера.
+ * Принимает соединения сервера, читает пачки MOVE_REQUEST и отвечает одной записью на всю пачку.
+ * Запуск: java -cp battleship-server-standalone.jar com.battleship.ai.remote.AIWorkerServer unix:/tmp/battleship-ai.sock
+ */
+public class AIWorkerServer {
+    private static final Logger logger = LoggerFactory.getLogger(AIWorkerServer.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SocketAddress address;
+
+    public AIWorkerServer(SocketAddress address) {
+        this.address = address;
+    }
+
+    public void run() throws IOException {
+        if (address instanceof UnixDomainSocketAddress unixAddress) {
+            Files.deleteIfExists(unixAddress.getPath());
+        }
+
+        try (ServerSocketChannel server = AIWorkerProtocol.bind(address)) {
+            logger.info("AI воркер слушает {}", address);
+
+            while (!Thread.currentThread().isInterrupted()) {
+                SocketChannel channel = server.accept();
+                Thread connectionThread = new Thread(() -> serve(channel), "ai-worker-conn");
+                connectionThread.setDaemon(true);
+                connectionThread.start();
+            }
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        BattleshipAgent agent = new HuntTargetAgent();
+        ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        String peer = remoteAddress(channel);
+        logger.info("Подключился сервер {}", peer);
+
+        try (channel) {
+            while (channel.read(in) >= 0) {
+                in.flip();
+                processFrames(in, out, agent);
+                in.compact();
+
+                if (out.position() > 0) {
+                    out.flip();
+                    while (out.hasRemaining()) {
+                        channel.write(out);
+                    }
+                    out.clear();
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Соединение с сервером прервано: {}", e.getMessage());
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            // После битого кадра границы следующих неизвестны: соединение закрывается, сервер переподключится
+            logger.error("Неверный кадр от сервера {}, соединение закрыто: {}", peer, e.getMessage());
+        }
+
+        logger.info("Сервер отключился");
+    }
+
+    // Обрабатывает все полные кадры из буфера, ответы копятся в out и уходят одной записью
+    private void processFrames(ByteBuffer in, ByteBuffer out, BattleshipAgent agent) {
+        while (in.remaining() >= AIWorkerProtocol.LENGTH_SIZE) {
+            int length = in.getInt(in.position());
+            if (length < AIWorkerProtocol.HEADER_SIZE || length > AIWorkerProtocol.MAX_BODY_SIZE) {
+                throw new IllegalStateException("Неверная длина кадра: " + length);
+            }
+            if (in.remaining() < AIWorkerProtocol.LENGTH_SIZE + length) {
+                return;
+            }
+            if (out.remaining() < AIWorkerProtocol.LENGTH_SIZE + AIWorkerProtocol.HEADER_SIZE + 1) {
+                return;
+            }
+
+            in.getInt();
+            byte type = in.get();
+            int requestId = in.getInt();
+
+            switch (type) {
+                case AIWorkerProtocol.MOVE_REQUEST -> {
+                    if (length != AIWorkerProtocol.HEADER_SIZE + AIWorkerProtocol.CELLS) {
+                        throw new IllegalStateException("Неверная длина MOVE_REQUEST: " + length);
+                    }
+                    Board board = AIWorkerProtocol.decodeObservation(in);
+                    AIWorkerProtocol.writeMoveResponse(out, requestId, chooseMove(agent, board));
+                }
+                case AIWorkerProtocol.PING -> {
+                    AIWorkerProtocol.writeControl(out, AIWorkerProtocol.PONG, requestId);
+                    in.position(in.position() + length - AIWorkerProtocol.HEADER_SIZE);
+                }
+                default -> in.position(in.position() + length - AIWorkerProtocol.HEADER_SIZE);
+            }
+        }
+    }
+
+    private Coordinate chooseMove(BattleshipAgent agent, Board board) {
+        try {
+            return agent.chooseAction(board);
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private String remoteAddress(SocketChannel channel) {
+        try {
+            return String.valueOf(channel.getRemoteAddress());
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    public static void main(String[] args) {
+        String address = args.length > 0 ? args[0] : "unix:/tmp/battleship-ai.sock";
+
+        try {
+            new AIWorkerServer(AIWorkerProtocol.parseAddress(address)).run();
+        } catch (IOException e) {
+            logger.error("AI воркер остановлен: {}", e.getMessage());
+            System.exit(1);
+        }
+    }
+}
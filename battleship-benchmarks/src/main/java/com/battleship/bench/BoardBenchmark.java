@@ -0,0 +1,73 @@
+package com.battleship.bench;
+
+import com.battleship.common.model.Board;
+import com.battleship.common.model.Coordinate;
+import com.battleship.common.model.Ship;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Board.placeShip и Board.shoot. Результаты нормированы на одну операцию (один корабль / один выстрел).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardBenchmark {
+    private static final int CELLS = Coordinate.BOARD_SIZE * Coordinate.BOARD_SIZE;
+
+    private List<Ship> fleet;
+    private Coordinate[] shotOrder;
+    private Board fullyShotBoard;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        fleet = Fixtures.randomFleetBoard(random).getShips();
+        shotOrder = Fixtures.shuffledCells(random);
+
+        fullyShotBoard = new Board();
+        for (Ship ship : Fixtures.copyFleet(fleet)) {
+            fullyShotBoard.placeShip(ship);
+        }
+        for (Coordinate c : shotOrder) {
+            fullyShotBoard.shoot(c);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public Board placeFleet() {
+        Board board = new Board();
+        for (Ship ship : fleet) {
+            board.placeShip(ship);
+        }
+        return board;
+    }
+
+    // Включает создание доски и расстановку, поэтому сравнивать со placeFleet
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void shootWholeBoard(Blackhole blackhole) {
+        Board board = new Board();
+        for (Ship ship : Fixtures.copyFleet(fleet)) {
+            board.placeShip(ship);
+        }
+        for (Coordinate c : shotOrder) {
+            blackhole.consume(board.shoot(c));
+        }
+    }
+
+    @Benchmark
+    public Object shootAlreadyShot() {
+        cursor = (cursor + 1) % CELLS;
+        return fullyShotBoard.shoot(shotOrder[cursor]);
+    }
+}
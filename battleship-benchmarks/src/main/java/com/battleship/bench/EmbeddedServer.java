@@ -0,0 +1,168 @@
+package com.battleship.bench;
+
+import com.battleship.common.protocol.Messages;
+import com.battleship.common.time.ManualClock;
+import com.battleship.server.ai.AIService;
+import com.battleship.server.ai.AITurnScheduler;
+import com.battleship.server.game.GameEngine;
+import com.battleship.server.game.SeedSource;
+import com.battleship.server.handler.GameMessageHandler;
+import com.battleship.server.lifecycle.GameLifecycleManager;
+import com.battleship.server.load.LoadShedder;
+import com.battleship.server.lobby.LobbyService;
+import com.battleship.server.matchmaking.MatchmakingService;
+import com.battleship.server.session.PlayerSession;
+import com.battleship.server.session.SessionManager;
+import com.battleship.server.stats.HeatmapAggregator;
+import com.battleship.server.stats.ServerMetrics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сервер без сети: GameMessageHandler, SessionManager, MatchmakingService и AIService собраны так же,
+ * как в WebSocketServerInitializer, но каждый игрок — EmbeddedChannel. Сообщения подаются прямо в handler
+ * как TextWebSocketFrame, а ходы AI выполняются сразу в том же потоке, поэтому партия идёт синхронно
+ * и меряется только логика сервера, без сокетов и WebSocket кодеков.
+ * Id, сиды партий и часы детерминированы: при одном сиде и одинаковых сообщениях прогон повторяется.
+ * Не потокобезопасен: один стенд — один поток.
+ */
+public class EmbeddedServer {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ManualClock clock = new ManualClock(0);
+    private final SessionManager sessionManager;
+    private final MatchmakingService matchmakingService;
+    private final GameLifecycleManager lifecycle;
+    // Тикер лобби не запускается: рассылку стенд не меряет
+    private final LobbyService lobby;
+    private final AIService aiService = new AIService();
+    private final HeatmapAggregator heatmapAggregator = new HeatmapAggregator(0.5, null);
+    private final ServerMetrics metrics = new ServerMetrics();
+    // Монитора event loop у стенда нет, поэтому сброс нагрузки никогда не включается
+    private final LoadShedder loadShedder = LoadShedder.fromSystemProperties();
+
+    public EmbeddedServer(long seed) {
+        SeedSource seeds = SeedSource.seeded(seed);
+        this.sessionManager = new SessionManager(seeds);
+        this.matchmakingService = new MatchmakingService(seeds, clock);
+        this.lifecycle = new GameLifecycleManager(sessionManager, matchmakingService, aiService, metrics);
+        this.lobby = new LobbyService(sessionManager, matchmakingService, metrics);
+    }
+
+    public Player connect(String name) {
+        // Свой id на канал: у EmbeddedChannel по умолчанию он общий, а SessionManager ищет сессию по каналу
+        EmbeddedChannel channel = new EmbeddedChannel(DefaultChannelId.newInstance(),
+            new GameMessageHandler(sessionManager, matchmakingService, aiService, heatmapAggregator,
+                AITurnScheduler.inline(), metrics, loadShedder, lifecycle, lobby));
+        Player player = new Player(channel);
+        player.send(encode(new Messages.Connect(name, "1.0.0")));
+        player.discardReplies();
+        return player;
+    }
+
+    /**
+     * Текущая игра игрока или null, если он не в игре
+     */
+    public GameEngine gameOf(Player player) {
+        String gameId = player.session().getCurrentGameId();
+        return gameId != null ? matchmakingService.getGame(gameId) : null;
+    }
+
+    public ManualClock getClock() {
+        return clock;
+    }
+
+    public SessionManager getSessionManager() {
+        return sessionManager;
+    }
+
+    public MatchmakingService getMatchmakingService() {
+        return matchmakingService;
+    }
+
+    public GameLifecycleManager getLifecycle() {
+        return lifecycle;
+    }
+
+    public AIService getAIService() {
+        return aiService;
+    }
+
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public String encode(Messages.Message message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Не удалось закодировать " + message.getType(), e);
+        }
+    }
+
+    public final class Player {
+        private final EmbeddedChannel channel;
+
+        private Player(EmbeddedChannel channel) {
+            this.channel = channel;
+        }
+
+        public void send(String json) {
+            channel.writeInbound(new TextWebSocketFrame(json));
+        }
+
+        /**
+         * Разбирает все ответы, накопившиеся в канале с прошлого чтения
+         */
+        public List<Messages.Message> receive() {
+            List<Messages.Message> messages = new ArrayList<>();
+            TextWebSocketFrame frame;
+            while ((frame = channel.readOutbound()) != null) {
+                try {
+                    messages.add(objectMapper.readValue(frame.text(), Messages.Message.class));
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException("Сервер отправил некорректный JSON: " + frame.text(), e);
+                } finally {
+                    frame.release();
+                }
+            }
+            return messages;
+        }
+
+        /**
+         * Освобождает накопившиеся ответы без разбора, возвращает их число
+         */
+        public int discardReplies() {
+            int count = 0;
+            TextWebSocketFrame frame;
+            while ((frame = channel.readOutbound()) != null) {
+                frame.release();
+                count++;
+            }
+            return count;
+        }
+
+        public String getPlayerId() {
+            return session().getPlayerId();
+        }
+
+        PlayerSession session() {
+            return sessionManager.getSessionByChannel(channel)
+                .orElseThrow(() -> new IllegalStateException("Игрок отключён"));
+        }
+
+        /**
+         * Закрывает канал: сервер обрабатывает это как обрыв соединения
+         */
+        public void disconnect() {
+            channel.close();
+            discardReplies();
+        }
+    }
+}
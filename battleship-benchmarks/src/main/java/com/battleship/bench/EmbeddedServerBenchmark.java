@@ -0,0 +1,145 @@
+package com.battleship.bench;
+
+import com.battleship.common.model.Board;
+import com.battleship.common.model.Coordinate;
+import com.battleship.common.model.Ship;
+import com.battleship.common.protocol.GameMode;
+import com.battleship.common.protocol.Messages;
+import com.battleship.server.game.GameEngine;
+import static com.battleship.common.model.ModelTypes.GameStatus;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность логики сервера на EmbeddedServer, без сети.
+ * fire — один FIRE в PvP партии: разбор JSON, GameEngine.fire и два SHOT_RESULT; законченные партии
+ * перезапускаются, расстановка размазывается по ~150 выстрелам партии.
+ * pveGame — партия с AI целиком, от FIND_GAME до GAME_OVER, ходы AI выполняются в том же потоке.
+ * Сообщения клиента закодированы заранее, ответы сервера освобождаются без разбора.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmbeddedServerBenchmark {
+    private static final int CELLS = Coordinate.BOARD_SIZE * Coordinate.BOARD_SIZE;
+    private static final int FLEETS = 16;
+
+    private final Random random = new Random(42);
+
+    private EmbeddedServer server;
+    private String[] fireByCell;
+    private String[][] fleets;
+    private String findPvE;
+    private String findPvP;
+    private String ready;
+    private int fleetCursor;
+
+    private EmbeddedServer.Player p1;
+    private EmbeddedServer.Player p2;
+    private String p1Id;
+    private Coordinate[] p1Shots;
+    private Coordinate[] p2Shots;
+    private int p1Cursor;
+    private int p2Cursor;
+    private GameEngine pvpGame;
+
+    private EmbeddedServer.Player human;
+    private Coordinate[] humanShots;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = new EmbeddedServer(42);
+
+        fireByCell = new String[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            Coordinate c = Coordinate.fromIndex(i);
+            fireByCell[i] = server.encode(new Messages.Fire(c.x(), c.y()));
+        }
+
+        fleets = new String[FLEETS][];
+        for (int f = 0; f < FLEETS; f++) {
+            Board board = Fixtures.randomFleetBoard(random);
+            fleets[f] = board.getShips().stream()
+                .map(ship -> server.encode(placeShip(ship)))
+                .toArray(String[]::new);
+        }
+
+        findPvE = server.encode(new Messages.FindGame(GameMode.PVE));
+        findPvP = server.encode(new Messages.FindGame(GameMode.PVP));
+        ready = server.encode(new Messages.Ready());
+
+        p1 = server.connect("Bench_1");
+        p2 = server.connect("Bench_2");
+        p1Id = p1.getPlayerId();
+        p1Shots = Fixtures.shuffledCells(random);
+        p2Shots = Fixtures.shuffledCells(random);
+        startPvpGame();
+
+        human = server.connect("Bench_PvE");
+        humanShots = Fixtures.shuffledCells(random);
+    }
+
+    private static Messages.PlaceShip placeShip(Ship ship) {
+        return new Messages.PlaceShip(ship.getType(), ship.getStart().x(), ship.getStart().y(), ship.getOrientation());
+    }
+
+    private void startPvpGame() {
+        p1.send(findPvP);
+        p2.send(findPvP);
+        placeFleet(p1);
+        placeFleet(p2);
+        p1.send(ready);
+        p2.send(ready);
+        p1.discardReplies();
+        p2.discardReplies();
+
+        pvpGame = server.gameOf(p1);
+        p1Cursor = 0;
+        p2Cursor = 0;
+    }
+
+    private void placeFleet(EmbeddedServer.Player player) {
+        for (String placement : fleets[fleetCursor++ % FLEETS]) {
+            player.send(placement);
+        }
+    }
+
+    @Benchmark
+    public int fire() {
+        var state = pvpGame.getGameState();
+        if (state.getStatus() != GameStatus.IN_PROGRESS) {
+            startPvpGame();
+            state = pvpGame.getGameState();
+        }
+
+        if (state.getCurrentTurnPlayerId().equals(p1Id)) {
+            p1.send(fireByCell[p1Shots[p1Cursor++].toIndex()]);
+        } else {
+            p2.send(fireByCell[p2Shots[p2Cursor++].toIndex()]);
+        }
+        return p1.discardReplies() + p2.discardReplies();
+    }
+
+    @Benchmark
+    public int pveGame() {
+        human.send(findPvE);
+        placeFleet(human);
+        human.send(ready);
+
+        GameEngine game = server.gameOf(human);
+
+        // Ход AI выполняется внутри обработки FIRE, поэтому после каждого send снова ходит человек
+        int cursor = 0;
+        while (game.getGameState().getStatus() == GameStatus.IN_PROGRESS) {
+            human.send(fireByCell[humanShots[cursor++].toIndex()]);
+        }
+
+        return human.discardReplies();
+    }
+}
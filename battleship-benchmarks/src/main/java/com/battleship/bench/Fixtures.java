@@ -0,0 +1,46 @@
+package com.battleship.bench;
+
+import com.battleship.common.model.Board;
+import com.battleship.common.model.Coordinate;
+import com.battleship.common.model.Ship;
+import com.battleship.common.rules.GameRules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Детерминированные заготовки для бенчмарков: расстановки флота и порядки выстрелов
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static Board randomFleetBoard(Random random) {
+        Board board = new Board();
+        while (!GameRules.autoPlaceShips(board, random)) {
+            board = new Board();
+        }
+        return board;
+    }
+
+    // Новые экземпляры кораблей: Ship хранит попадания и не может переиспользоваться между досками
+    static List<Ship> copyFleet(List<Ship> fleet) {
+        List<Ship> copy = new ArrayList<>(fleet.size());
+        for (Ship ship : fleet) {
+            copy.add(new Ship(ship.getType(), ship.getStart(), ship.getOrientation()));
+        }
+        return copy;
+    }
+
+    static Coordinate[] shuffledCells(Random random) {
+        List<Coordinate> cells = new ArrayList<>();
+        for (int i = 0; i < Coordinate.BOARD_SIZE * Coordinate.BOARD_SIZE; i++) {
+            cells.add(Coordinate.fromIndex(i));
+        }
+        Collections.shuffle(cells, random);
+        return cells.toArray(new Coordinate[0]);
+    }
+}
@@ -0,0 +1,105 @@
+package com.battleship.bench;
+
+import com.battleship.common.model.Board;
+import com.battleship.common.model.Coordinate;
+import com.battleship.common.model.Ship;
+import com.battleship.server.game.GameEngine;
+import static com.battleship.common.model.ModelTypes.GameStatus;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GameEngine.fire без конкуренции и под конкуренцией за монитор движка.
+ * В группе contended один поток ведёт партию, остальные стреляют не в свой ход —
+ * так в проде выглядят повторные FIRE и ходы AI, пересекающиеся с ходами игрока.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameEngineBenchmark {
+    private static final String P1 = "p1";
+    private static final String P2 = "p2";
+    private static final int CELLS = Coordinate.BOARD_SIZE * Coordinate.BOARD_SIZE;
+
+    /**
+     * Партия, которая перезапускается после окончания. Поля volatile, т.к. читаются потоками группы.
+     */
+    @State(Scope.Group)
+    public static class RunningGame {
+        private final Random random = new Random(42);
+        private Coordinate[] p1Shots;
+        private Coordinate[] p2Shots;
+
+        private volatile GameEngine engine;
+        private int p1Cursor;
+        private int p2Cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            p1Shots = Fixtures.shuffledCells(random);
+            p2Shots = Fixtures.shuffledCells(random);
+            restart();
+        }
+
+        void restart() {
+            GameEngine game = new GameEngine("bench", P1, P2);
+            placeFleet(game, P1, Fixtures.randomFleetBoard(random));
+            placeFleet(game, P2, Fixtures.randomFleetBoard(random));
+            game.startGame();
+            p1Cursor = 0;
+            p2Cursor = 0;
+            engine = game;
+        }
+
+        private static void placeFleet(GameEngine game, String playerId, Board board) {
+            for (Ship ship : board.getShips()) {
+                game.placeShip(playerId, ship.getType(), ship.getStart().x(), ship.getStart().y(), ship.getOrientation());
+            }
+        }
+
+        Object fireNext() {
+            GameEngine game = engine;
+            var state = game.getGameState();
+            if (state.getStatus() != GameStatus.IN_PROGRESS || p1Cursor >= CELLS || p2Cursor >= CELLS) {
+                restart();
+                return null;
+            }
+
+            String shooter = state.getCurrentTurnPlayerId();
+            Coordinate target = shooter.equals(P1) ? p1Shots[p1Cursor++] : p2Shots[p2Cursor++];
+            return game.fire(shooter, target.x(), target.y());
+        }
+
+        Object fireOutOfTurn() {
+            GameEngine game = engine;
+            String waiting = game.getGameState().getOpponentId(game.getGameState().getCurrentTurnPlayerId());
+            return game.fire(waiting, 0, 0);
+        }
+    }
+
+    @Benchmark
+    @Group("uncontended")
+    @GroupThreads(1)
+    public Object fire(RunningGame game) {
+        return game.fireNext();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public Object turnOwner(RunningGame game) {
+        return game.fireNext();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public Object outOfTurn(RunningGame game) {
+        return game.fireOutOfTurn();
+    }
+}
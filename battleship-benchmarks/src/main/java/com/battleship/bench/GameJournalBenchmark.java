@@ -0,0 +1,81 @@
+package com.battleship.bench;
+
+import com.battleship.server.journal.JournalEvent;
+import com.battleship.server.journal.MappedGameJournal;
+import com.battleship.server.stats.ServerMetrics;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import static com.battleship.common.model.ModelTypes.ShotResultType;
+
+/**
+ * Пропускная способность журнала партий: пачка выстрелов кладётся в очередь, и замер ждёт,
+ * пока поток записи не допишет её в сегменты. Так видна скорость, которую журнал держит долго,
+ * а не только цена append. Сегменты по 64 МБ, за итерацию их сменяется несколько.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameJournalBenchmark {
+    private static final int BATCH = 10_000;
+    private static final String GAME_ID = "0b7e3c52-7f4a-4e0e-9a55-1f3d2c6b8a90";
+
+    @Param({"NONE", "BATCH", "INTERVAL"})
+    private MappedGameJournal.FsyncPolicy fsync;
+
+    private final JournalEvent[] shots = new JournalEvent[BATCH];
+    private Path directory;
+    private MappedGameJournal journal;
+    private long appended;
+
+    @Setup(Level.Trial)
+    public void prepareEvents() {
+        ShotResultType[] results = ShotResultType.values();
+        for (int i = 0; i < BATCH; i++) {
+            shots[i] = new JournalEvent.ShotFired(i, GAME_ID, 1 + i % 2, i % 10, i / 10 % 10, results[i % results.length]);
+        }
+    }
+
+    // Каталог на итерацию: сегменты одной итерации занимают сотни мегабайт
+    @Setup(Level.Iteration)
+    public void openJournal() throws IOException {
+        directory = Files.createTempDirectory("battleship-journal-bench");
+        journal = new MappedGameJournal(new MappedGameJournal.Settings(directory, 64 << 20, fsync, 1000, 65536),
+            new ServerMetrics());
+        appended = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeJournal() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long appendAndWrite() {
+        for (JournalEvent shot : shots) {
+            journal.append(shot);
+        }
+        appended += BATCH;
+        while (journal.getWrittenCount() < appended) {
+            LockSupport.parkNanos(10_000);
+        }
+        return journal.getWrittenCount();
+    }
+}
@@ -0,0 +1,39 @@
+package com.battleship.bench;
+
+import com.battleship.common.model.Board;
+import com.battleship.common.rules.GameRules;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GameRules.autoPlaceShips — вызывается для каждого AI игрока при создании PvE игры
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameRulesBenchmark {
+
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new Random(42);
+    }
+
+    @Benchmark
+    public boolean autoPlaceShips() {
+        return GameRules.autoPlaceShips(new Board(), random);
+    }
+
+    @Benchmark
+    public boolean validateShipPlacement() {
+        Board board = new Board();
+        GameRules.autoPlaceShips(board, random);
+        return GameRules.validateShipPlacement(board);
+    }
+}
@@ -0,0 +1,45 @@
+package com.battleship.bench;
+
+import com.battleship.ai.agent.HuntTargetAgent;
+import com.battleship.common.model.Board;
+import com.battleship.common.model.Coordinate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HuntTargetAgent.chooseAction на досках разной заполненности.
+ * Доска готовится самим агентом: fill выстрелов сыграны так же, как в реальной партии.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HuntTargetAgentBenchmark {
+
+    @Param({"0", "20", "40", "60"})
+    public int fill;
+
+    private HuntTargetAgent agent;
+    private Board board;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        agent = new HuntTargetAgent(new Random(7));
+        board = Fixtures.randomFleetBoard(random);
+
+        for (int i = 0; i < fill && !board.allShipsSunk(); i++) {
+            Coordinate shot = agent.chooseAction(board);
+            board.shoot(shot);
+        }
+    }
+
+    @Benchmark
+    public Coordinate chooseAction() {
+        return agent.chooseAction(board);
+    }
+}
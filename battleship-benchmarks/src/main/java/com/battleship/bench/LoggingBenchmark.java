@@ -0,0 +1,195 @@
+package com.battleship.bench;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.status.Status;
+import com.battleship.server.logging.GameLogContext;
+import com.battleship.server.logging.LogSampler;
+
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Цена строки лога на выстрел для потока event loop, с MDC игры, как в сервере.
+ * sync — FileAppender с немедленным flush, как ConsoleAppender без очереди: запись под блокировкой аппендера.
+ * async — AsyncAppender сервера (очередь 8192, neverBlock): поток только кладёт событие в очередь,
+ * при переполнении события отбрасываются, а не ждут диска.
+ * sampled — DEBUG через LogSampler (20 записей/с), disabled — DEBUG при уровне INFO.
+ * sink=file пишет во временный файл, который удаляется после прогона; sink=slowConsole — поток, который
+ * на каждый flush ждёт 50 мкс, как терминал или docker log driver под нагрузкой.
+ * Запуск с -t 4 показывает борьбу потоков за аппендер.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+    private static final String PATTERN =
+        "%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} [game=%X{gameId:--} player=%X{playerId:--}] - %msg%n";
+
+    private static final long SLOW_CONSOLE_FLUSH_NANOS = 50_000;
+
+    @Param({"file", "slowConsole"})
+    private String sink;
+
+    private final LoggerContext context = new LoggerContext();
+    private final LogSampler sampler = new LogSampler(20);
+
+    private Path directory;
+    private Logger syncLogger;
+    private Logger asyncLogger;
+    private Logger sampledLogger;
+    private Logger disabledLogger;
+
+    @State(Scope.Thread)
+    public static class Shot {
+        int x;
+        int y;
+
+        @Setup(Level.Trial)
+        public void openLogContext() {
+            GameLogContext.open("a8b1a0c7-1266-4c3c-88a8-2f9462be3e28", "60a8b691-be99-4a43-8c1e-5980f67c8986");
+        }
+
+        void next() {
+            x = (x + 3) % 10;
+            y = (y + 7) % 10;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("battleship-logging-bench");
+        // Свой контекст не получает MDC сам, без адаптера каждая запись падает внутри аппендера
+        context.setMDCAdapter(MDC.getMDCAdapter());
+
+        OutputStreamAppender<ILoggingEvent> syncFile = sinkAppender("sync.log");
+        syncLogger = logger("bench.sync", ch.qos.logback.classic.Level.INFO);
+        syncLogger.addAppender(syncFile);
+
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(8192);
+        async.setDiscardingThreshold(8192 / 5);
+        async.setNeverBlock(true);
+        async.addAppender(sinkAppender("async.log"));
+        async.start();
+        asyncLogger = logger("bench.async", ch.qos.logback.classic.Level.INFO);
+        asyncLogger.addAppender(async);
+
+        sampledLogger = logger("bench.sampled", ch.qos.logback.classic.Level.DEBUG);
+        sampledLogger.addAppender(syncFile);
+
+        disabledLogger = logger("bench.disabled", ch.qos.logback.classic.Level.INFO);
+        disabledLogger.addAppender(syncFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.stop();
+        // Ошибки аппендеров logback не бросает наружу, а копит в StatusManager
+        context.getStatusManager().getCopyOfStatusList().stream()
+            .filter(status -> status.getLevel() == Status.ERROR)
+            .findFirst()
+            .ifPresent(status -> {
+                throw new IllegalStateException("Ошибка logback в прогоне: " + status);
+            });
+
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private OutputStreamAppender<ILoggingEvent> sinkAppender(String fileName) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.setCharset(StandardCharsets.UTF_8);
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender;
+        if (sink.equals("file")) {
+            FileAppender<ILoggingEvent> file = new FileAppender<>();
+            file.setContext(context);
+            file.setFile(directory.resolve(fileName).toString());
+            appender = file;
+        } else {
+            appender = new OutputStreamAppender<>();
+            appender.setContext(context);
+            appender.setOutputStream(new SlowConsoleStream());
+        }
+        appender.setEncoder(encoder);
+        appender.setImmediateFlush(true);
+        appender.start();
+        return appender;
+    }
+
+    private Logger logger(String name, ch.qos.logback.classic.Level level) {
+        Logger logger = context.getLogger(name);
+        logger.setLevel(level);
+        logger.setAdditive(false);
+        return logger;
+    }
+
+    @Benchmark
+    public void sync(Shot shot) {
+        shot.next();
+        syncLogger.info("Выстрел в {}{}: {}", (char) ('A' + shot.x), shot.y, "MISS");
+    }
+
+    @Benchmark
+    public void async(Shot shot) {
+        shot.next();
+        asyncLogger.info("Выстрел в {}{}: {}", (char) ('A' + shot.x), shot.y, "MISS");
+    }
+
+    @Benchmark
+    public void sampled(Shot shot) {
+        shot.next();
+        if (sampledLogger.isDebugEnabled() && sampler.tryAcquire()) {
+            sampledLogger.debug("Выстрел в {}{}: {} (пропущено записей: {})", (char) ('A' + shot.x), shot.y, "MISS",
+                sampler.drainSuppressed());
+        }
+    }
+
+    @Benchmark
+    public void disabled(Shot shot) {
+        shot.next();
+        if (disabledLogger.isDebugEnabled()) {
+            disabledLogger.debug("Выстрел в {}{}: {}", (char) ('A' + shot.x), shot.y, "MISS");
+        }
+    }
+
+    private static class SlowConsoleStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+            LockSupport.parkNanos(SLOW_CONSOLE_FLUSH_NANOS);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.battleship.bench;
+
+import com.battleship.common.protocol.GameMode;
+import com.battleship.common.protocol.MessageType;
+import com.battleship.common.protocol.Messages;
+import com.battleship.common.protocol.PresenceStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import static com.battleship.common.model.ModelTypes.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кодирование и разбор каждого типа сообщений тем же способом, что и в GameMessageHandler
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    @Param({
+        "CONNECT", "FIND_GAME", "PLACE_SHIP", "READY", "FIRE", "SURRENDER", "RESUME", "SPECTATE",
+        "LOBBY_SUBSCRIBE", "LOBBY_UNSUBSCRIBE",
+        "CONNECTED", "GAME_FOUND", "SHIP_PLACED", "GAME_START", "SHOT_RESULT", "GAME_OVER", "RESUMED", "SPECTATING",
+        "LOBBY_SNAPSHOT", "LOBBY_UPDATE",
+        "ERROR"
+    })
+    public MessageType type;
+
+    // Середина партии: часть флота подбита, по обеим доскам десяток выстрелов
+    private static final String OWN_BOARD =
+        "SSSS..o..." + ".......X.." + "o.S...#..." + "..S...#..S" + "......o..S"
+        + "SS.o......" + "........o." + "..SSS...S." + "o.......S." + "...S..o..S";
+    private static final String OPPONENT_BOARD =
+        "..o......." + "...XX....o" + "o........." + "......###." + "..o......."
+        + "........o." + ".#........" + ".#..o....." + ".......o.." + "o........X";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Messages.Message message;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        message = sample(type);
+        json = objectMapper.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public String encode() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public Messages.Message decode() throws JsonProcessingException {
+        return objectMapper.readValue(json, Messages.Message.class);
+    }
+
+    static Messages.Message sample(MessageType type) {
+        return switch (type) {
+            case CONNECT -> new Messages.Connect("Player_1", "1.0.0");
+            case FIND_GAME -> new Messages.FindGame(GameMode.PVE);
+            case PLACE_SHIP -> new Messages.PlaceShip(ShipType.CRUISER, 3, 4, Orientation.VERTICAL);
+            case READY -> new Messages.Ready();
+            case FIRE -> new Messages.Fire(5, 7);
+            case SURRENDER -> new Messages.Surrender();
+            case RESUME -> new Messages.Resume("3d6a9e0f-52c1-4b7e-8f2a-9c0d1e4b6a73");
+            case SPECTATE -> new Messages.Spectate("0b7e3c52-7f4a-4e0e-9a55-1f3d2c6b8a90");
+            case LOBBY_SUBSCRIBE -> new Messages.LobbySubscribe();
+            case LOBBY_UNSUBSCRIBE -> new Messages.LobbyUnsubscribe();
+            case CONNECTED -> new Messages.Connected("6f1c2b1e-8d0b-4c43-a1a8-5d2e4b7c9f10", "1.0.0");
+            case GAME_FOUND -> new Messages.GameFound("0b7e3c52-7f4a-4e0e-9a55-1f3d2c6b8a90", "AI");
+            case SHIP_PLACED -> new Messages.ShipPlaced(true, "Корабль размещён");
+            case GAME_START -> new Messages.GameStart(true);
+            case SHOT_RESULT -> new Messages.ShotResult("Player_1", 5, 7, ShotResultType.SUNK, ShipType.DESTROYER, true);
+            case GAME_OVER -> new Messages.GameOver("Победа", "Игра завершена", 0, 0);
+            case RESUMED -> new Messages.Resumed("6f1c2b1e-8d0b-4c43-a1a8-5d2e4b7c9f10",
+                "0b7e3c52-7f4a-4e0e-9a55-1f3d2c6b8a90", "AI", "IN_PROGRESS", true, OWN_BOARD, OPPONENT_BOARD);
+            case SPECTATING -> new Messages.Spectating("0b7e3c52-7f4a-4e0e-9a55-1f3d2c6b8a90", "Player_1", "AI",
+                "IN_PROGRESS", "Player_1", OPPONENT_BOARD, OPPONENT_BOARD, 12);
+            case LOBBY_SNAPSHOT -> new Messages.LobbySnapshot(42, 3, 1, 0, List.of(
+                new Messages.LobbyPlayer("6f1c2b1e-8d0b-4c43-a1a8-5d2e4b7c9f10", "Player_1", PresenceStatus.PLAYING,
+                    "0b7e3c52-7f4a-4e0e-9a55-1f3d2c6b8a90"),
+                new Messages.LobbyPlayer("9a2d4c6e-1b3f-4e5a-8c7d-0f2e4a6b8c01", "Player_2", PresenceStatus.SEARCHING, null),
+                new Messages.LobbyPlayer("c4e6a8b0-2d4f-4a6c-9e0b-3d5f7a9c1e23", "Player_3", PresenceStatus.IDLE, null)));
+            case LOBBY_UPDATE -> new Messages.LobbyUpdate(43, null, 0, null, List.of(
+                new Messages.LobbyPlayer("9a2d4c6e-1b3f-4e5a-8c7d-0f2e4a6b8c01", "Player_2", PresenceStatus.PLAYING,
+                    "5e7a9c1d-3f5b-4d7e-a0c2-4e6a8c0e2a45")),
+                List.of("c4e6a8b0-2d4f-4a6c-9e0b-3d5f7a9c1e23"));
+            case ERROR -> new Messages.Error(400, "Сейчас не ваш ход");
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.battleship.bench;
+
+import com.battleship.common.protocol.MessageType;
+import com.battleship.server.stats.ServerMetrics;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись метрик на горячем пути: счётчик и гистограмма на входящее сообщение, счётчик на исходящее.
+ * gc.alloc.rate.norm должен быть около нуля, иначе метрики нельзя держать включёнными.
+ * Запуск с -t 4 показывает запись из нескольких потоков event loop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServerMetricsBenchmark {
+
+    private final ServerMetrics metrics = new ServerMetrics();
+    private long latencyNanos = 1_000;
+
+    @Benchmark
+    public void recordFire() {
+        latencyNanos = latencyNanos * 31 % 5_000_000 + 1_000;
+        metrics.recordReceived(MessageType.FIRE, latencyNanos);
+        metrics.recordSent(MessageType.SHOT_RESULT);
+        metrics.recordSent(MessageType.SHOT_RESULT);
+    }
+
+    @Benchmark
+    public String render() {
+        return metrics.renderPrometheus();
+    }
+}
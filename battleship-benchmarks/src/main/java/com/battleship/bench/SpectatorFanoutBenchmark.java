@@ -0,0 +1,86 @@
+package com.battleship.bench;
+
+import com.battleship.common.protocol.Messages;
+import com.battleship.server.spectate.SpectatorHub;
+import com.battleship.server.stats.ServerMetrics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.battleship.common.model.ModelTypes.ShipType;
+import static com.battleship.common.model.ModelTypes.ShotResultType;
+
+/**
+ * Рассылка выстрела зрителям партии. shared — SpectatorHub: JSON кодируется один раз, каждому зрителю
+ * уходит retainedDuplicate буфера. perViewer — как GameNotifier.send: кодирование на каждого зрителя.
+ * Каналы без сети, запись отбрасывается сразу, поэтому видна цена сервера, а не сокета.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpectatorFanoutBenchmark {
+    private static final String GAME_ID = "0b7e3c52-7f4a-4e0e-9a55-1f3d2c6b8a90";
+
+    @Param({"10", "100", "1000"})
+    private int viewers;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Messages.ShotResult shot =
+        new Messages.ShotResult("Player_1", 5, 7, ShotResultType.SUNK, ShipType.DESTROYER, false);
+    private final List<EmbeddedChannel> channels = new ArrayList<>();
+    private SpectatorHub hub;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hub = new SpectatorHub(Integer.MAX_VALUE, new ServerMetrics());
+        for (int i = 0; i < viewers; i++) {
+            // У EmbeddedChannel по умолчанию один id на всех, а ChannelGroup различает каналы по id
+            EmbeddedChannel channel = new EmbeddedChannel(DefaultChannelId.newInstance(), new DiscardingWriter());
+            channels.add(channel);
+            hub.join(GAME_ID, channel);
+        }
+        if (hub.getViewerCount(GAME_ID) != viewers) {
+            throw new IllegalStateException("Зрителей в группе " + hub.getViewerCount(GAME_ID) + " из " + viewers);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channels.forEach(EmbeddedChannel::finishAndReleaseAll);
+    }
+
+    @Benchmark
+    public void shared() {
+        hub.publish(GAME_ID, shot);
+    }
+
+    @Benchmark
+    public void perViewer() throws JsonProcessingException {
+        for (EmbeddedChannel channel : channels) {
+            channel.writeAndFlush(new TextWebSocketFrame(objectMapper.writeValueAsString(shot)));
+        }
+    }
+
+    private static class DiscardingWriter extends ChannelOutboundHandlerAdapter {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ReferenceCountUtil.release(msg);
+            promise.setSuccess();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.battleship.bench;
+
+import com.battleship.common.protocol.Messages;
+import com.battleship.server.BattleshipServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена транспорта: запрос и ответ через настоящий сокет к BattleshipServer, запущенному в том же процессе.
+ * webSocket — /game: WebSocket кадры, маскирование и проверка UTF-8 на каждом сообщении.
+ * rawTcp и rawUnix — кадры [int длина][JSON] через RawServerInitializer.
+ * Запрос — повторный CONNECT той же сессии: сервер отвечает CONNECTED, не меняя состояния,
+ * поэтому разница между методами — это транспорт и pipeline. Клиент блокирующий, кадры запроса готовы заранее.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportRoundTripBenchmark {
+    private static final long START_TIMEOUT_MS = 10_000;
+
+    private BattleshipServer server;
+    private Thread serverThread;
+    private Path socketDir;
+    private Connection webSocket;
+    private Connection rawTcp;
+    private Connection rawUnix;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        socketDir = Files.createTempDirectory("battleship-bench");
+        Path socketPath = socketDir.resolve("raw.sock");
+        int webSocketPort = freePort();
+        int rawPort = freePort();
+
+        // Лимиты, сброс нагрузки и PING мешали бы замеру, а не серверу
+        System.setProperty("battleship.raw.listen", "tcp:127.0.0.1:" + rawPort + ",unix:" + socketPath);
+        System.setProperty("battleship.ratelimit.enabled", "false");
+        System.setProperty("battleship.heartbeat.intervalSec", "0");
+        System.setProperty("battleship.shed.highLagMs", "60000");
+        System.setProperty("battleship.shed.highPendingTasks", "1000000");
+
+        server = new BattleshipServer(webSocketPort);
+        serverThread = new Thread(() -> {
+            try {
+                server.start();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "bench-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        byte[] connect = new ObjectMapper().writeValueAsBytes(new Messages.Connect("Bench", "1.0.0"));
+        webSocket = WebSocketConnection.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), webSocketPort), connect);
+        rawTcp = RawConnection.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), rawPort), connect);
+        rawUnix = RawConnection.open(UnixDomainSocketAddress.of(socketPath), connect);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        webSocket.close();
+        rawTcp.close();
+        rawUnix.close();
+        server.stop();
+        serverThread.join(TimeUnit.SECONDS.toMillis(5));
+        Files.deleteIfExists(socketDir.resolve("raw.sock"));
+        Files.deleteIfExists(socketDir);
+    }
+
+    @Benchmark
+    public int webSocket() throws IOException {
+        return webSocket.roundTrip();
+    }
+
+    @Benchmark
+    public int rawTcp() throws IOException {
+        return rawTcp.roundTrip();
+    }
+
+    @Benchmark
+    public int rawUnix() throws IOException {
+        return rawUnix.roundTrip();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    // Сервер поднимается в своём потоке: подключаемся, пока порт или файл сокета не появится
+    private static SocketChannel connect(SocketAddress address) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + START_TIMEOUT_MS;
+        while (true) {
+            SocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open();
+            try {
+                channel.connect(address);
+                if (address instanceof InetSocketAddress) {
+                    channel.socket().setTcpNoDelay(true);
+                }
+                return channel;
+            } catch (IOException e) {
+                channel.close();
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    /**
+     * Блокирующее соединение: отправляет готовый кадр запроса и читает один кадр ответа
+     */
+    private abstract static class Connection implements AutoCloseable {
+        final SocketChannel channel;
+        final ByteBuffer request;
+        // В режиме чтения: position — начало непрочитанного
+        final ByteBuffer in = ByteBuffer.allocate(64 * 1024).flip();
+
+        Connection(SocketChannel channel, byte[] requestFrame) {
+            this.channel = channel;
+            this.request = ByteBuffer.wrap(requestFrame);
+        }
+
+        /**
+         * @return длина ответа в байтах
+         */
+        int roundTrip() throws IOException {
+            request.clear();
+            while (request.hasRemaining()) {
+                channel.write(request);
+            }
+            return readFrame();
+        }
+
+        abstract int readFrame() throws IOException;
+
+        void ensure(int bytes) throws IOException {
+            if (in.remaining() >= bytes) {
+                return;
+            }
+            in.compact();
+            while (in.position() < bytes) {
+                if (channel.read(in) < 0) {
+                    throw new IOException("Сервер закрыл соединение");
+                }
+            }
+            in.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static class RawConnection extends Connection {
+        RawConnection(SocketChannel channel, byte[] json) {
+            super(channel, ByteBuffer.allocate(4 + json.length).putInt(json.length).put(json).array());
+        }
+
+        static RawConnection open(SocketAddress address, byte[] connect) throws Exception {
+            RawConnection connection = new RawConnection(TransportRoundTripBenchmark.connect(address), connect);
+            connection.roundTrip();
+            return connection;
+        }
+
+        @Override
+        int readFrame() throws IOException {
+            ensure(4);
+            int length = in.getInt();
+            ensure(length);
+            in.position(in.position() + length);
+            return length;
+        }
+    }
+
+    private static class WebSocketConnection extends Connection {
+        private static final byte[] MASK = {0x12, 0x34, 0x56, 0x78};
+
+        WebSocketConnection(SocketChannel channel, byte[] json) {
+            super(channel, maskedTextFrame(json));
+        }
+
+        static WebSocketConnection open(SocketAddress address, byte[] connect) throws Exception {
+            WebSocketConnection connection = new WebSocketConnection(TransportRoundTripBenchmark.connect(address), connect);
+            connection.handshake();
+            connection.roundTrip();
+            return connection;
+        }
+
+        private void handshake() throws IOException {
+            String upgrade = "GET /game HTTP/1.1\r\nHost: localhost\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\nSec-WebSocket-Version: 13\r\n\r\n";
+            channel.write(ByteBuffer.wrap(upgrade.getBytes(StandardCharsets.US_ASCII)));
+
+            StringBuilder response = new StringBuilder();
+            while (!response.toString().endsWith("\r\n\r\n")) {
+                ensure(1);
+                response.append((char) in.get());
+            }
+            if (!response.toString().startsWith("HTTP/1.1 101")) {
+                throw new IOException("WebSocket handshake не удался: " + response);
+            }
+        }
+
+        // Кадр клиента обязан быть замаскирован; длина здесь всегда меньше 64 КБ
+        private static byte[] maskedTextFrame(byte[] payload) {
+            int header = payload.length < 126 ? 2 : 4;
+            ByteBuffer frame = ByteBuffer.allocate(header + MASK.length + payload.length);
+            frame.put((byte) 0x81);
+            if (payload.length < 126) {
+                frame.put((byte) (0x80 | payload.length));
+            } else {
+                frame.put((byte) (0x80 | 126)).putShort((short) payload.length);
+            }
+            frame.put(MASK);
+            for (int i = 0; i < payload.length; i++) {
+                frame.put((byte) (payload[i] ^ MASK[i % MASK.length]));
+            }
+            return frame.array();
+        }
+
+        @Override
+        int readFrame() throws IOException {
+            ensure(2);
+            in.get();
+            int length = in.get() & 0x7f;
+            if (length == 126) {
+                ensure(2);
+                length = in.getShort() & 0xffff;
+            } else if (length == 127) {
+                ensure(8);
+                length = (int) in.getLong();
+            }
+            ensure(length);
+            in.position(in.position() + length);
+            return length;
+        }
+    }
+}
@@ -94,6 +94,24 @@ public class BoardRenderer {
         return sb.toString();
     }
 
+    /**
+     * Доски обоих игроков для зрителя: корабли не видны ни на одной
+     */
+    public static String renderSpectatorBoards(String player1Name, Board player1Board,
+                                               String player2Name, Board player2Board) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\n");
+        sb.append(String.format("    %-27s%s%n", player1Name.toUpperCase(), player2Name.toUpperCase()));
+        sb.append(renderBoardHeader()).append("   ").append(renderBoardHeader()).append("\n");
+
+        for (int y = 0; y < Coordinate.BOARD_SIZE; y++) {
+            sb.append(renderBoardRow(player1Board, y, false)).append("   ")
+              .append(renderBoardRow(player2Board, y, false)).append("\n");
+        }
+
+        return sb.toString();
+    }
+
     private static String renderBoardHeader() {
         StringBuilder sb = new StringBuilder();
         sb.append("  ");
@@ -1,6 +1,7 @@
 package com.battleship.client.console;
 
 import com.battleship.common.model.*;
+import com.battleship.common.protocol.BoardSnapshot;
 import com.battleship.common.protocol.GameMode;
 import com.battleship.common.protocol.Messages;
 import com.battleship.common.rules.GameRules;
@@ -22,6 +23,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public class GameController {
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(GameController.class);
+    private static final int RESUME_ATTEMPTS = 5;
 
     private final GameClient client;
     private final Scanner scanner;
@@ -32,9 +34,11 @@ public class GameController {
     private String playerName;
     private boolean myTurn;
     private boolean gameStarted;
+    private Messages.Spectating spectating;
 
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
     private final AtomicBoolean connected = new AtomicBoolean(false);
+    private final AtomicBoolean awaitingShot = new AtomicBoolean(false);
     private ScheduledFuture<?> connectRetryTask;
     private ScheduledFuture<?> connectTimeoutTask;
 
@@ -86,7 +90,7 @@ public class GameController {
     }
 
     private void mainLoop() {
-        while (client.isConnected()) {
+        while (client.isConnected() || resume()) {
             try {
                 Thread.sleep(100);
             } catch (InterruptedException e) {
@@ -96,6 +100,38 @@ public class GameController {
         }
     }
 
+    /**
+     * Связь оборвалась посреди партии: сервер держит сессию и партию, пока не истечёт окно возврата
+     */
+    private boolean resume() {
+        String token = client.getResumeToken();
+        if (gameId == null || token == null) {
+            return false;
+        }
+
+        for (int attempt = 1; attempt <= RESUME_ATTEMPTS; attempt++) {
+            System.out.println("\nСвязь с сервером потеряна, переподключение (попытка " + attempt + ")...");
+            try {
+                client.connect().get(5, TimeUnit.SECONDS);
+                client.sendMessage(new Messages.Resume(token));
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (Exception e) {
+                logger.debug("Переподключение не удалось: {}", e.getMessage());
+            }
+
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
     private void handleMessage(Messages.Message message) {
         switch (message) {
             case Messages.Connected msg -> handleConnected(msg);
@@ -104,6 +140,11 @@ public class GameController {
             case Messages.GameStart msg -> handleGameStart(msg);
             case Messages.ShotResult msg -> handleShotResult(msg);
             case Messages.GameOver msg -> handleGameOver(msg);
+            case Messages.Resumed msg -> handleResumed(msg);
+            case Messages.Spectating msg -> handleSpectating(msg);
+            case Messages.LobbySnapshot msg -> handleLobbySnapshot(msg);
+            // Дельта могла уйти до отписки: список клиент показывает один раз
+            case Messages.LobbyUpdate ignored -> { }
             case Messages.Error msg -> handleError(msg);
             default -> System.out.println("Неизвестное сообщение: " + message.getType());
         }
@@ -124,12 +165,29 @@ public class GameController {
         System.out.println("\n=== Меню ===");
         System.out.println("1. PvP игра");
         System.out.println("2. PvE игра (против AI)");
+        System.out.println("3. Блиц PvP (короткие часы на ход)");
+        System.out.println("4. Смотреть партию");
+        System.out.println("5. Игроки в сети");
         System.out.print("Выбор: ");
 
         int choice = scanner.nextInt();
         scanner.nextLine();
 
-        GameMode mode = choice == 2 ? GameMode.PVE : GameMode.PVP;
+        if (choice == 4) {
+            System.out.print("ID партии: ");
+            client.sendMessage(new Messages.Spectate(scanner.nextLine().trim()));
+            return;
+        }
+        if (choice == 5) {
+            client.sendMessage(new Messages.LobbySubscribe());
+            return;
+        }
+
+        GameMode mode = switch (choice) {
+            case 2 -> GameMode.PVE;
+            case 3 -> GameMode.BLITZ;
+            default -> GameMode.PVP;
+        };
         client.sendMessage(new Messages.FindGame(mode));
 
         System.out.println("Поиск игры...");
@@ -265,6 +323,7 @@ public class GameController {
         System.out.println("\n--- Ваш ход ---");
         System.out.print("Выстрел (например, A5): ");
 
+        awaitingShot.set(true);
         try {
             String input = scanner.nextLine();
             Coordinate coord = Coordinate.parse(input);
@@ -274,10 +333,16 @@ public class GameController {
         } catch (Exception e) {
             System.out.println("Неверный формат, попробуйте снова");
             promptFire();
+        } finally {
+            awaitingShot.set(false);
         }
     }
 
     private void handleShotResult(Messages.ShotResult msg) {
+        if (spectating != null) {
+            handleSpectatedShot(msg);
+            return;
+        }
         Coordinate coord = new Coordinate(msg.getX(), msg.getY());
         boolean isMyShot = playerName.equals(msg.getShooter());
 
@@ -371,7 +436,7 @@ public class GameController {
         this.gameStarted = false;
 
         System.out.println("\n=== ИГРА ОКОНЧЕНА ===");
-        System.out.println("Результат: " + msg.getWinner());
+        System.out.println((spectating != null ? "Победитель: " : "Результат: ") + msg.getWinner());
         System.out.println("Причина: " + msg.getReason());
 
         System.out.println("\nНажмите Enter для выхода...");
@@ -381,10 +446,78 @@ public class GameController {
         System.exit(0);
     }
 
+    private void handleResumed(Messages.Resumed msg) {
+        if (msg.getGameId() == null) {
+            System.out.println("\nПартия завершилась, пока не было связи");
+            client.disconnect();
+            System.exit(0);
+        }
+
+        BoardSnapshot.applyShots(msg.getOwnBoard(), ownBoard);
+        BoardSnapshot.applyShots(msg.getOpponentBoard(), opponentBoard);
+        this.myTurn = msg.isYourTurn();
+        System.out.println("\nСоединение восстановлено, партия продолжается");
+
+        if (!"IN_PROGRESS".equals(msg.getPhase())) {
+            System.out.println("Ожидание противника...");
+            return;
+        }
+        this.gameStarted = true;
+        System.out.println(BoardRenderer.renderBothBoards(ownBoard, opponentBoard));
+
+        // Ввод выстрела мог остаться открытым с прошлого соединения: выстрел уйдёт уже в новое
+        if (myTurn && !awaitingShot.get()) {
+            promptFire();
+        } else if (!myTurn) {
+            System.out.println("\nХод противника...");
+        }
+    }
+
+    // Зритель: ownBoard — доска первого игрока, opponentBoard — второго
+    private void handleSpectating(Messages.Spectating msg) {
+        this.spectating = msg;
+        BoardSnapshot.applyShots(msg.getPlayer1Board(), ownBoard);
+        BoardSnapshot.applyShots(msg.getPlayer2Board(), opponentBoard);
+
+        System.out.println("\n=== " + msg.getPlayer1Name() + " против " + msg.getPlayer2Name()
+            + " (зрителей: " + msg.getViewers() + ") ===");
+        System.out.println(BoardRenderer.renderSpectatorBoards(
+            msg.getPlayer1Name(), ownBoard, msg.getPlayer2Name(), opponentBoard));
+        System.out.println(msg.getTurn() != null ? "Ходит " + msg.getTurn() : "Идёт расстановка кораблей...");
+    }
+
+    private void handleLobbySnapshot(Messages.LobbySnapshot msg) {
+        client.sendMessage(new Messages.LobbyUnsubscribe());
+
+        System.out.println("\n=== В сети: " + msg.getOnline() + ", в очереди PvP: " + msg.getPvpQueue()
+            + ", блиц: " + msg.getBlitzQueue() + " ===");
+        for (Messages.LobbyPlayer player : msg.getPlayers()) {
+            String status = switch (player.status()) {
+                case IDLE -> "в меню";
+                case SEARCHING -> "ищет игру";
+                case PLAYING -> "играет, партия " + player.gameId();
+            };
+            System.out.println(player.name() + " — " + status);
+        }
+        showMenu();
+    }
+
+    private void handleSpectatedShot(Messages.ShotResult msg) {
+        Coordinate coord = new Coordinate(msg.getX(), msg.getY());
+        boolean player1Shot = spectating.getPlayer1Name().equals(msg.getShooter());
+        updateBoard(player1Shot ? opponentBoard : ownBoard, coord, msg.getResult());
+
+        String coordStr = "" + (char) ('A' + msg.getX()) + msg.getY();
+        System.out.println("\n" + msg.getShooter() + ": " + coordStr + " - " + translateResult(msg.getResult()));
+        System.out.println(BoardRenderer.renderSpectatorBoards(
+            spectating.getPlayer1Name(), ownBoard, spectating.getPlayer2Name(), opponentBoard));
+    }
+
     private void handleError(Messages.Error msg) {
         System.err.println("ОШИБКА [" + msg.getCode() + "]: " + msg.getMessage());
 
-        if (msg.getCode() == 410) {
+        // 404 на RESUME или ход: партии на сервере уже нет
+        if (msg.getCode() == 410 || msg.getCode() == 404) {
             System.out.println("\nИгра отменена. Нажмите Enter для выхода...");
             try {
                 scanner.nextLine();
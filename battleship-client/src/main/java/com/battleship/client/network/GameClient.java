@@ -15,6 +15,7 @@ import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketCl
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
@@ -30,25 +31,46 @@ public class GameClient {
     private final String path;
     private final ObjectMapper objectMapper;
 
+    private final EventLoopGroup sharedGroup;
+
     private Channel channel;
     private EventLoopGroup group;
     private Consumer<Messages.Message> messageHandler;
     private String playerId;
+    private volatile String resumeToken;
 
     public GameClient(String host, int port, String path) {
+        this(host, port, path, null);
+    }
+
+    /**
+     * @param sharedGroup общий EventLoopGroup для множества клиентов в одном процессе или null,
+     *                    чтобы клиент создал свой и закрыл его при отключении
+     */
+    public GameClient(String host, int port, String path, EventLoopGroup sharedGroup) {
         this.host = host;
         this.port = port;
         this.path = path;
+        this.sharedGroup = sharedGroup;
         this.objectMapper = new ObjectMapper();
     }
 
+    /**
+     * Завершается после WebSocket handshake, когда сообщения уже можно отправлять
+     */
     public CompletableFuture<Void> connect() {
         CompletableFuture<Void> future = new CompletableFuture<>();
 
         try {
             URI uri = new URI("ws://" + host + ":" + port + path);
 
-            group = new NioEventLoopGroup();
+            // При переподключении свой group переиспользуется, если его не закрыл disconnect
+            if (group == null || group.isShuttingDown()) {
+                group = sharedGroup != null ? sharedGroup : new NioEventLoopGroup();
+            }
+            WebSocketClientHandshaker handshaker = WebSocketClientHandshakerFactory
+                    .newHandshaker(uri, WebSocketVersion.V13, null, true, new DefaultHttpHeaders());
+            WebSocketClientHandler handler = new WebSocketClientHandler(handshaker, this);
 
             Bootstrap bootstrap = new Bootstrap();
             bootstrap.group(group)
@@ -61,19 +83,20 @@ public class GameClient {
                             pipeline.addLast(new HttpClientCodec());
                             pipeline.addLast(new HttpObjectAggregator(8192));
                             pipeline.addLast(WebSocketClientCompressionHandler.INSTANCE);
-
-                            WebSocketClientHandshaker handshaker = WebSocketClientHandshakerFactory
-                                    .newHandshaker(uri, WebSocketVersion.V13, null, true,
-                                                  new DefaultHttpHeaders());
-
-                            pipeline.addLast(new WebSocketClientHandler(handshaker, GameClient.this));
+                            pipeline.addLast(handler);
                         }
                     });
 
             channel = bootstrap.connect(host, port).sync().channel();
             logger.info("Подключение к {}:{}{}", host, port, path);
 
-            future.complete(null);
+            handler.handshakeFuture().addListener(handshake -> {
+                if (handshake.isSuccess()) {
+                    future.complete(null);
+                } else {
+                    future.completeExceptionally(handshake.cause());
+                }
+            });
         } catch (Exception e) {
             logger.error("Ошибка подключения: {}", e.getMessage());
             future.completeExceptionally(e);
@@ -86,7 +109,7 @@ public class GameClient {
         if (channel != null) {
             channel.close();
         }
-        if (group != null) {
+        if (group != null && group != sharedGroup) {
             group.shutdownGracefully();
         }
         logger.info("Отключение от сервера");
@@ -112,9 +135,10 @@ public class GameClient {
             Messages.Message message = objectMapper.readValue(json, Messages.Message.class);
             logger.debug("Получено: {}", message.getType());
 
-            // Сохраняем playerId при подключении
+            // Сохраняем playerId и токен возврата при подключении
             if (message instanceof Messages.Connected connected) {
                 this.playerId = connected.getPlayerId();
+                this.resumeToken = connected.getResumeToken();
             }
 
             if (messageHandler != null) {
@@ -132,6 +156,13 @@ public class GameClient {
         return playerId;
     }
 
+    /**
+     * Токен для RESUME после обрыва связи; null, если сервер не держит сессии
+     */
+    public String getResumeToken() {
+        return resumeToken;
+    }
+
     public boolean isConnected() {
         return channel != null && channel.isActive();
     }
@@ -146,6 +177,10 @@ public class GameClient {
             this.client = client;
         }
 
+        ChannelFuture handshakeFuture() {
+            return handshakeFuture;
+        }
+
         @Override
         public void handlerAdded(ChannelHandlerContext ctx) {
             handshakeFuture = ctx.newPromise();
@@ -168,6 +203,9 @@ public class GameClient {
 
             if (msg instanceof TextWebSocketFrame textFrame) {
                 client.handleMessage(textFrame.text());
+            } else if (msg instanceof PingWebSocketFrame ping) {
+                // Сервер закрывает соединения, которые не отвечают на PING
+                ch.writeAndFlush(new PongWebSocketFrame(ping.content().retain()));
             } else if (msg instanceof CloseWebSocketFrame) {
                 ch.close();
             }
@@ -181,5 +219,13 @@ public class GameClient {
             }
             ctx.close();
         }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            if (!handshakeFuture.isDone()) {
+                handshakeFuture.setFailure(new IOException("Соединение закрыто до завершения handshake"));
+            }
+            ctx.fireChannelInactive();
+        }
     }
 }
@@ -18,6 +18,7 @@ public class Board {
     private final CellState[][] cells;
     private final List<Ship> ships;
     private final Set<Coordinate> shots;
+    private Coordinate firstShot;
 
     public Board() {
         this.cells = new CellState[SIZE][SIZE];
@@ -75,6 +76,9 @@ public class Board {
         }
 
         shots.add(coord);
+        if (firstShot == null) {
+            firstShot = coord;
+        }
 
         for (Ship ship : ships) {
             if (ship.hit(coord)) {
@@ -125,6 +129,11 @@ public class Board {
         return Set.copyOf(shots);
     }
 
+    // Первый выстрел соперника по этой доске, null если выстрелов не было
+    public Coordinate getFirstShot() {
+        return firstShot;
+    }
+
     public int getShipCount() {
         return ships.size();
     }
@@ -1,5 +1,7 @@
 package com.battleship.common.model;
 
+import com.battleship.common.time.GameClock;
+
 import static com.battleship.common.model.ModelTypes.GameStatus;
 
 /**
@@ -11,6 +13,7 @@ public class GameState {
     private final String player2Id;
     private final Board player1Board;
     private final Board player2Board;
+    private final GameClock clock;
 
     private String currentTurnPlayerId;
     private GameStatus status;
@@ -18,6 +21,10 @@ public class GameState {
     private long lastTurnStartMillis;
 
     public GameState(String gameId, String player1Id, String player2Id) {
+        this(gameId, player1Id, player2Id, GameClock.system());
+    }
+
+    public GameState(String gameId, String player1Id, String player2Id, GameClock clock) {
         this.gameId = gameId;
         this.player1Id = player1Id;
         this.player2Id = player2Id;
@@ -25,7 +32,8 @@ public class GameState {
         this.player2Board = new Board();
         this.currentTurnPlayerId = player1Id;
         this.status = GameStatus.SETUP;
-        this.lastTurnStartMillis = System.currentTimeMillis();
+        this.clock = clock;
+        this.lastTurnStartMillis = clock.millis();
     }
 
     public Board getBoard(String playerId) {
@@ -57,7 +65,7 @@ public class GameState {
 
     public void switchTurn() {
         currentTurnPlayerId = getOpponentId(currentTurnPlayerId);
-        lastTurnStartMillis = System.currentTimeMillis();
+        lastTurnStartMillis = clock.millis();
     }
 
     public boolean isPlayerTurn(String playerId) {
@@ -110,6 +118,6 @@ public class GameState {
     }
 
     public void refreshTurnTimer() {
-        this.lastTurnStartMillis = System.currentTimeMillis();
+        this.lastTurnStartMillis = clock.millis();
     }
 }
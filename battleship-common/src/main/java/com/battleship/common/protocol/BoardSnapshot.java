@@ -0,0 +1,66 @@
+package com.battleship.common.protocol;
+
+import com.battleship.common.model.Board;
+import com.battleship.common.model.Coordinate;
+
+import static com.battleship.common.model.ModelTypes.CellState;
+
+/**
+ * Доска в сообщении RESUMED: строка из 100 символов по строкам поля, клетка (x, y) — символ y * 10 + x.
+ * '.' пусто, 'S' корабль, 'o' промах, 'X' попадание, '#' потоплен.
+ */
+public final class BoardSnapshot {
+    private static final int SIZE = Coordinate.BOARD_SIZE;
+
+    private BoardSnapshot() {
+    }
+
+    /**
+     * @param hideShips доска соперника: нетронутые корабли передаются как пустые клетки
+     */
+    public static String encode(Board board, boolean hideShips) {
+        char[] cells = new char[SIZE * SIZE];
+        for (int i = 0; i < cells.length; i++) {
+            CellState state = board.getCellState(Coordinate.fromIndex(i));
+            cells[i] = hideShips && state == CellState.SHIP ? '.' : symbol(state);
+        }
+        return new String(cells);
+    }
+
+    /**
+     * Переносит выстрелы из снимка на доску клиента. Пустые клетки и корабли не трогает:
+     * свои корабли клиент помнит сам, а чужие сервер не раскрывает
+     */
+    public static void applyShots(String snapshot, Board board) {
+        if (snapshot == null || snapshot.length() != SIZE * SIZE) {
+            throw new IllegalArgumentException("Снимок доски должен быть из " + SIZE * SIZE + " клеток");
+        }
+        for (int i = 0; i < snapshot.length(); i++) {
+            CellState state = state(snapshot.charAt(i));
+            if (state == CellState.MISS || state == CellState.HIT || state == CellState.SUNK) {
+                board.setCellState(Coordinate.fromIndex(i), state);
+            }
+        }
+    }
+
+    private static char symbol(CellState state) {
+        return switch (state) {
+            case EMPTY -> '.';
+            case SHIP -> 'S';
+            case MISS -> 'o';
+            case HIT -> 'X';
+            case SUNK -> '#';
+        };
+    }
+
+    private static CellState state(char symbol) {
+        return switch (symbol) {
+            case '.' -> CellState.EMPTY;
+            case 'S' -> CellState.SHIP;
+            case 'o' -> CellState.MISS;
+            case 'X' -> CellState.HIT;
+            case '#' -> CellState.SUNK;
+            default -> throw new IllegalArgumentException("Неизвестная клетка в снимке доски: " + symbol);
+        };
+    }
+}
@@ -5,5 +5,7 @@ package com.battleship.common.protocol;
  */
 public enum GameMode {
     PVP,
-    PVE
+    PVE,
+    /** PvP с короткими часами на расстановку и ход, своя очередь поиска */
+    BLITZ
 }
\ No newline at end of file
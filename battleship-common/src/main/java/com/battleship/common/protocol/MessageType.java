@@ -11,6 +11,10 @@ public enum MessageType {
     READY,
     FIRE,
     SURRENDER,
+    RESUME,
+    SPECTATE,
+    LOBBY_SUBSCRIBE,
+    LOBBY_UNSUBSCRIBE,
 
     // Сервер -> Клиент
     CONNECTED,
@@ -19,5 +23,9 @@ public enum MessageType {
     GAME_START,
     SHOT_RESULT,
     GAME_OVER,
+    RESUMED,
+    SPECTATING,
+    LOBBY_SNAPSHOT,
+    LOBBY_UPDATE,
     ERROR
 }
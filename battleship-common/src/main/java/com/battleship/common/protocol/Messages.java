@@ -1,7 +1,11 @@
 package com.battleship.common.protocol;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+import java.util.List;
+
 import static com.battleship.common.model.ModelTypes.ShipType;
 import static com.battleship.common.model.ModelTypes.Orientation;
 import static com.battleship.common.model.ModelTypes.ShotResultType;
@@ -23,16 +27,27 @@ public class Messages {
         @JsonSubTypes.Type(value = Ready.class, name = "READY"),
         @JsonSubTypes.Type(value = Fire.class, name = "FIRE"),
         @JsonSubTypes.Type(value = Surrender.class, name = "SURRENDER"),
+        @JsonSubTypes.Type(value = Resume.class, name = "RESUME"),
+        @JsonSubTypes.Type(value = Spectate.class, name = "SPECTATE"),
+        @JsonSubTypes.Type(value = LobbySubscribe.class, name = "LOBBY_SUBSCRIBE"),
+        @JsonSubTypes.Type(value = LobbyUnsubscribe.class, name = "LOBBY_UNSUBSCRIBE"),
         @JsonSubTypes.Type(value = Connected.class, name = "CONNECTED"),
         @JsonSubTypes.Type(value = GameFound.class, name = "GAME_FOUND"),
         @JsonSubTypes.Type(value = ShipPlaced.class, name = "SHIP_PLACED"),
         @JsonSubTypes.Type(value = GameStart.class, name = "GAME_START"),
         @JsonSubTypes.Type(value = ShotResult.class, name = "SHOT_RESULT"),
         @JsonSubTypes.Type(value = GameOver.class, name = "GAME_OVER"),
+        @JsonSubTypes.Type(value = Resumed.class, name = "RESUMED"),
+        @JsonSubTypes.Type(value = Spectating.class, name = "SPECTATING"),
+        @JsonSubTypes.Type(value = LobbySnapshot.class, name = "LOBBY_SNAPSHOT"),
+        @JsonSubTypes.Type(value = LobbyUpdate.class, name = "LOBBY_UPDATE"),
         @JsonSubTypes.Type(value = Error.class, name = "ERROR")
     })
     public abstract static class Message {
         private final MessageType type;
+        // Сессия на соединении; без handle — основная. Сервер возвращает handle в ответах и событиях этой сессии
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String handle;
 
         protected Message(MessageType type) {
             this.type = type;
@@ -41,6 +56,9 @@ public class Messages {
         public MessageType getType() {
             return type;
         }
+
+        public String getHandle() { return handle; }
+        public void setHandle(String handle) { this.handle = handle; }
     }
 
     // Клиент -> Сервер
@@ -141,26 +159,83 @@ public class Messages {
         }
     }
 
+    // Первое сообщение нового соединения вместо CONNECT, если прежнее оборвалось посреди партии
+    public static class Resume extends Message {
+        private String resumeToken;
+
+        public Resume() {
+            super(MessageType.RESUME);
+        }
+
+        public Resume(String resumeToken) {
+            super(MessageType.RESUME);
+            this.resumeToken = resumeToken;
+        }
+
+        public String getResumeToken() { return resumeToken; }
+        public void setResumeToken(String resumeToken) { this.resumeToken = resumeToken; }
+    }
+
+    // Смотреть чужую партию: дальше приходят её SHOT_RESULT и GAME_OVER, пока партия не кончится или не начнётся своя
+    public static class Spectate extends Message {
+        private String gameId;
+
+        public Spectate() {
+            super(MessageType.SPECTATE);
+        }
+
+        public Spectate(String gameId) {
+            super(MessageType.SPECTATE);
+            this.gameId = gameId;
+        }
+
+        public String getGameId() { return gameId; }
+        public void setGameId(String gameId) { this.gameId = gameId; }
+    }
+
+    // Подписка на лобби: сначала LOBBY_SNAPSHOT, затем LOBBY_UPDATE с изменениями
+    public static class LobbySubscribe extends Message {
+        public LobbySubscribe() {
+            super(MessageType.LOBBY_SUBSCRIBE);
+        }
+    }
+
+    public static class LobbyUnsubscribe extends Message {
+        public LobbyUnsubscribe() {
+            super(MessageType.LOBBY_UNSUBSCRIBE);
+        }
+    }
+
     // Сервер -> Клиент
 
     public static class Connected extends Message {
         private String playerId;
         private String serverVersion;
+        // Секрет для RESUME после обрыва связи; не передаётся, если сервер не держит сессии
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String resumeToken;
 
         public Connected() {
             super(MessageType.CONNECTED);
         }
 
         public Connected(String playerId, String serverVersion) {
+            this(playerId, serverVersion, null);
+        }
+
+        public Connected(String playerId, String serverVersion, String resumeToken) {
             super(MessageType.CONNECTED);
             this.playerId = playerId;
             this.serverVersion = serverVersion;
+            this.resumeToken = resumeToken;
         }
 
         public String getPlayerId() { return playerId; }
         public void setPlayerId(String playerId) { this.playerId = playerId; }
         public String getServerVersion() { return serverVersion; }
         public void setServerVersion(String serverVersion) { this.serverVersion = serverVersion; }
+        public String getResumeToken() { return resumeToken; }
+        public void setResumeToken(String resumeToken) { this.resumeToken = resumeToken; }
     }
 
     public static class GameFound extends Message {
@@ -283,23 +358,218 @@ public class Messages {
         public void setHits(int hits) { this.hits = hits; }
     }
 
+    /**
+     * Ответ на RESUME: сессия привязана к новому соединению. Если партия ещё идёт — её снимок:
+     * фаза, чей ход и обе доски строками из 100 клеток (см. BoardSnapshot). Если партия кончилась,
+     * пока игрока не было, поля партии не передаются
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Resumed extends Message {
+        private String playerId;
+        private String gameId;
+        private String opponentName;
+        private String phase;
+        private boolean yourTurn;
+        private String ownBoard;
+        private String opponentBoard;
+
+        public Resumed() {
+            super(MessageType.RESUMED);
+        }
+
+        public Resumed(String playerId) {
+            super(MessageType.RESUMED);
+            this.playerId = playerId;
+        }
+
+        public Resumed(String playerId, String gameId, String opponentName, String phase, boolean yourTurn,
+                       String ownBoard, String opponentBoard) {
+            super(MessageType.RESUMED);
+            this.playerId = playerId;
+            this.gameId = gameId;
+            this.opponentName = opponentName;
+            this.phase = phase;
+            this.yourTurn = yourTurn;
+            this.ownBoard = ownBoard;
+            this.opponentBoard = opponentBoard;
+        }
+
+        public String getPlayerId() { return playerId; }
+        public void setPlayerId(String playerId) { this.playerId = playerId; }
+        public String getGameId() { return gameId; }
+        public void setGameId(String gameId) { this.gameId = gameId; }
+        public String getOpponentName() { return opponentName; }
+        public void setOpponentName(String opponentName) { this.opponentName = opponentName; }
+        public String getPhase() { return phase; }
+        public void setPhase(String phase) { this.phase = phase; }
+        public boolean isYourTurn() { return yourTurn; }
+        public void setYourTurn(boolean yourTurn) { this.yourTurn = yourTurn; }
+        public String getOwnBoard() { return ownBoard; }
+        public void setOwnBoard(String ownBoard) { this.ownBoard = ownBoard; }
+        public String getOpponentBoard() { return opponentBoard; }
+        public void setOpponentBoard(String opponentBoard) { this.opponentBoard = opponentBoard; }
+    }
+
+    /**
+     * Ответ на SPECTATE: состояние партии на момент входа. Доски в формате BoardSnapshot, корабли скрыты;
+     * turn — имя игрока, чей ход, пока идёт расстановка — null
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Spectating extends Message {
+        private String gameId;
+        private String player1Name;
+        private String player2Name;
+        private String phase;
+        private String turn;
+        private String player1Board;
+        private String player2Board;
+        private int viewers;
+
+        public Spectating() {
+            super(MessageType.SPECTATING);
+        }
+
+        public Spectating(String gameId, String player1Name, String player2Name, String phase, String turn,
+                          String player1Board, String player2Board, int viewers) {
+            super(MessageType.SPECTATING);
+            this.gameId = gameId;
+            this.player1Name = player1Name;
+            this.player2Name = player2Name;
+            this.phase = phase;
+            this.turn = turn;
+            this.player1Board = player1Board;
+            this.player2Board = player2Board;
+            this.viewers = viewers;
+        }
+
+        public String getGameId() { return gameId; }
+        public void setGameId(String gameId) { this.gameId = gameId; }
+        public String getPlayer1Name() { return player1Name; }
+        public void setPlayer1Name(String player1Name) { this.player1Name = player1Name; }
+        public String getPlayer2Name() { return player2Name; }
+        public void setPlayer2Name(String player2Name) { this.player2Name = player2Name; }
+        public String getPhase() { return phase; }
+        public void setPhase(String phase) { this.phase = phase; }
+        public String getTurn() { return turn; }
+        public void setTurn(String turn) { this.turn = turn; }
+        public String getPlayer1Board() { return player1Board; }
+        public void setPlayer1Board(String player1Board) { this.player1Board = player1Board; }
+        public String getPlayer2Board() { return player2Board; }
+        public void setPlayer2Board(String player2Board) { this.player2Board = player2Board; }
+        public int getViewers() { return viewers; }
+        public void setViewers(int viewers) { this.viewers = viewers; }
+    }
+
+    /**
+     * Игрок в лобби; gameId — партия, которую он играет, её можно смотреть через SPECTATE
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record LobbyPlayer(String playerId, String name, PresenceStatus status, String gameId) {}
+
+    /**
+     * Всё лобби на момент seq. Следующие LOBBY_UPDATE идут с seq + 1, seq + 2, ...
+     */
+    public static class LobbySnapshot extends Message {
+        private long seq;
+        private int online;
+        private int pvpQueue;
+        private int blitzQueue;
+        private List<LobbyPlayer> players;
+
+        public LobbySnapshot() {
+            super(MessageType.LOBBY_SNAPSHOT);
+        }
+
+        public LobbySnapshot(long seq, int online, int pvpQueue, int blitzQueue, List<LobbyPlayer> players) {
+            super(MessageType.LOBBY_SNAPSHOT);
+            this.seq = seq;
+            this.online = online;
+            this.pvpQueue = pvpQueue;
+            this.blitzQueue = blitzQueue;
+            this.players = players;
+        }
+
+        public long getSeq() { return seq; }
+        public void setSeq(long seq) { this.seq = seq; }
+        public int getOnline() { return online; }
+        public void setOnline(int online) { this.online = online; }
+        public int getPvpQueue() { return pvpQueue; }
+        public void setPvpQueue(int pvpQueue) { this.pvpQueue = pvpQueue; }
+        public int getBlitzQueue() { return blitzQueue; }
+        public void setBlitzQueue(int blitzQueue) { this.blitzQueue = blitzQueue; }
+        public List<LobbyPlayer> getPlayers() { return players; }
+        public void setPlayers(List<LobbyPlayer> players) { this.players = players; }
+    }
+
+    /**
+     * Изменения лобби за тик: только изменившиеся счётчики, новые и изменившиеся игроки и id ушедших.
+     * Пропуск в seq значит, что клиент потерял изменения и должен подписаться заново
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public static class LobbyUpdate extends Message {
+        private long seq;
+        private Integer online;
+        private Integer pvpQueue;
+        private Integer blitzQueue;
+        private List<LobbyPlayer> players;
+        private List<String> left;
+
+        public LobbyUpdate() {
+            super(MessageType.LOBBY_UPDATE);
+        }
+
+        public LobbyUpdate(long seq, Integer online, Integer pvpQueue, Integer blitzQueue,
+                           List<LobbyPlayer> players, List<String> left) {
+            super(MessageType.LOBBY_UPDATE);
+            this.seq = seq;
+            this.online = online;
+            this.pvpQueue = pvpQueue;
+            this.blitzQueue = blitzQueue;
+            this.players = players;
+            this.left = left;
+        }
+
+        public long getSeq() { return seq; }
+        public void setSeq(long seq) { this.seq = seq; }
+        public Integer getOnline() { return online; }
+        public void setOnline(Integer online) { this.online = online; }
+        public Integer getPvpQueue() { return pvpQueue; }
+        public void setPvpQueue(Integer pvpQueue) { this.pvpQueue = pvpQueue; }
+        public Integer getBlitzQueue() { return blitzQueue; }
+        public void setBlitzQueue(Integer blitzQueue) { this.blitzQueue = blitzQueue; }
+        public List<LobbyPlayer> getPlayers() { return players; }
+        public void setPlayers(List<LobbyPlayer> players) { this.players = players; }
+        public List<String> getLeft() { return left; }
+        public void setLeft(List<String> left) { this.left = left; }
+    }
+
     public static class Error extends Message {
         private int code;
         private String message;
+        // Через сколько мс повторить запрос (503 при перегрузке сервера); 0 — не передаётся
+        @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+        private long retryAfterMs;
 
         public Error() {
             super(MessageType.ERROR);
         }
 
         public Error(int code, String message) {
+            this(code, message, 0);
+        }
+
+        public Error(int code, String message, long retryAfterMs) {
             super(MessageType.ERROR);
             this.code = code;
             this.message = message;
+            this.retryAfterMs = retryAfterMs;
         }
 
         public int getCode() { return code; }
         public void setCode(int code) { this.code = code; }
         public String getMessage() { return message; }
         public void setMessage(String message) { this.message = message; }
+        public long getRetryAfterMs() { return retryAfterMs; }
+        public void setRetryAfterMs(long retryAfterMs) { this.retryAfterMs = retryAfterMs; }
     }
 }
@@ -0,0 +1,10 @@
+package com.battleship.common.protocol;
+
+/**
+ * Состояние игрока в лобби
+ */
+public enum PresenceStatus {
+    IDLE,
+    SEARCHING,
+    PLAYING
+}
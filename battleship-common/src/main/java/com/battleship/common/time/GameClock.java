@@ -0,0 +1,24 @@
+package com.battleship.common.time;
+
+/**
+ * Источник времени для таймеров игры. На сервере — системные часы, в детерминированном режиме —
+ * монотонные от нуля, в бенчмарках — ManualClock, который двигается только явно.
+ */
+@FunctionalInterface
+public interface GameClock {
+
+    long millis();
+
+    static GameClock system() {
+        return System::currentTimeMillis;
+    }
+
+    /**
+     * Миллисекунды от создания часов по монотонному таймеру: таймауты идут как на сервере,
+     * а отметки времени не зависят от даты запуска и перевода системных часов
+     */
+    static GameClock monotonic() {
+        long startNanos = System.nanoTime();
+        return () -> (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,27 @@
+package com.battleship.common.time;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Часы, которые стоят, пока их не сдвинут: повтор записанного прогона не зависит от скорости машины
+ */
+public class ManualClock implements GameClock {
+    private final AtomicLong millis;
+
+    public ManualClock(long startMillis) {
+        this.millis = new AtomicLong(startMillis);
+    }
+
+    @Override
+    public long millis() {
+        return millis.get();
+    }
+
+    public void advance(long deltaMillis) {
+        millis.addAndGet(deltaMillis);
+    }
+
+    public void set(long newMillis) {
+        millis.set(newMillis);
+    }
+}
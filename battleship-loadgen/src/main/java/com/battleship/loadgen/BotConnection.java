@@ -0,0 +1,70 @@
+package com.battleship.loadgen;
+
+import com.battleship.client.network.GameClient;
+import com.battleship.common.protocol.Messages;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Соединение, через которое играют боты. Без мультиплексирования у бота своё соединение и его сообщения
+ * идут без handle. С мультиплексированием несколько ботов делят один GameClient: у каждого свой handle,
+ * и входящие раскладываются по очередям ботов по handle. Соединение закрывает последний отключившийся бот.
+ */
+class BotConnection {
+    // Ключ основной сессии: ConcurrentHashMap не хранит null
+    private static final String NO_HANDLE = "";
+
+    private final GameClient client;
+    private final Map<String, Consumer<Messages.Message>> inboxes = new ConcurrentHashMap<>();
+    private final AtomicInteger bots;
+    private CompletableFuture<Void> connected;
+
+    /**
+     * @param bots сколько ботов будут играть через соединение
+     */
+    BotConnection(GameClient client, int bots) {
+        this.client = client;
+        this.bots = new AtomicInteger(bots);
+        // Обработчик вызывается на event loop: только раскладывает сообщения по очередям
+        client.setMessageHandler(message -> {
+            Consumer<Messages.Message> inbox = inboxes.get(keyOf(message.getHandle()));
+            if (inbox != null) {
+                inbox.accept(message);
+            }
+        });
+    }
+
+    /**
+     * Подключается при первом вызове; остальные боты соединения ждут того же handshake
+     */
+    synchronized CompletableFuture<Void> connect() {
+        if (connected == null) {
+            connected = client.connect();
+        }
+        return connected;
+    }
+
+    void register(String handle, Consumer<Messages.Message> inbox) {
+        inboxes.put(keyOf(handle), inbox);
+    }
+
+    void send(String handle, Messages.Message message) {
+        message.setHandle(handle);
+        client.sendMessage(message);
+    }
+
+    void release(String handle) {
+        inboxes.remove(keyOf(handle));
+        if (bots.decrementAndGet() == 0) {
+            client.disconnect();
+        }
+    }
+
+    private static String keyOf(String handle) {
+        return handle != null ? handle : NO_HANDLE;
+    }
+}
@@ -0,0 +1,369 @@
+package com.battleship.loadgen;
+
+import com.battleship.ai.agent.HuntTargetAgent;
+import com.battleship.common.model.Board;
+import com.battleship.common.model.Coordinate;
+import com.battleship.common.model.Ship;
+import com.battleship.common.protocol.GameMode;
+import com.battleship.common.protocol.MessageType;
+import com.battleship.common.protocol.Messages;
+import com.battleship.common.rules.GameRules;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+import static com.battleship.common.model.ModelTypes.CellState;
+import static com.battleship.common.model.ModelTypes.ShipType;
+import static com.battleship.common.model.ModelTypes.ShotResultType;
+
+/**
+ * Бот-игрок: своё WebSocket соединение через GameClient на общем EventLoopGroup или сессия с handle
+ * на соединении, которое он делит с другими ботами (BotConnection).
+ * Работает на своём виртуальном потоке и ведёт партии синхронно: отправляет запрос и ждёт ответ
+ * в очереди входящих. Выстрелы соперника, GAME_OVER и отмена игры разбираются по пути.
+ * Корабли расставляет GameRules, стреляет HuntTargetAgent, оба от сида бота.
+ */
+public class BotPlayer implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(BotPlayer.class);
+
+    private static final String CLIENT_VERSION = "1.0.0";
+    private static final long REPLY_TIMEOUT_MS = 10_000;
+    private static final long TURN_TIMEOUT_MS = 30_000;
+    private static final int GAME_CANCELLED = 410;
+    private static final int SERVER_OVERLOADED = 503;
+    private static final int MAX_OVERLOAD_RETRIES = 30;
+    private static final int FLEET_CELLS = fleetCells();
+
+    private final String name;
+    private final GameMode mode;
+    private final int games;
+    private final long searchTimeoutMs;
+    private final Random random;
+    private final HuntTargetAgent agent;
+    private final BotConnection connection;
+    private final String handle;
+    private final LoadGenStats stats;
+    private final BlockingQueue<Messages.Message> inbox = new LinkedBlockingQueue<>();
+
+    // Состояние текущей партии
+    private Board targetBoard;
+    private boolean myTurn;
+    private int hits;
+    private Messages.GameOver gameOver;
+    private boolean cancelled;
+
+    public BotPlayer(String name, GameMode mode, int games, long searchTimeoutMs, long seed,
+                     BotConnection connection, String handle, LoadGenStats stats) {
+        this.name = name;
+        this.mode = mode;
+        this.games = games;
+        this.searchTimeoutMs = searchTimeoutMs;
+        this.random = new Random(seed);
+        this.agent = new HuntTargetAgent(new Random(random.nextLong()));
+        this.connection = connection;
+        this.handle = handle;
+        this.stats = stats;
+    }
+
+    @Override
+    public void run() {
+        stats.botStarted();
+        boolean failed = false;
+
+        try {
+            // Обработчик вызывается на event loop: только кладём сообщение в очередь
+            connection.register(handle, message -> {
+                stats.recordReceived();
+                inbox.add(message);
+            });
+
+            if (!connect()) {
+                failed = true;
+                return;
+            }
+
+            for (int game = 0; game < games; game++) {
+                if (!playGame()) {
+                    break;
+                }
+            }
+        } catch (BotException e) {
+            failed = true;
+            logger.debug("{}: {}", name, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connection.release(handle);
+            stats.botFinished(failed);
+        }
+    }
+
+    private boolean connect() throws InterruptedException, BotException {
+        try {
+            connection.connect().get(REPLY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            stats.recordConnectFailure();
+            logger.debug("{}: не удалось подключиться: {}", name, e.getMessage());
+            return false;
+        }
+
+        Messages.Message reply = requestWithRetry(new Messages.Connect(name, CLIENT_VERSION), MessageType.CONNECT,
+            m -> m instanceof Messages.Connected || m instanceof Messages.Error, REPLY_TIMEOUT_MS);
+        if (!(reply instanceof Messages.Connected)) {
+            throw new BotException("CONNECT: " + describe(reply));
+        }
+        return true;
+    }
+
+    /**
+     * Одна партия от поиска до GAME_OVER.
+     * false, если продолжать нельзя: в PvP соперник так и не нашёлся, а отменить поиск протокол не позволяет.
+     */
+    private boolean playGame() throws InterruptedException, BotException {
+        startGame();
+
+        Messages.Message found;
+        try {
+            found = requestWithRetry(new Messages.FindGame(mode), MessageType.FIND_GAME,
+                m -> m instanceof Messages.GameFound || m instanceof Messages.Error,
+                mode == GameMode.PVP ? searchTimeoutMs : REPLY_TIMEOUT_MS);
+        } catch (ReplyTimeoutException e) {
+            if (mode == GameMode.PVP) {
+                stats.recordUnmatchedSearch();
+                return false;
+            }
+            throw e;
+        }
+        if (!(found instanceof Messages.GameFound)) {
+            throw new BotException("FIND_GAME: " + describe(found));
+        }
+
+        for (Messages.PlaceShip placement : planPlacements()) {
+            Messages.Message placed = request(placement, MessageType.PLACE_SHIP,
+                m -> m instanceof Messages.ShipPlaced || m instanceof Messages.Error, REPLY_TIMEOUT_MS);
+            if (placed == null) {
+                return finishGame();
+            }
+            if (!(placed instanceof Messages.ShipPlaced shipPlaced) || !shipPlaced.isSuccess()) {
+                throw new BotException("PLACE_SHIP: " + describe(placed));
+            }
+        }
+
+        // В PvP GAME_START придёт только после READY соперника
+        Messages.Message start = request(new Messages.Ready(), MessageType.READY,
+            m -> m instanceof Messages.GameStart || m instanceof Messages.Error,
+            mode == GameMode.PVP ? searchTimeoutMs : REPLY_TIMEOUT_MS);
+        if (start == null) {
+            return finishGame();
+        }
+        if (!(start instanceof Messages.GameStart gameStart)) {
+            throw new BotException("READY: " + describe(start));
+        }
+        myTurn = gameStart.isYourTurn();
+
+        while (gameOver == null && !cancelled) {
+            // После последнего попадания ход ещё наш, но следом уже идёт GAME_OVER
+            if (myTurn && hits < FLEET_CELLS) {
+                fire();
+            } else {
+                awaitOpponent();
+            }
+        }
+        return finishGame();
+    }
+
+    private void startGame() {
+        targetBoard = new Board();
+        myTurn = false;
+        hits = 0;
+        gameOver = null;
+        cancelled = false;
+    }
+
+    private boolean finishGame() {
+        if (gameOver != null) {
+            stats.recordGame(mode, "Победа".equals(gameOver.getWinner()));
+        } else {
+            stats.recordCancelledGame();
+        }
+        return true;
+    }
+
+    private List<Messages.PlaceShip> planPlacements() {
+        Board board = new Board();
+        while (!GameRules.autoPlaceShips(board, random)) {
+            board = new Board();
+        }
+
+        List<Messages.PlaceShip> placements = new ArrayList<>();
+        for (Ship ship : board.getShips()) {
+            placements.add(new Messages.PlaceShip(ship.getType(), ship.getStart().x(), ship.getStart().y(), ship.getOrientation()));
+        }
+        return placements;
+    }
+
+    private void fire() throws InterruptedException, BotException {
+        Coordinate target = agent.chooseAction(targetBoard);
+        Messages.Message reply = request(new Messages.Fire(target.x(), target.y()), MessageType.FIRE,
+            m -> (m instanceof Messages.ShotResult shot && name.equals(shot.getShooter()))
+                || (m instanceof Messages.Error error && error.getCode() != GAME_CANCELLED),
+            REPLY_TIMEOUT_MS);
+        if (reply == null) {
+            return;
+        }
+        if (!(reply instanceof Messages.ShotResult shot)) {
+            throw new BotException("FIRE " + target + ": " + describe(reply));
+        }
+
+        CellState state = switch (shot.getResult()) {
+            case HIT -> CellState.HIT;
+            case MISS -> CellState.MISS;
+            case SUNK -> CellState.SUNK;
+            case ALREADY_SHOT -> targetBoard.getCellState(target);
+        };
+        targetBoard.setCellState(target, state);
+        if (state == CellState.SUNK) {
+            markSunkShipCells(target);
+        }
+        if (shot.getResult() == ShotResultType.HIT || shot.getResult() == ShotResultType.SUNK) {
+            hits++;
+        }
+        myTurn = shot.isYourTurn();
+    }
+
+    // Агенту нужны все клетки потопленного корабля, сервер же сообщает только последнюю
+    private void markSunkShipCells(Coordinate sunk) {
+        int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        for (int[] d : directions) {
+            int x = sunk.x() + d[0];
+            int y = sunk.y() + d[1];
+            while (x >= 0 && x < Coordinate.BOARD_SIZE && y >= 0 && y < Coordinate.BOARD_SIZE) {
+                Coordinate c = new Coordinate(x, y);
+                if (targetBoard.getCellState(c) != CellState.HIT) {
+                    break;
+                }
+                targetBoard.setCellState(c, CellState.SUNK);
+                x += d[0];
+                y += d[1];
+            }
+        }
+    }
+
+    private void awaitOpponent() throws InterruptedException, BotException {
+        Messages.Message message = inbox.poll(TURN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (message == null) {
+            stats.recordTimeout(MessageType.SHOT_RESULT);
+            throw new ReplyTimeoutException("нет хода соперника за " + TURN_TIMEOUT_MS + " мс");
+        }
+        handleEvent(message);
+    }
+
+    /**
+     * request, который при ERROR 503 ждёт retryAfterMs из ответа и повторяет запрос, как просит сервер
+     */
+    private Messages.Message requestWithRetry(Messages.Message message, MessageType type,
+                                              Predicate<Messages.Message> isReply, long timeoutMs)
+            throws InterruptedException, BotException {
+        for (int attempt = 0; ; attempt++) {
+            Messages.Message reply = request(message, type, isReply, timeoutMs);
+            if (!(reply instanceof Messages.Error error) || error.getCode() != SERVER_OVERLOADED
+                    || attempt == MAX_OVERLOAD_RETRIES) {
+                return reply;
+            }
+            stats.recordOverloaded();
+            Thread.sleep(Math.max(error.getRetryAfterMs(), 100));
+        }
+    }
+
+    /**
+     * Отправляет запрос и ждёт ответ, подходящий под isReply; задержка пишется в статистику по типу запроса.
+     * null, если пока ждали, партия закончилась или была отменена.
+     */
+    private Messages.Message request(Messages.Message message, MessageType type,
+                                     Predicate<Messages.Message> isReply, long timeoutMs)
+            throws InterruptedException, BotException {
+        long sentAt = System.nanoTime();
+        connection.send(handle, message);
+        stats.recordSent();
+
+        long deadline = sentAt + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            Messages.Message received = remaining > 0 ? inbox.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (received == null) {
+                stats.recordTimeout(type);
+                throw new ReplyTimeoutException(type + ": нет ответа за " + timeoutMs + " мс");
+            }
+
+            if (isReply.test(received)) {
+                stats.recordLatency(type, System.nanoTime() - sentAt);
+                if (received instanceof Messages.Error error && error.getCode() != SERVER_OVERLOADED) {
+                    stats.recordError();
+                }
+                return received;
+            }
+
+            handleEvent(received);
+            if (gameOver != null || cancelled) {
+                return null;
+            }
+        }
+    }
+
+    private void handleEvent(Messages.Message message) {
+        if (message instanceof Messages.ShotResult shot && !name.equals(shot.getShooter())) {
+            myTurn = shot.isYourTurn();
+        } else if (message instanceof Messages.GameOver over) {
+            gameOver = over;
+        } else if (message instanceof Messages.Error error) {
+            if (error.getCode() == GAME_CANCELLED) {
+                cancelled = true;
+            } else {
+                stats.recordError();
+                logger.debug("{}: ERROR {} {}", name, error.getCode(), error.getMessage());
+            }
+        }
+    }
+
+    private static String describe(Messages.Message message) {
+        if (message == null) {
+            return "партия прервана";
+        }
+        if (message instanceof Messages.Error error) {
+            return "ERROR " + error.getCode() + " " + error.getMessage();
+        }
+        if (message instanceof Messages.ShipPlaced placed) {
+            return "SHIP_PLACED " + placed.getMessage();
+        }
+        return "неожиданный ответ " + message.getType();
+    }
+
+    private static int fleetCells() {
+        int cells = 0;
+        for (ShipType type : ShipType.values()) {
+            cells += type.getSize() * type.getCount();
+        }
+        return cells;
+    }
+
+    private static class BotException extends Exception {
+        BotException(String message) {
+            super(message);
+        }
+    }
+
+    private static class ReplyTimeoutException extends BotException {
+        ReplyTimeoutException(String message) {
+            super(message);
+        }
+    }
+}
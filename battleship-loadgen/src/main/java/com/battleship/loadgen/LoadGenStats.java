@@ -0,0 +1,170 @@
+package com.battleship.loadgen;
+
+import com.battleship.common.protocol.GameMode;
+import com.battleship.common.protocol.MessageType;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Общая статистика всех ботов. Задержка «запрос — ответ» пишется в Recorder своего типа сообщения,
+ * боты на виртуальных потоках записывают без блокировок. Снимок интервала забирает один поток отчёта
+ * и накапливает его в итоговую гистограмму.
+ */
+public class LoadGenStats {
+    private static final long MAX_LATENCY_MICROS = 60_000_000L;
+
+    private final Map<MessageType, Recorder> recorders = new EnumMap<>(MessageType.class);
+    private final Map<MessageType, Histogram> totals = new EnumMap<>(MessageType.class);
+    private final Map<MessageType, LongAdder> timeouts = new EnumMap<>(MessageType.class);
+    private final Map<GameMode, LongAdder> gamesCompleted = new EnumMap<>(GameMode.class);
+
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder gamesCancelled = new LongAdder();
+    private final LongAdder unmatchedSearches = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder overloaded = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder messagesReceived = new LongAdder();
+    private final AtomicInteger activeBots = new AtomicInteger();
+    private final AtomicInteger failedBots = new AtomicInteger();
+
+    public LoadGenStats() {
+        for (MessageType type : MessageType.values()) {
+            recorders.put(type, new Recorder(MAX_LATENCY_MICROS, 3));
+            totals.put(type, new Histogram(MAX_LATENCY_MICROS, 3));
+            timeouts.put(type, new LongAdder());
+        }
+        for (GameMode mode : GameMode.values()) {
+            gamesCompleted.put(mode, new LongAdder());
+        }
+    }
+
+    public void recordLatency(MessageType request, long latencyNanos) {
+        recorders.get(request).recordValue(Math.min(latencyNanos / 1000, MAX_LATENCY_MICROS));
+    }
+
+    public void recordTimeout(MessageType request) {
+        timeouts.get(request).increment();
+    }
+
+    public void recordGame(GameMode mode, boolean won) {
+        gamesCompleted.get(mode).increment();
+        if (won) {
+            wins.increment();
+        }
+    }
+
+    public void recordCancelledGame() {
+        gamesCancelled.increment();
+    }
+
+    public void recordUnmatchedSearch() {
+        unmatchedSearches.increment();
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * Сервер перегружен и отклонил CONNECT или FIND_GAME, бот повторит запрос позже
+     */
+    public void recordOverloaded() {
+        overloaded.increment();
+    }
+
+    public void recordConnectFailure() {
+        connectFailures.increment();
+    }
+
+    public void recordSent() {
+        messagesSent.increment();
+    }
+
+    public void recordReceived() {
+        messagesReceived.increment();
+    }
+
+    public void botStarted() {
+        activeBots.incrementAndGet();
+    }
+
+    public void botFinished(boolean failed) {
+        activeBots.decrementAndGet();
+        if (failed) {
+            failedBots.incrementAndGet();
+        }
+    }
+
+    public int getActiveBots() {
+        return activeBots.get();
+    }
+
+    public long getGamesCompleted() {
+        return gamesCompleted.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Переносит накопленное за интервал в итоговые гистограммы и возвращает интервальную гистограмму FIRE
+     */
+    public synchronized Histogram collectInterval() {
+        Histogram fire = null;
+        for (MessageType type : MessageType.values()) {
+            Histogram interval = recorders.get(type).getIntervalHistogram();
+            totals.get(type).add(interval);
+            if (type == MessageType.FIRE) {
+                fire = interval;
+            }
+        }
+        return fire;
+    }
+
+    public synchronized String report(long elapsedNanos) {
+        collectInterval();
+
+        double seconds = elapsedNanos / 1e9;
+        long games = getGamesCompleted();
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(String.format(Locale.ROOT, "Длительность: %.1f с%n", seconds));
+        sb.append(String.format(Locale.ROOT, "Партий: %d (PvE=%d, PvP=%d), побед ботов: %d, отменено: %d, поисков без соперника: %d%n",
+            games, gamesCompleted.get(GameMode.PVE).sum(), gamesCompleted.get(GameMode.PVP).sum(),
+            wins.sum(), gamesCancelled.sum(), unmatchedSearches.sum()));
+        sb.append(String.format(Locale.ROOT, "Ботов с ошибкой: %d, ошибок подключения: %d, ERROR от сервера: %d, отказов из-за перегрузки: %d%n",
+            failedBots.get(), connectFailures.sum(), errors.sum(), overloaded.sum()));
+        sb.append(String.format(Locale.ROOT, "Пропускная способность: %.1f партий/с, отправлено %.0f сообщений/с, получено %.0f сообщений/с%n",
+            games / seconds, messagesSent.sum() / seconds, messagesReceived.sum() / seconds));
+
+        sb.append("\n--- Задержка запрос — ответ, мс ---\n");
+        sb.append(String.format(Locale.ROOT, "%-12s %10s %9s %9s %9s %9s %9s %9s%n",
+            "type", "count", "p50", "p90", "p99", "p99.9", "max", "timeouts"));
+        for (MessageType type : MessageType.values()) {
+            Histogram h = totals.get(type);
+            long timeoutCount = timeouts.get(type).sum();
+            if (h.getTotalCount() == 0 && timeoutCount == 0) {
+                continue;
+            }
+            sb.append(String.format(Locale.ROOT, "%-12s %10d %9.2f %9.2f %9.2f %9.2f %9.2f %9d%n",
+                type, h.getTotalCount(),
+                millis(h.getValueAtPercentile(50)),
+                millis(h.getValueAtPercentile(90)),
+                millis(h.getValueAtPercentile(99)),
+                millis(h.getValueAtPercentile(99.9)),
+                millis(h.getMaxValue()),
+                timeoutCount));
+        }
+
+        return sb.toString();
+    }
+
+    static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
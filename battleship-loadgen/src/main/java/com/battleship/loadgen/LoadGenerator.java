@@ -0,0 +1,199 @@
+package com.battleship.loadgen;
+
+import com.battleship.client.network.GameClient;
+import com.battleship.common.protocol.GameMode;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный генератор на Java: N ботов в одном процессе играют полные партии через настоящий GameClient.
+ * Все соединения обслуживает один общий EventLoopGroup, каждый бот — виртуальный поток,
+ * поэтому тысячи ботов стоят несколько потоков ОС. Дополняет Gatling там, где нужен
+ * точный протокол клиента и дешёвая нагрузка с одной машины.
+ * С --bots-per-connection K боты идут группами по K на одно соединение, каждый со своим handle.
+ * Пример: java -jar battleship-loadgen-standalone.jar --bots 5000 --mode mixed --games 3 --ramp-sec 30
+ */
+public class LoadGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private static final String WEBSOCKET_PATH = "/game";
+    private static final long PROGRESS_INTERVAL_SEC = 5;
+
+    private final String host;
+    private final int port;
+    private final int bots;
+    private final int botsPerConnection;
+    private final String mode;
+    private final int gamesPerBot;
+    private final int rampSec;
+    private final int eventLoopThreads;
+    private final long searchTimeoutMs;
+    private final long seed;
+
+    public LoadGenerator(String host, int port, int bots, int botsPerConnection, String mode, int gamesPerBot,
+                         int rampSec, int eventLoopThreads, long searchTimeoutMs, long seed) {
+        this.host = host;
+        this.port = port;
+        this.bots = bots;
+        this.botsPerConnection = botsPerConnection;
+        this.mode = mode;
+        this.gamesPerBot = gamesPerBot;
+        this.rampSec = rampSec;
+        this.eventLoopThreads = eventLoopThreads;
+        this.searchTimeoutMs = searchTimeoutMs;
+        this.seed = seed;
+    }
+
+    public void run(LoadGenStats stats) throws InterruptedException {
+        EventLoopGroup group = new NioEventLoopGroup(eventLoopThreads);
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loadgen-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        progress.scheduleAtFixedRate(() -> logProgress(stats), PROGRESS_INTERVAL_SEC, PROGRESS_INTERVAL_SEC, TimeUnit.SECONDS);
+
+        long rampStepNanos = bots > 1 ? TimeUnit.SECONDS.toNanos(rampSec) / (bots - 1) : 0;
+
+        // close() ждёт, пока доиграют все боты
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            BotConnection connection = null;
+            for (int i = 0; i < bots; i++) {
+                if (i % botsPerConnection == 0) {
+                    connection = new BotConnection(new GameClient(host, port, WEBSOCKET_PATH, group),
+                        Math.min(botsPerConnection, bots - i));
+                }
+                String handle = botsPerConnection > 1 ? "b" + i % botsPerConnection : null;
+                executor.execute(new BotPlayer("Bot_" + i, modeOf(i), gamesPerBot, searchTimeoutMs, seed + i,
+                    connection, handle, stats));
+
+                // Равномерный разгон: следующий бот стартует не раньше своей доли rampSec
+                long wait = start + rampStepNanos * (i + 1) - System.nanoTime();
+                if (wait > 0 && i + 1 < bots) {
+                    LockSupport.parkNanos(wait);
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            progress.shutdownNow();
+            group.shutdownGracefully().await(5, TimeUnit.SECONDS);
+        }
+    }
+
+    // В смешанном режиме боты идут четвёрками: два PvE и два PvP, чтобы PvP ботам было кого найти
+    private GameMode modeOf(int index) {
+        return switch (mode) {
+            case "pve" -> GameMode.PVE;
+            case "pvp" -> GameMode.PVP;
+            default -> index % 4 < 2 ? GameMode.PVE : GameMode.PVP;
+        };
+    }
+
+    private void logProgress(LoadGenStats stats) {
+        Histogram fire = stats.collectInterval();
+        logger.info(String.format(Locale.ROOT, "Ботов активно: %d, партий сыграно: %d, FIRE за интервал: %d, p99=%.2f мс",
+            stats.getActiveBots(), stats.getGamesCompleted(), fire.getTotalCount(),
+            LoadGenStats.millis(fire.getValueAtPercentile(99))));
+    }
+
+    public String report(LoadGenStats stats, long elapsedNanos) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== Нагрузочный генератор ===\n");
+        sb.append(String.format(Locale.ROOT, "Сервер: ws://%s:%d%s, ботов=%d, ботов на соединение=%d, режим=%s, партий на бота=%d, разгон=%d с, потоков event loop=%d, сид=%d%n",
+            host, port, WEBSOCKET_PATH, bots, botsPerConnection, mode, gamesPerBot, rampSec, eventLoopThreads, seed));
+        sb.append(stats.report(elapsedNanos));
+        return sb.toString();
+    }
+
+    public static void main(String[] args) {
+        String host = "localhost";
+        int port = 8080;
+        int bots = 1000;
+        int botsPerConnection = 1;
+        String mode = "mixed";
+        int games = 1;
+        int rampSec = 10;
+        int eventLoopThreads = Runtime.getRuntime().availableProcessors();
+        int searchTimeoutSec = 60;
+        long seed = 42;
+        Path output = Path.of("loadgen-results.txt");
+
+        try {
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--host" -> host = value;
+                    case "--port" -> port = Integer.parseInt(value);
+                    case "--bots" -> bots = Integer.parseInt(value);
+                    case "--bots-per-connection" -> botsPerConnection = parsePositive(value);
+                    case "--mode" -> mode = parseMode(value);
+                    case "--games" -> games = Integer.parseInt(value);
+                    case "--ramp-sec" -> rampSec = Integer.parseInt(value);
+                    case "--event-loop-threads" -> eventLoopThreads = Integer.parseInt(value);
+                    case "--search-timeout-sec" -> searchTimeoutSec = Integer.parseInt(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--out" -> output = Path.of(value);
+                    default -> throw new IllegalArgumentException("Неизвестный параметр: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            logger.error("{}", e.getMessage());
+            logger.error("Параметры: --host H --port P --bots N --bots-per-connection K --mode pve|pvp|mixed --games G --ramp-sec R "
+                + "--event-loop-threads T --search-timeout-sec S --seed S --out FILE");
+            System.exit(1);
+        }
+
+        LoadGenerator generator = new LoadGenerator(host, port, bots, botsPerConnection, mode, games, rampSec,
+            eventLoopThreads, searchTimeoutSec * 1000L, seed);
+        LoadGenStats stats = new LoadGenStats();
+        logger.info("Запуск {} ботов ({}) на ws://{}:{}, разгон {} с", bots, mode, host, port, rampSec);
+
+        try {
+            long start = System.nanoTime();
+            generator.run(stats);
+            String report = generator.report(stats, System.nanoTime() - start);
+            logger.info("\n{}", report);
+
+            Files.writeString(output, report, StandardCharsets.UTF_8);
+            logger.info("Результаты сохранены в {}", output.toAbsolutePath());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Генерация нагрузки прервана");
+        } catch (IOException e) {
+            logger.error("Не удалось записать результаты в {}: {}", output, e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static int parsePositive(String value) {
+        int parsed = Integer.parseInt(value);
+        if (parsed < 1) {
+            throw new IllegalArgumentException("Ожидалось положительное число: " + value);
+        }
+        return parsed;
+    }
+
+    private static String parseMode(String value) {
+        return switch (value) {
+            case "pve", "pvp", "mixed" -> value;
+            default -> throw new IllegalArgumentException("Неизвестный режим: " + value + " (pve, pvp, mixed)");
+        };
+    }
+}
@@ -0,0 +1,115 @@
+package battleship
+
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import io.gatling.commons.validation._
+
+import java.util.concurrent.atomic.AtomicLong
+import scala.concurrent.duration._
+
+/**
+ * Хаос-сценарий: игроки обрывают соединение в очереди PvP, во время расстановки и посреди партии.
+ * До и после хаоса снимается /stats сервера: сессии, игры, AI игроки и очередь должны вернуться к нулю,
+ * а куча после сборки мусора — вырасти не больше чем на chaos.maxHeapGrowthMb.
+ * Параметры: -Dchaos.usersPerSec, -Dchaos.durationSec, -Dchaos.drainSec, -Dchaos.maxHeapGrowthMb
+ */
+class BattleshipChaosLoadTest extends Simulation {
+
+  val usersPerSec = Integer.getInteger("chaos.usersPerSec", 20).intValue
+  val duration = Integer.getInteger("chaos.durationSec", 300).intValue.seconds
+  // Оборванная сессия живёт ещё battleship.resume.graceSec (30 с) в ожидании RESUME, поэтому ждём дольше
+  val drainTimeout = Integer.getInteger("chaos.drainSec", 60).intValue.seconds
+  val maxHeapGrowthBytes = Integer.getInteger("chaos.maxHeapGrowthMb", 64).longValue * 1024 * 1024
+
+  val httpProtocol = GameFlow.httpProtocol
+
+  val baselineHeap = new AtomicLong
+  val gameStats = new GameStats("Chaos")
+
+  // Обрыв сразу после FIND_GAME: игрок ещё в очереди или уже в паре, но без расстановки
+  val dropWhileQueued =
+    exec(ws("FIND_GAME PVP").sendText("""{"type":"FIND_GAME","gameMode":"PVP"}"""))
+      .pause(0.milliseconds, 2.seconds)
+
+  // Обрыв на расстановке: часть кораблей уже на поле
+  val dropDuringSetup =
+    exec(GameFlow.findGame("PVE", 5.seconds))
+      .exec(GameFlow.placeSomeShips)
+      .pause(0.milliseconds, 1.second)
+
+  // Обрыв посреди партии: играем случайное время, меньшее обычной партии
+  val dropMidGame =
+    exec(GameFlow.findGame("PVE", 5.seconds))
+      .exec(GameFlow.placeShips)
+      .exec(GameFlow.ready(5.seconds))
+      .exec(GameFlow.playUntilGameOver("Chaos game", gameStats, 3.seconds))
+
+  val chaos = scenario("Chaos disconnects")
+    .exec(GameFlow.connect)
+    .randomSwitch(
+      30.0 -> dropWhileQueued,
+      30.0 -> dropDuringSetup,
+      40.0 -> dropMidGame
+    )
+    .exec(ws("Close").close)
+
+  val baseline = scenario("Server stats baseline")
+    .exec(
+      http("Server stats before chaos")
+        .get("/stats?gc=true")
+        .check(jsonPath("$.heapUsedBytes").ofType[Long].saveAs("heapUsedBytes"))
+    )
+    .exec { session =>
+      session("heapUsedBytes").asOption[Long].foreach(baselineHeap.set)
+      session
+    }
+
+  // Отключения обрабатываются асинхронно, поэтому сначала ждём, пока счётчики опустеют
+  val verify = scenario("Server stats after chaos")
+    .asLongAsDuring(session => !session("drained").asOption[Boolean].getOrElse(false), drainTimeout) {
+      exec(
+        http("Poll server stats")
+          .get("/stats")
+          .check(
+            jsonPath("$.sessions").ofType[Int].saveAs("sessions"),
+            jsonPath("$.activeGames").ofType[Int].saveAs("activeGames"),
+            jsonPath("$.aiPlayers").ofType[Int].saveAs("aiPlayers"),
+            jsonPath("$.pvpQueue").ofType[Int].saveAs("pvpQueue")
+          )
+      )
+        .exec { session =>
+          val counts = Seq("sessions", "activeGames", "aiPlayers", "pvpQueue").map(session(_).asOption[Int].getOrElse(-1))
+          session.set("drained", counts.forall(_ == 0))
+        }
+        .pause(1.second)
+    }
+    .exec(
+      http("Server stats after chaos")
+        .get("/stats?gc=true")
+        .check(
+          jsonPath("$.sessions").ofType[Int].is(0),
+          jsonPath("$.activeGames").ofType[Int].is(0),
+          jsonPath("$.aiPlayers").ofType[Int].is(0),
+          jsonPath("$.pvpQueue").ofType[Int].is(0),
+          jsonPath("$.heapUsedBytes").ofType[Long].lte(_ => (baselineHeap.get + maxHeapGrowthBytes).success)
+            .saveAs("heapUsedBytes")
+        )
+    )
+    .exec { session =>
+      session("heapUsedBytes").asOption[Long].foreach { heap =>
+        println(f"Куча после хаоса: ${heap / 1048576.0}%.1f МБ, рост ${(heap - baselineHeap.get) / 1048576.0}%.1f МБ")
+      }
+      session
+    }
+
+  setUp(
+    baseline.inject(atOnceUsers(1))
+      .andThen(chaos.inject(constantUsersPerSec(usersPerSec).during(duration)))
+      .andThen(verify.inject(atOnceUsers(1)))
+  ).protocols(httpProtocol)
+    .assertions(details("Server stats after chaos").failedRequests.count.is(0))
+
+  after {
+    println(gameStats.report())
+  }
+}
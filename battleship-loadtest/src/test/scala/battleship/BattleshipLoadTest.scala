@@ -3,30 +3,23 @@ package battleship
 import io.gatling.core.Predef._
 import io.gatling.http.Predef._
 import scala.concurrent.duration._
-import scala.collection.mutable
-import scala.util.Random
 
 class BattleshipLoadTest extends Simulation {
 
-  val httpProtocol = http
-    .baseUrl("http://localhost:8080")
-    .wsBaseUrl("ws://localhost:8080")
+  val httpProtocol = GameFlow.httpProtocol
 
-  val scn = scenario("PvE Game - 1000 users")
-    // Подключение к WebSocket
-    .exec(ws("Connect").connect("/game"))
-    .pause(100.milliseconds)
+  val profile = LoadProfile.fromSystemProperties()
+  val slo = LoadProfile.slo
 
-    // Сохранение ID игрока
-    .exec(session => session.set("playerId", "Player" + session.userId))
+  val gameStats = new GameStats("PvE")
 
-    // Отправка CONNECT
-    .exec(ws("CONNECT").sendText("""{"type":"CONNECT","playerName":"TestPlayer","clientVersion":"1.0.0"}"""))
-    .pause(100.milliseconds)
+  val scn = scenario(s"PvE Game - ${profile.name}")
+    // Breakpoint: после первой ступени, не выдержавшей Slo, новые игроки не нужны
+    .stopLoadGeneratorIf("Нарушен SLO, точка отказа найдена", _ => CapacityTracker.isBreached)
+    .exec(GameFlow.connect)
 
     // Поиск PvE игры
-    .exec(ws("FIND_GAME").sendText("""{"type":"FIND_GAME","gameMode":"PVE"}"""))
-    .pause(200.milliseconds)
+    .exec(GameFlow.findGame("PVE", 5.seconds))
 
     // Стрельба до READY — ожидаем ошибку
     .exec(
@@ -37,59 +30,37 @@ class BattleshipLoadTest extends Simulation {
         )
     )
 
-    // Автоматическая расстановка кораблей (без пересечений)
-    .exec { session =>
-      val rnd        = new Random(session.userId) // детерминированно на юзера
-      val occupied   = mutable.Set[(Int, Int)]()
-      val ships = List(
-        ("BATTLESHIP", 4),
-        ("CRUISER", 3), ("CRUISER", 3),
-        ("DESTROYER", 2), ("DESTROYER", 2), ("DESTROYER", 2),
-        ("BOAT", 1), ("BOAT", 1), ("BOAT", 1), ("BOAT", 1)
-      )
+    .exec(GameFlow.placeShips)
+    .exec(GameFlow.ready(5.seconds))
 
-      def tryPlace(size: Int): (Int, Int, String) = {
-        var placed = false
-        var res: (Int, Int, String) = (0, 0, "HORIZONTAL")
-        while (!placed) {
-          val horizontal = rnd.nextBoolean()
-          val maxX = if (horizontal) 10 - size else 10
-          val maxY = if (horizontal) 10 else 10 - size
-          val x = rnd.nextInt(maxX)
-          val y = rnd.nextInt(maxY)
-          val coords = (0 until size).map(i => if (horizontal) (x + i, y) else (x, y + i))
-          if (coords.forall(c => !occupied.contains(c))) {
-            occupied ++= coords
-            res = (x, y, if (horizontal) "HORIZONTAL" else "VERTICAL")
-            placed = true
-          }
-        }
-        res
-      }
+    // Партия до GAME_OVER: FIRE -> SHOT_RESULT -> ход AI
+    .exec(GameFlow.playUntilGameOver("PvE game", gameStats, 5.minutes))
 
-      val messages = ships.map { case (shipType, size) =>
-        val (x, y, orient) = tryPlace(size)
-        s"""{"type":"PLACE_SHIP","shipType":"$shipType","startX":$x,"startY":$y,"orientation":"$orient"}"""
-      }
-
-      session.set("placements", messages)
-    }
-    .foreach(session => session("placements").as[Seq[String]], "shipMsg") {
-      exec(ws("PlaceShip").sendText(session => session("shipMsg").as[String])).pause(50.milliseconds)
-    }
+    .exec(ws("Close").close)
 
-    // Отправка READY
-    .exec(ws("READY").sendText("""{"type":"READY"}"""))
+  // Breakpoint по замыслу доходит до нарушения Slo, поэтому его итог — ёмкость в capacity.txt, а не assertions
+  val assertions =
+    if (profile.isBreakpoint) Nil
+    else Seq(
+      global.responseTime.percentile(95.0).lt(slo.p95Ms),
+      global.responseTime.percentile(99.0).lt(slo.p99Ms),
+      global.failedRequests.percent.lt(slo.maxErrorPct)
+    )
 
-    // Ожидание игры с AI (AI будет стрелять автоматически)
-    .pause(30.seconds)
+  setUp(
+    scn.inject(profile.injection)
+  ).protocols(httpProtocol).maxDuration(profile.maxDuration).assertions(assertions)
 
-    .exec(ws("Close").close)
+  before {
+    if (profile.isBreakpoint) {
+      CapacityTracker.start(profile.levels, slo)
+    }
+  }
 
-  setUp(
-	scn.inject(
-		rampConcurrentUsers(0).to(1000).during(90.seconds),
-		constantConcurrentUsers(1000).during(3.minutes)     // держим ~1000 активных
-	)
-  ).protocols(httpProtocol).maxDuration(10.minutes)
+  after {
+    println(gameStats.report())
+    if (profile.isBreakpoint) {
+      println(CapacityTracker.report(LoadProfile.serverCores, LoadProfile.minGamesPerCore, java.nio.file.Path.of("target", "capacity.txt")))
+    }
+  }
 }
@@ -0,0 +1,52 @@
+package battleship
+
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import scala.concurrent.duration._
+
+/**
+ * PvP нагрузка на очередь подбора: игроки приходят волнами и одновременно ищут соперника,
+ * затем каждая пара доигрывает партию за обе стороны.
+ * Параметры: -Dpvp.waveSize (игроков в волне, чётное), -Dpvp.waves, -Dpvp.waveIntervalSec, -Dpvp.searchTimeoutSec
+ */
+class BattleshipPvPLoadTest extends Simulation {
+
+  val waveSize = Integer.getInteger("pvp.waveSize", 1000).intValue
+  val waves = Integer.getInteger("pvp.waves", 5).intValue
+  val waveInterval = Integer.getInteger("pvp.waveIntervalSec", 30).intValue.seconds
+  val searchTimeout = Integer.getInteger("pvp.searchTimeoutSec", 60).intValue.seconds
+
+  val httpProtocol = GameFlow.httpProtocol
+
+  val matchmakingStats = new MatchmakingStats
+  val gameStats = new GameStats("PvP")
+
+  val scn = scenario(s"PvP Game - $waves waves x $waveSize users")
+    .exec(GameFlow.connect)
+
+    // Поиск соперника: время до GAME_FOUND и есть задержка подбора
+    .exec(GameFlow.findGame("PVP", searchTimeout))
+    .exec(session => matchmakingStats.record(session))
+    .exitHereIf(session => !session.contains("gameId"))
+
+    .exec(GameFlow.placeShips)
+    // Второй игрок пары может расставлять корабли дольше, GAME_START придёт после его READY
+    .exec(GameFlow.ready(searchTimeout))
+    .exitHereIfFailed
+
+    .exec(GameFlow.playUntilGameOver("PvP game", gameStats, 10.minutes))
+
+    .exec(ws("Close").close)
+
+  // Волна — одновременный приход waveSize игроков, все они конкурируют за очередь подбора
+  val injection = (1 to waves).flatMap(_ => Seq(atOnceUsers(waveSize), nothingFor(waveInterval)))
+
+  setUp(
+    scn.inject(injection)
+  ).protocols(httpProtocol).maxDuration(30.minutes)
+
+  after {
+    println(matchmakingStats.report())
+    println(gameStats.report())
+  }
+}
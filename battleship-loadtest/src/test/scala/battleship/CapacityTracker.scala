@@ -0,0 +1,157 @@
+package battleship
+
+import org.HdrHistogram.{Histogram, Recorder}
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.{Files, Path}
+import java.util.concurrent.atomic.{AtomicInteger, LongAdder}
+import java.util.concurrent.{Executors, TimeUnit}
+import scala.collection.mutable
+
+/**
+ * Ступень нагрузки: разгон до users за rampSec, затем удержание holdSec. Отсчёт от старта симуляции.
+ */
+final case class LoadLevel(users: Int, startSec: Int, rampSec: Int, holdSec: Int) {
+  def plateauStartSec: Int = startSec + rampSec
+
+  def endSec: Int = startSec + rampSec + holdSec
+}
+
+/**
+ * Цели по задержке и ошибкам: используются и в assertions Gatling, и при оценке ступеней breakpoint
+ */
+final case class Slo(p95Ms: Int, p99Ms: Int, maxErrorPct: Double)
+
+/**
+ * Замер ёмкости для breakpoint профиля. Каждую секунду снимает интервальную гистограмму задержки FIRE,
+ * число ошибок и число идущих партий и относит их к плато текущей ступени.
+ * Ступень выдержана, если на её плато p95/p99 и доля ошибок FIRE укладываются в Slo.
+ */
+object CapacityTracker {
+
+  private val MaxLatencyMicros = 60_000_000L
+
+  private val fireLatencyMicros = new Recorder(MaxLatencyMicros, 3)
+  private val fires = new LongAdder
+  private val fireErrors = new LongAdder
+  private val activeGames = new AtomicInteger
+
+  private val results = mutable.LinkedHashMap.empty[LoadLevel, LevelResult]
+  @volatile private var breached = false
+  private var slo: Slo = _
+  private var startMs = 0L
+  private var recycled: Histogram = _
+
+  private class LevelResult {
+    val latencyMicros = new Histogram(MaxLatencyMicros, 3)
+    var fires = 0L
+    var errors = 0L
+    var activeGamesSum = 0L
+    var samples = 0
+    var evaluated = false
+
+    def errorPct: Double = if (fires + errors == 0) 0.0 else errors * 100.0 / (fires + errors)
+
+    def avgActiveGames: Long = if (samples == 0) 0 else activeGamesSum / samples
+
+    def p95Ms: Double = latencyMicros.getValueAtPercentile(95) / 1000.0
+
+    def p99Ms: Double = latencyMicros.getValueAtPercentile(99) / 1000.0
+
+    def passed(slo: Slo): Boolean =
+      samples > 0 && latencyMicros.getTotalCount > 0 &&
+        p95Ms <= slo.p95Ms && p99Ms <= slo.p99Ms && errorPct <= slo.maxErrorPct
+  }
+
+  def gameStarted(): Unit = activeGames.incrementAndGet()
+
+  def gameFinished(): Unit = activeGames.decrementAndGet()
+
+  def recordFire(latencyMicros: Long): Unit = {
+    fireLatencyMicros.recordValue(math.min(latencyMicros, MaxLatencyMicros))
+    fires.increment()
+  }
+
+  def recordFireError(): Unit = fireErrors.increment()
+
+  /**
+   * true, когда очередная ступень не выдержала Slo: дальше поднимать нагрузку бессмысленно
+   */
+  def isBreached: Boolean = breached
+
+  def start(levels: Seq[LoadLevel], target: Slo): Unit = synchronized {
+    slo = target
+    levels.foreach(level => results.put(level, new LevelResult))
+    startMs = System.currentTimeMillis()
+    fireLatencyMicros.reset()
+
+    val scheduler = Executors.newSingleThreadScheduledExecutor { runnable =>
+      val thread = new Thread(runnable, "capacity-sampler")
+      thread.setDaemon(true)
+      thread
+    }
+    scheduler.scheduleAtFixedRate(() => sample(), 1, 1, TimeUnit.SECONDS)
+  }
+
+  private def sample(): Unit = synchronized {
+    val elapsedSec = ((System.currentTimeMillis() - startMs) / 1000).toInt
+    val interval = fireLatencyMicros.getIntervalHistogram(recycled)
+    val intervalFires = fires.sumThenReset()
+    val intervalErrors = fireErrors.sumThenReset()
+
+    results.find { case (level, _) => elapsedSec >= level.plateauStartSec && elapsedSec < level.endSec }.foreach {
+      case (_, result) =>
+        result.latencyMicros.add(interval)
+        result.fires += intervalFires
+        result.errors += intervalErrors
+        result.activeGamesSum += activeGames.get()
+        result.samples += 1
+    }
+    recycled = interval
+
+    results.foreach { case (level, result) =>
+      if (!result.evaluated && elapsedSec >= level.endSec) {
+        result.evaluated = true
+        if (!result.passed(slo)) {
+          breached = true
+        }
+      }
+    }
+  }
+
+  /**
+   * Отчёт по ступеням и итоговая ёмкость. Ёмкость — среднее число идущих партий на плато
+   * последней ступени, выдержавшей Slo, делённое на число ядер сервера.
+   */
+  def report(serverCores: Int, minGamesPerCore: Double, file: Path): String = synchronized {
+    val lines = mutable.ArrayBuffer.empty[String]
+    lines += f"${"users"}%8s ${"games"}%8s ${"p95, ms"}%10s ${"p99, ms"}%10s ${"errors, %"}%10s  slo"
+
+    var sustained: Option[LevelResult] = None
+    var failed = false
+    results.foreach { case (level, result) =>
+      if (result.samples > 0) {
+        val passed = result.passed(slo)
+        lines += f"${level.users}%8d ${result.avgActiveGames}%8d ${result.p95Ms}%10.1f ${result.p99Ms}%10.1f ${result.errorPct}%10.2f  ${if (passed) "ok" else "FAIL"}"
+        if (passed && !failed) sustained = Some(result) else failed = true
+      }
+    }
+
+    val maxGames = sustained.map(_.avgActiveGames).getOrElse(0L)
+    val gamesPerCore = maxGames.toDouble / serverCores
+    val verdict = if (gamesPerCore >= minGamesPerCore && sustained.isDefined) "PASS" else "FAIL"
+
+    lines += ""
+    lines += s"slo: p95 <= ${slo.p95Ms} ms, p99 <= ${slo.p99Ms} ms, errors <= ${slo.maxErrorPct}%"
+    lines += s"maxConcurrentGames=$maxGames"
+    lines += s"serverCores=$serverCores"
+    lines += f"gamesPerCore=$gamesPerCore%.1f"
+    lines += f"minGamesPerCore=$minGamesPerCore%.1f"
+    lines += s"result=$verdict"
+
+    val text = lines.mkString("\n")
+    Files.createDirectories(file.toAbsolutePath.getParent)
+    Files.writeString(file, text + "\n", StandardCharsets.UTF_8)
+    s"\n=== Breakpoint: ёмкость ===\n$text\n(сохранено в $file)\n"
+  }
+}
@@ -0,0 +1,354 @@
+package battleship
+
+import com.battleship.common.model.Board
+import com.battleship.common.model.ModelTypes.ShipType
+import com.battleship.common.rules.GameRules
+import com.fasterxml.jackson.databind.ObjectMapper
+import io.gatling.commons.validation._
+import io.gatling.core.Predef._
+import io.gatling.core.session.Session
+import io.gatling.core.structure.ChainBuilder
+import io.gatling.http.Predef._
+import io.gatling.http.action.ws.WsInboundMessage
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.LongAdder
+import scala.concurrent.duration._
+import scala.jdk.CollectionConverters._
+import scala.util.Random
+
+/**
+ * Общие шаги сценариев: подключение, расстановка и игровой цикл до GAME_OVER.
+ * Ход соперника (AI или другого виртуального игрока) приходит без запроса, поэтому такие сообщения
+ * разбираются из буфера несопоставленных входящих через ws.processUnmatchedMessages.
+ */
+object GameFlow {
+
+  val BoardSize = 10
+  val MaxFireErrors = 3
+  // После попадания во все клетки флота ждём GAME_OVER, а не стреляем в уже законченную партию
+  val FleetCells: Int = ShipType.values.map(t => t.getSize * t.getCount).sum
+
+  private val mapper = new ObjectMapper()
+
+  val httpProtocol = http
+    .baseUrl("http://localhost:8080")
+    .wsBaseUrl("ws://localhost:8080")
+    // Ходы соперника приходят без запроса и копятся в буфере до очередного processUnmatchedMessages
+    .wsUnmatchedInboundMessageBufferSize(256)
+
+  val connect: ChainBuilder =
+    exec(session => session.set("playerName", s"Player_${session.userId}"))
+      .exec(ws("Connect").connect("/game"))
+      .exec(
+        ws("CONNECT")
+          .sendText("""{"type":"CONNECT","playerName":"#{playerName}","clientVersion":"1.0.0"}""")
+          .await(5.seconds)(
+            ws.checkTextMessage("CONNECTED")
+              .matching(jsonPath("$.type").is("CONNECTED"))
+              .check(jsonPath("$.playerId").saveAs("playerId"))
+          )
+      )
+
+  /**
+   * FIND_GAME с ожиданием GAME_FOUND. Время отправки и получения сохраняются в сессии для MatchmakingStats,
+   * при таймауте gameId в сессии не появится.
+   */
+  def findGame(mode: String, timeout: FiniteDuration): ChainBuilder =
+    exec(session => session.remove("gameId").set("findStartMs", System.currentTimeMillis()))
+      .exec(
+        ws(s"FIND_GAME $mode")
+          .sendText(s"""{"type":"FIND_GAME","gameMode":"$mode"}""")
+          .await(timeout)(
+            ws.checkTextMessage("GAME_FOUND")
+              .matching(jsonPath("$.type").is("GAME_FOUND"))
+              .check(jsonPath("$.gameId").saveAs("gameId"))
+          )
+      )
+      .exec(session => session.set("gameFoundMs", System.currentTimeMillis()))
+
+  // Расстановка теми же правилами, что и у сервера, детерминированно по userId
+  private val planPlacements: ChainBuilder =
+    exec { session =>
+      val random = new java.util.Random(session.userId)
+      var board = new Board()
+      while (!GameRules.autoPlaceShips(board, random)) {
+        board = new Board()
+      }
+
+      val messages = board.getShips.asScala.toList.map { ship =>
+        s"""{"type":"PLACE_SHIP","shipType":"${ship.getType}","startX":${ship.getStart.x},"startY":${ship.getStart.y},"orientation":"${ship.getOrientation}"}"""
+      }
+      session.set("placements", messages)
+    }
+
+  private val sendPlacements: ChainBuilder =
+    foreach("#{placements}", "shipMsg") {
+      exec(
+        ws("PLACE_SHIP")
+          .sendText("#{shipMsg}")
+          .await(5.seconds)(
+            ws.checkTextMessage("SHIP_PLACED")
+              .matching(jsonPath("$.type").is("SHIP_PLACED"))
+              .check(jsonPath("$.success").ofType[Boolean].is(true))
+          )
+      )
+    }
+
+  val placeShips: ChainBuilder = planPlacements.exec(sendPlacements)
+
+  // Только часть флота: для обрыва соединения посреди расстановки
+  val placeSomeShips: ChainBuilder =
+    planPlacements
+      .exec { session =>
+        val placements = session("placements").as[List[String]]
+        session.set("placements", placements.take(Random.nextInt(placements.size)))
+      }
+      .exec(sendPlacements)
+
+  def ready(timeout: FiniteDuration): ChainBuilder =
+    exec(
+      ws("READY")
+        .sendText("""{"type":"READY"}""")
+        .await(timeout)(
+          ws.checkTextMessage("GAME_START")
+            .matching(jsonPath("$.type").is("GAME_START"))
+            .check(jsonPath("$.yourTurn").ofType[Boolean].saveAs("myTurn"))
+        )
+    )
+      .exec(session => startGame(session))
+
+  /**
+   * Стреляет в свой ход, в ход соперника опрашивает буфер входящих, пока не придёт GAME_OVER
+   */
+  def playUntilGameOver(groupName: String, stats: GameStats, maxDuration: FiniteDuration): ChainBuilder =
+    exec { session => CapacityTracker.gameStarted(); session }
+      .group(groupName) {
+        asLongAsDuring(session => !isGameOver(session), maxDuration) {
+          exec(ws.processUnmatchedMessages((messages, session) => applyInbound(messages, session).success))
+            .doIfOrElse(session => isMyTurn(session) && !isGameOver(session)) {
+              fire
+            } {
+              pause(50.milliseconds)
+            }
+        }
+      }
+      .exec { session =>
+        CapacityTracker.gameFinished()
+        stats.record(session)
+      }
+
+  private val fire: ChainBuilder =
+    exec(session => chooseShot(session))
+      .exec(
+        ws("FIRE")
+          .sendText("""{"type":"FIRE","x":#{fireX},"y":#{fireY}}""")
+          .await(10.seconds)(
+            // Пока ждём ответ, несовпавшие сообщения не попадают в буфер, поэтому GAME_OVER (сдача или
+            // отключение соперника) тоже принимаем здесь
+            ws.checkTextMessage("SHOT_RESULT")
+              .matching(regex(""""shooter":"#{playerName}"|"type":"(ERROR|GAME_OVER)"""").exists)
+              .check(
+                jsonPath("$.type").saveAs("replyType"),
+                jsonPath("$.result").optional.saveAs("lastResult"),
+                jsonPath("$.yourTurn").ofType[Boolean].optional.saveAs("replyYourTurn"),
+                jsonPath("$.winner").optional.saveAs("replyWinner"),
+                jsonPath("$.type").in("SHOT_RESULT", "GAME_OVER")
+              )
+          )
+      )
+      .exec(session => applyShotReply(session))
+
+  private def startGame(session: Session): Session =
+    session.setAll(
+      "gameOver" -> false,
+      "gameResult" -> "",
+      "gameStartMs" -> System.currentTimeMillis(),
+      "shots" -> 0,
+      "hits" -> 0,
+      "fireErrors" -> 0,
+      "fired" -> Set.empty[Int],
+      "targets" -> List.empty[Int],
+      "rnd" -> new Random(session.userId)
+    )
+
+  def isGameOver(session: Session): Boolean =
+    session("gameOver").asOption[Boolean].getOrElse(false)
+
+  private def isMyTurn(session: Session): Boolean =
+    session("myTurn").asOption[Boolean].getOrElse(false) && session("hits").asOption[Int].getOrElse(0) < FleetCells
+
+  private def applyInbound(messages: List[WsInboundMessage], session: Session): Session =
+    messages.foldLeft(session) {
+      case (current, WsInboundMessage.Text(_, text)) =>
+        val json = mapper.readTree(text)
+        json.path("type").asText() match {
+          case "SHOT_RESULT" if json.path("shooter").asText() != current("playerName").as[String] =>
+            current.set("myTurn", json.path("yourTurn").asBoolean())
+          case "GAME_OVER" =>
+            current.setAll("gameOver" -> true, "gameResult" -> json.path("winner").asText())
+          case "ERROR" if json.path("code").asInt() == 410 =>
+            current.setAll("gameOver" -> true, "gameResult" -> "CANCELLED")
+          case _ =>
+            current
+        }
+      case (current, _) => current
+    }
+
+  // Hunt: случайная клетка шахматного узора; Target: соседи последнего попадания
+  private def chooseShot(session: Session): Session = {
+    val fired = session("fired").as[Set[Int]]
+    val rnd = session("rnd").as[Random]
+    val targets = session("targets").as[List[Int]].dropWhile(fired.contains)
+
+    val cell = targets match {
+      case next :: _ => next
+      case Nil =>
+        val free = (0 until BoardSize * BoardSize).filterNot(fired.contains)
+        val parity = free.filter(i => (i % BoardSize + i / BoardSize) % 2 == 0)
+        val pool = if (parity.nonEmpty) parity else free
+        pool(rnd.nextInt(pool.size))
+    }
+
+    session
+      .removeAll("replyType", "lastResult", "replyYourTurn", "replyWinner")
+      .setAll(
+        "fireCell" -> cell,
+        "fireSentNanos" -> System.nanoTime(),
+        "fireX" -> cell % BoardSize,
+        "fireY" -> cell / BoardSize,
+        "fired" -> (fired + cell),
+        "targets" -> targets.filterNot(_ == cell)
+      )
+  }
+
+  private def applyShotReply(session: Session): Session = {
+    val latencyMicros = (System.nanoTime() - session("fireSentNanos").as[Long]) / 1000
+    session("replyType").asOption[String] match {
+      case Some("SHOT_RESULT") =>
+        CapacityTracker.recordFire(latencyMicros)
+        val cell = session("fireCell").as[Int]
+        val result = session("lastResult").asOption[String].getOrElse("MISS")
+        val hit = result == "HIT" || result == "SUNK"
+        val targets = result match {
+          case "HIT" => neighbours(cell) ++ session("targets").as[List[Int]]
+          case "SUNK" => Nil
+          case _ => session("targets").as[List[Int]]
+        }
+        session.setAll(
+          "shots" -> (session("shots").as[Int] + 1),
+          "hits" -> (session("hits").as[Int] + (if (hit) 1 else 0)),
+          "targets" -> targets,
+          "myTurn" -> session("replyYourTurn").asOption[Boolean].getOrElse(false)
+        )
+      case Some("GAME_OVER") =>
+        CapacityTracker.recordFire(latencyMicros)
+        session.setAll("gameOver" -> true, "gameResult" -> session("replyWinner").asOption[String].getOrElse(""))
+      case _ =>
+        // Ошибка или таймаут: ждём хода соперника, после нескольких подряд прекращаем партию
+        CapacityTracker.recordFireError()
+        val errors = session("fireErrors").as[Int] + 1
+        if (errors >= MaxFireErrors) session.setAll("fireErrors" -> errors, "gameOver" -> true, "gameResult" -> "ABORTED")
+        else session.setAll("fireErrors" -> errors, "myTurn" -> false)
+    }
+  }
+
+  private def neighbours(cell: Int): List[Int] = {
+    val x = cell % BoardSize
+    val y = cell / BoardSize
+    List((x - 1, y), (x + 1, y), (x, y - 1), (x, y + 1))
+      .filter { case (nx, ny) => nx >= 0 && nx < BoardSize && ny >= 0 && ny < BoardSize }
+      .map { case (nx, ny) => ny * BoardSize + nx }
+  }
+}
+
+/**
+ * Итоги партий по сценарию: длительность и число выстрелов, печатаются в after {}
+ */
+class GameStats(name: String) {
+  private val wins = new LongAdder
+  private val losses = new LongAdder
+  private val unfinished = new LongAdder
+  private val durationsMs = new ConcurrentLinkedQueue[java.lang.Long]()
+  private val shotCounts = new ConcurrentLinkedQueue[Integer]()
+
+  def record(session: Session): Session = {
+    session("gameResult").asOption[String] match {
+      case Some("Победа") => wins.increment()
+      case Some("Поражение") => losses.increment()
+      case _ => unfinished.increment()
+    }
+    session("gameStartMs").asOption[Long].foreach { start =>
+      durationsMs.add(System.currentTimeMillis() - start)
+      shotCounts.add(session("shots").as[Int])
+    }
+    session
+  }
+
+  def finishedGames: Long = wins.sum() + losses.sum()
+
+  def unfinishedGames: Long = unfinished.sum()
+
+  def report(): String = {
+    val durations = durationsMs.asScala.map(_.longValue).toVector.sorted
+    val shots = shotCounts.asScala.map(_.intValue).toVector.sorted
+    s"""
+       |=== $name: итоги партий ===
+       |Завершено: ${finishedGames} (победы: ${wins.sum()}, поражения: ${losses.sum()}), не доиграно: ${unfinished.sum()}
+       |Длительность партии, мс: ${GameStats.percentiles(durations)}
+       |Выстрелов игрока за партию: ${GameStats.percentiles(shots.map(_.toLong))}
+       |""".stripMargin
+  }
+}
+
+/**
+ * Статистика подбора соперника: задержка FIND_GAME -> GAME_FOUND, темп образования пар
+ * и поиски, так и не дождавшиеся соперника (остались в очереди сервера до отключения)
+ */
+class MatchmakingStats {
+  private val latenciesMs = new ConcurrentLinkedQueue[java.lang.Long]()
+  private val found = new LongAdder
+  private val orphaned = new LongAdder
+  @volatile private var firstFoundMs = Long.MaxValue
+  @volatile private var lastFoundMs = 0L
+
+  def record(session: Session): Session = {
+    if (session.contains("gameId")) {
+      val foundMs = session("gameFoundMs").as[Long]
+      latenciesMs.add(foundMs - session("findStartMs").as[Long])
+      found.increment()
+      synchronized {
+        firstFoundMs = math.min(firstFoundMs, foundMs)
+        lastFoundMs = math.max(lastFoundMs, foundMs)
+      }
+    } else {
+      orphaned.increment()
+    }
+    session
+  }
+
+  def orphanedSearches: Long = orphaned.sum()
+
+  def report(): String = {
+    val latencies = latenciesMs.asScala.map(_.longValue).toVector.sorted
+    // Каждую пару видят оба игрока, поэтому пар вдвое меньше, чем полученных GAME_FOUND
+    val pairs = found.sum() / 2
+    val windowSec = if (pairs > 0) math.max(1L, lastFoundMs - firstFoundMs) / 1000.0 else 0.0
+    val throughput = if (windowSec > 0) f"${pairs / windowSec}%.1f" else "-"
+    s"""
+       |=== PvP: подбор соперника ===
+       |Поисков: ${found.sum() + orphaned.sum()}, найдено пар: $pairs, осиротевших поисков: ${orphaned.sum()}
+       |Темп образования пар, пар/с: $throughput
+       |FIND_GAME -> GAME_FOUND, мс: ${GameStats.percentiles(latencies)}
+       |""".stripMargin
+  }
+}
+
+object GameStats {
+  def percentiles(sorted: Vector[Long]): String =
+    if (sorted.isEmpty) "нет данных"
+    else {
+      def at(p: Double): Long = sorted(math.min(sorted.size - 1, math.ceil(p / 100 * sorted.size).toInt - 1).max(0))
+      s"p50=${at(50)} p95=${at(95)} p99=${at(99)} max=${sorted.last}"
+    }
+}
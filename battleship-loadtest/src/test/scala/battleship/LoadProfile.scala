@@ -0,0 +1,86 @@
+package battleship
+
+import io.gatling.core.Predef._
+import io.gatling.core.controller.inject.closed.ClosedInjectionStep
+import scala.concurrent.duration._
+
+/**
+ * Именованные профили нагрузки, выбираются через -Dloadtest.profile:
+ *  - default    — разгон до 1000 игроков за 90 с и 3 минуты удержания;
+ *  - soak       — длительное удержание (по умолчанию 1000 игроков на 1 час) для поиска утечек и деградации;
+ *  - spike      — всплеск 0 -> 5000 игроков за 10 с;
+ *  - breakpoint — ступенчатый рост до нарушения Slo, результат — ёмкость в партиях на ядро сервера.
+ * Число игроков в closed-модели Gatling равно числу одновременных соединений, каждое ведёт одну партию.
+ */
+final case class LoadProfile(name: String, injection: Seq[ClosedInjectionStep], levels: Seq[LoadLevel], maxDuration: FiniteDuration) {
+  def isBreakpoint: Boolean = name == "breakpoint"
+}
+
+object LoadProfile {
+
+  private def int(key: String, default: Int): Int = Integer.getInteger(key, default).intValue
+
+  private def double(key: String, default: Double): Double =
+    Option(System.getProperty(key)).map(_.toDouble).getOrElse(default)
+
+  val slo: Slo = Slo(
+    p95Ms = int("slo.p95Ms", 250),
+    p99Ms = int("slo.p99Ms", 1000),
+    maxErrorPct = double("slo.errorPct", 1.0)
+  )
+
+  // Обязателен для breakpoint: Gatling обычно запущен не на сервере, и свои ядра дали бы неверную ёмкость
+  def serverCores: Int =
+    Option(Integer.getInteger("loadtest.serverCores")).map(_.intValue).filter(_ > 0).getOrElse(
+      throw new IllegalArgumentException("Для профиля breakpoint задайте -Dloadtest.serverCores — число ядер сервера"))
+
+  def minGamesPerCore: Double = double("loadtest.minGamesPerCore", 0.0)
+
+  def fromSystemProperties(): LoadProfile =
+    System.getProperty("loadtest.profile", "default") match {
+      case "default" =>
+        LoadProfile("default",
+          Seq(rampConcurrentUsers(0).to(1000).during(90.seconds), constantConcurrentUsers(1000).during(3.minutes)),
+          Nil, 10.minutes)
+
+      case "soak" =>
+        val users = int("soak.users", 1000)
+        val hold = int("soak.minutes", 60).minutes
+        LoadProfile("soak",
+          Seq(rampConcurrentUsers(0).to(users).during(5.minutes), constantConcurrentUsers(users).during(hold)),
+          Nil, hold + 15.minutes)
+
+      case "spike" =>
+        val users = int("spike.users", 5000)
+        LoadProfile("spike",
+          Seq(rampConcurrentUsers(0).to(users).during(int("spike.rampSec", 10).seconds),
+            constantConcurrentUsers(users).during(int("spike.holdSec", 120).seconds)),
+          Nil, 15.minutes)
+
+      case "breakpoint" =>
+        // Проверка до прогона, а не в отчёте после часа нагрузки
+        serverCores
+        breakpoint(
+          startUsers = int("breakpoint.startUsers", 500),
+          stepUsers = int("breakpoint.stepUsers", 500),
+          steps = int("breakpoint.steps", 20),
+          rampSec = int("breakpoint.rampSec", 10),
+          holdSec = int("breakpoint.holdSec", 60)
+        )
+
+      case other =>
+        throw new IllegalArgumentException(s"Неизвестный профиль нагрузки: $other (default, soak, spike, breakpoint)")
+    }
+
+  // Ступени задаются явно, чтобы трекер знал, когда идёт плато каждой из них
+  private def breakpoint(startUsers: Int, stepUsers: Int, steps: Int, rampSec: Int, holdSec: Int): LoadProfile = {
+    val levels = (0 until steps).map { i =>
+      LoadLevel(startUsers + i * stepUsers, i * (rampSec + holdSec), rampSec, holdSec)
+    }
+    val injection = levels.zip(0 +: levels.map(_.users)).flatMap { case (level, previous) =>
+      Seq(rampConcurrentUsers(previous).to(level.users).during(rampSec.seconds),
+        constantConcurrentUsers(level.users).during(holdSec.seconds))
+    }
+    LoadProfile("breakpoint", injection, levels, (levels.last.endSec + 300).seconds)
+  }
+}
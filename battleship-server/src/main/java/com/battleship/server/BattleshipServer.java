@@ -1,17 +1,50 @@
 package com.battleship.server;
 
+import com.battleship.ai.prior.HeatmapPrior;
+import com.battleship.common.time.GameClock;
 import com.battleship.server.ai.AIService;
+import com.battleship.server.ai.AITurnScheduler;
+import com.battleship.server.ai.DelayedAITurnScheduler;
+import com.battleship.server.ai.RemoteAIWorkerPool;
+import com.battleship.server.handler.GameNotifier;
+import com.battleship.server.handler.RawServerInitializer;
 import com.battleship.server.handler.WebSocketServerInitializer;
+import com.battleship.server.journal.GameJournal;
+import com.battleship.server.journal.MappedGameJournal;
+import com.battleship.server.game.GameEngine;
+import com.battleship.server.game.SeedSource;
+import com.battleship.server.game.TurnClocks;
+import com.battleship.server.jfr.JfrRecordingService;
+import com.battleship.server.load.EventLoopLagMonitor;
+import com.battleship.server.lifecycle.GameLifecycleManager;
+import com.battleship.server.lobby.LobbyService;
+import com.battleship.server.load.LoadShedder;
 import com.battleship.server.matchmaking.MatchmakingService;
+import com.battleship.server.ratelimit.RateLimitPolicy;
 import com.battleship.server.session.SessionManager;
+import com.battleship.server.spectate.SpectatorHub;
+import com.battleship.server.stats.HeatmapAggregator;
+import com.battleship.server.stats.ServerMetrics;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerDomainSocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Главный класс сервера Морского боя
  */
@@ -22,43 +55,255 @@ public class BattleshipServer {
     private static final String WEBSOCKET_PATH = "/game";
 
     private final int port;
+    private final SeedSource seeds;
+    private final AITurnScheduler aiTurnScheduler;
     private final SessionManager sessionManager;
+    private final TurnClocks turnClocks;
     private final MatchmakingService matchmakingService;
     private final AIService aiService;
+    private final RemoteAIWorkerPool aiWorkerPool;
+    private final HeatmapAggregator heatmapAggregator;
+    private final ServerMetrics metrics;
+    private final MappedGameJournal journal;
+    private final GameLifecycleManager lifecycle;
+    private final LobbyService lobby;
+    private final JfrRecordingService jfrRecordingService;
+    private final LoadShedder loadShedder;
+    private final RateLimitPolicy rateLimitPolicy;
+    private volatile Channel serverChannel;
 
     public BattleshipServer(int port) {
         this.port = port;
-        this.sessionManager = new SessionManager();
-        this.matchmakingService = new MatchmakingService();
-        this.aiService = new AIService();
+        this.seeds = SeedSource.fromSystemProperties();
+        GameClock clock = seeds.isDeterministic() ? GameClock.monotonic() : GameClock.system();
+        this.aiTurnScheduler = seeds.isDeterministic()
+            ? AITurnScheduler.inline()
+            : new DelayedAITurnScheduler(Long.getLong("battleship.ai.turnDelayMs", 500));
+        this.sessionManager = new SessionManager(seeds, Integer.getInteger("battleship.multiplex.maxHandles", 1000));
+        this.turnClocks = TurnClocks.fromSystemProperties();
+        this.metrics = new ServerMetrics();
+        this.journal = MappedGameJournal.fromSystemProperties(metrics);
+        this.matchmakingService = new MatchmakingService(seeds, clock, turnClocks,
+            journal != null ? journal : GameJournal.disabled());
+        this.aiWorkerPool = createAIWorkerPool();
+        this.aiService = new AIService(aiWorkerPool);
+        this.heatmapAggregator = createHeatmapAggregator(aiService, seeds.isDeterministic());
+        this.loadShedder = LoadShedder.fromSystemProperties();
+        this.rateLimitPolicy = RateLimitPolicy.fromSystemProperties();
+        registerGauges();
+        this.lifecycle = new GameLifecycleManager(sessionManager, matchmakingService, aiService, metrics,
+            TimeUnit.SECONDS.toMillis(Long.getLong("battleship.resume.graceSec", 30)),
+            SpectatorHub.fromSystemProperties(metrics));
+        this.lobby = new LobbyService(sessionManager, matchmakingService, metrics);
+        this.jfrRecordingService = JfrRecordingService.fromSystemProperties();
+        JfrRecordingService.registerEvents();
+        turnClocks.setExpiryListener(createExpiryListener());
+
+        if (seeds.isDeterministic()) {
+            logger.info("Детерминированный режим: сид {}, ходы AI без задержки, часы партий от нуля", seeds.getMasterSeed());
+            if (aiWorkerPool != null) {
+                logger.warn("Внешние AI воркеры выбирают ходы сами, партии с AI не будут повторяться по сиду");
+            }
+        }
+    }
+
+    private TurnClocks.ExpiryListener createExpiryListener() {
+        GameNotifier notifier = new GameNotifier(sessionManager, lifecycle, heatmapAggregator, metrics);
+        return (game, expiry) -> {
+            boolean setup = expiry == GameEngine.Expiry.SETUP;
+            metrics.recordClockExpired(setup);
+            notifier.sendGameOver(game, setup ? "Время на расстановку истекло" : "Время хода истекло");
+        };
+    }
+
+    // -Dbattleship.heatmap.file=heatmap.txt сохраняет тепловую карту между перезапусками
+    private static HeatmapAggregator createHeatmapAggregator(AIService aiService, boolean deterministic) {
+        String file = System.getProperty("battleship.heatmap.file");
+        Path snapshotFile = file != null && !file.isBlank() ? Path.of(file) : null;
+        double decay = Double.parseDouble(System.getProperty("battleship.heatmap.decay", "0.5"));
+
+        HeatmapAggregator aggregator = new HeatmapAggregator(decay, snapshotFile);
+        if (snapshotFile != null && Files.exists(snapshotFile)) {
+            try {
+                HeatmapPrior prior = HeatmapPrior.load(snapshotFile);
+                aggregator.restore(prior);
+                aiService.setHuntingPrior(prior);
+                logger.info("Загружена тепловая карта {} ({} партий)", snapshotFile, Math.round(prior.getGames()));
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Не удалось загрузить тепловую карту {}: {}", snapshotFile, e.getMessage());
+            }
+        }
+        // Карта обновляется по таймеру, поэтому в детерминированном режиме AI остаётся на загруженной карте
+        if (!deterministic) {
+            aggregator.setSnapshotListener(aiService::setHuntingPrior);
+        }
+        return aggregator;
+    }
+
+    private void registerGauges() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        metrics.registerGauge("battleship_sessions", "Подключённые игроки", sessionManager::getSessionCount);
+        metrics.registerGauge("battleship_active_games", "Идущие игры", matchmakingService::getActiveGameCount);
+        metrics.registerGauge("battleship_pvp_queue_size", "Игроки в очереди PvP", matchmakingService::getPvpQueueSize);
+        metrics.registerGauge("battleship_blitz_queue_size", "Игроки в очереди блица",
+            matchmakingService::getBlitzQueueSize);
+        metrics.registerGauge("battleship_turn_clocks", "Партии с запущенными часами", turnClocks::getTrackedCount);
+        metrics.registerGauge("battleship_ai_players", "AI игроки", aiService::getAIPlayerCount);
+        metrics.registerGauge("battleship_spectators", "Зрители партий",
+            () -> lifecycle.getSpectators().getViewerCount());
+        metrics.registerGauge("battleship_lobby_subscribers", "Подписчики лобби",
+            () -> lobby.getSubscriberCount());
+        metrics.registerGauge("battleship_jvm_heap_used_bytes", "Занятая куча JVM",
+            () -> memory.getHeapMemoryUsage().getUsed());
+        metrics.registerGauge("battleship_load_shedding", "1, пока новые подключения и поиски игр отклоняются",
+            () -> loadShedder.isShedding() ? 1 : 0);
+        if (journal != null) {
+            metrics.registerGauge("battleship_journal_queue_depth", "События, ждущие записи в журнал",
+                journal::getQueueDepth);
+        }
+    }
+
+    // -Dbattleship.ai.workers=unix:/tmp/battleship-ai.sock,tcp:127.0.0.1:9100 включает внешних AI воркеров
+    private static RemoteAIWorkerPool createAIWorkerPool() {
+        String workers = System.getProperty("battleship.ai.workers");
+        if (workers == null || workers.isBlank()) {
+            return null;
+        }
+
+        long timeoutMillis = Long.getLong("battleship.ai.timeoutMs", 200);
+        RemoteAIWorkerPool pool = RemoteAIWorkerPool.fromSpec(workers, timeoutMillis);
+        pool.start();
+        logger.info("AI ходы считаются во внешних воркерах: {} (таймаут {} мс)", workers, timeoutMillis);
+        return pool;
     }
 
     public void start() throws InterruptedException {
         EventLoopGroup bossGroup = new NioEventLoopGroup(1);
         EventLoopGroup workerGroup = new NioEventLoopGroup();
+        EventLoopLagMonitor lagMonitor = new EventLoopLagMonitor(workerGroup,
+            Long.getLong("battleship.lag.intervalMs", 100), loadShedder, metrics);
+        metrics.registerGauge("battleship_event_loop_pending_tasks", "Наибольшая очередь задач среди event loop",
+            lagMonitor::getMaxPendingTasks);
 
         try {
+            WebSocketServerInitializer webSocketInitializer = new WebSocketServerInitializer(
+                    WEBSOCKET_PATH,
+                    sessionManager,
+                    matchmakingService,
+                    aiService,
+                    heatmapAggregator,
+                    aiTurnScheduler,
+                    metrics,
+                    loadShedder,
+                    lifecycle,
+                    lobby,
+                    rateLimitPolicy,
+                    jfrRecordingService
+            );
             ServerBootstrap bootstrap = new ServerBootstrap();
             bootstrap.group(bossGroup, workerGroup)
                     .channel(NioServerSocketChannel.class)
-                    .childHandler(new WebSocketServerInitializer(
-                            WEBSOCKET_PATH,
-                            sessionManager,
-                            matchmakingService,
-                            aiService
-                    ));
+                    .childHandler(webSocketInitializer);
 
             Channel channel = bootstrap.bind(port).sync().channel();
+            serverChannel = channel;
 
             logger.info("Battleship Server запущен на порту {}", port);
             logger.info("WebSocket endpoint: ws://localhost:{}{}", port, WEBSOCKET_PATH);
+            logger.info("Статистика сервера: http://localhost:{}/stats, метрики: http://localhost:{}/metrics", port, port);
+            bindRawEndpoints(bossGroup, workerGroup, webSocketInitializer);
 
             startStatsThread();
+            lagMonitor.start();
+            heatmapAggregator.start(Long.getLong("battleship.heatmap.windowSec", 300));
+            lifecycle.start(Long.getLong("battleship.lifecycle.reconcileSec", 30));
+            lobby.start(Long.getLong("battleship.lobby.tickMs", 500));
 
             channel.closeFuture().sync();
         } finally {
+            lagMonitor.stop();
+            turnClocks.stop();
+            lifecycle.stop();
+            lobby.stop();
             bossGroup.shutdownGracefully();
             workerGroup.shutdownGracefully();
+            heatmapAggregator.stop();
+            if (aiWorkerPool != null) {
+                aiWorkerPool.close();
+            }
+            // Последним: до остановки event loop и потоков AI партии ещё пишут события
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+    /**
+     * Закрывает порт сервера: start() освобождает ресурсы и возвращается
+     */
+    public void stop() {
+        Channel channel = serverChannel;
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    // -Dbattleship.raw.listen=unix:/tmp/battleship.sock,tcp:127.0.0.1:9090 — кадры без WebSocket для клиентов
+    // на той же машине. Unix сокет обслуживает тот же NIO event loop, что и /game: его видят монитор задержки
+    // и сброс нагрузки
+    private void bindRawEndpoints(EventLoopGroup bossGroup, EventLoopGroup workerGroup,
+                                  WebSocketServerInitializer webSocketInitializer) throws InterruptedException {
+        String listen = System.getProperty("battleship.raw.listen");
+        if (listen == null || listen.isBlank()) {
+            return;
+        }
+
+        RawServerInitializer rawInitializer = new RawServerInitializer(webSocketInitializer::newGameMessageHandler,
+            Integer.getInteger("battleship.raw.idleSec", 60), rateLimitPolicy, metrics);
+        metrics.registerGauge("battleship_raw_connections", "Соединения без WebSocket", rawInitializer::getConnectionCount);
+
+        for (String spec : listen.split(",")) {
+            SocketAddress address = parseRawAddress(spec);
+            ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .childHandler(rawInitializer);
+            if (address instanceof UnixDomainSocketAddress unixAddress) {
+                deleteStaleSocket(unixAddress.getPath());
+                bootstrap.channel(NioServerDomainSocketChannel.class);
+            } else {
+                bootstrap.channel(NioServerSocketChannel.class)
+                    .childOption(ChannelOption.TCP_NODELAY, true)
+                    .childOption(ChannelOption.SO_KEEPALIVE, true);
+            }
+            bootstrap.bind(address).sync();
+            logger.info("Endpoint без WebSocket: {}", spec.trim());
+        }
+    }
+
+    /**
+     * unix:/path/to.sock или tcp:host:port
+     */
+    private static SocketAddress parseRawAddress(String spec) {
+        String value = spec.trim();
+        if (value.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(value.substring("unix:".length()));
+        }
+        if (value.startsWith("tcp:")) {
+            value = value.substring("tcp:".length());
+        }
+        int separator = value.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Неверный адрес endpoint без WebSocket: " + spec);
+        }
+        return new InetSocketAddress(value.substring(0, separator), Integer.parseInt(value.substring(separator + 1)));
+    }
+
+    // Файл сокета остаётся после аварийной остановки, и bind на нём падает
+    private static void deleteStaleSocket(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Не удалось удалить старый сокет {}: {}", path, e.getMessage());
         }
     }
 
@@ -71,9 +316,10 @@ public class BattleshipServer {
                     int sessions = sessionManager.getSessionCount();
                     int games = matchmakingService.getActiveGameCount();
                     int queue = matchmakingService.getPvpQueueSize();
+                    int aiPlayers = aiService.getAIPlayerCount();
 
-                    logger.info("Статистика: {} сессий, {} активных игр, {} в очереди",
-                               sessions, games, queue);
+                    logger.info("Статистика: {} сессий, {} активных игр, {} AI игроков, {} в очереди",
+                               sessions, games, aiPlayers, queue);
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     break;
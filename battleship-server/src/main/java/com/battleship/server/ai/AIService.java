@@ -1,12 +1,16 @@
 package com.battleship.server.ai;
 
 import com.battleship.ai.agent.HuntTargetAgent;
+import com.battleship.ai.prior.HeatmapPrior;
 import com.battleship.common.model.*;
 import com.battleship.common.rules.GameRules;
 import com.battleship.server.game.GameEngine;
+import com.battleship.server.jfr.ShipPlacementEvent;
+import com.battleship.server.logging.LogSampler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
@@ -16,18 +20,39 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class AIService {
     private static final Logger logger = LoggerFactory.getLogger(AIService.class);
+    private static final LogSampler SHOT_LOG_SAMPLER = LogSampler.fromSystemProperty("battleship.log.shotsPerSec", 20);
 
     private final Map<String, AIPlayer> aiPlayers = new ConcurrentHashMap<>();
-    private final Random random = new Random();
+    private final RemoteAIWorkerPool workerPool;
+    private volatile HeatmapPrior huntingPrior;
+
+    public AIService() {
+        this(null);
+    }
+
+    /**
+     * @param workerPool пул внешних AI воркеров или null, чтобы считать ходы в процессе сервера
+     */
+    public AIService(RemoteAIWorkerPool workerPool) {
+        this.workerPool = workerPool;
+    }
+
     public void createAIPlayer(String aiPlayerId, GameEngine game) {
-        AIPlayer aiPlayer = new AIPlayer(aiPlayerId);
+        // Расстановка и выстрелы AI идут от сида партии: при одном сиде партия повторяется
+        Random random = new Random(game.getSeed());
+        AIPlayer aiPlayer = new AIPlayer(aiPlayerId, game.getGameState().getGameId(),
+            new HuntTargetAgent(new Random(random.nextLong()), huntingPrior), workerPool);
         aiPlayers.put(aiPlayerId, aiPlayer);
         logger.info("Создан AI игрок {}", aiPlayerId);
 
-        autoPlaceShips(aiPlayer, game);
+        autoPlaceShips(aiPlayer, game, random);
     }
 
-    private void autoPlaceShips(AIPlayer aiPlayer, GameEngine game) {
+    private void autoPlaceShips(AIPlayer aiPlayer, GameEngine game, Random random) {
+        // Весь флот AI — одна пачка: генерация расстановки и десять placeShip под монитором игры
+        ShipPlacementEvent event = new ShipPlacementEvent();
+        event.begin();
+
         Board board = new Board();
         int retries = 0;
 
@@ -50,6 +75,15 @@ public class AIService {
         } else {
             logger.error("Не удалось автоматически расставить корабли для AI {}", aiPlayer.getPlayerId());
         }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.gameId = game.getGameState().getGameId();
+            event.playerId = aiPlayer.getPlayerId();
+            event.ships = board.getShipCount();
+            event.success = board.getShipCount() > 0;
+            event.commit();
+        }
     }
 
     public AITurnResult processAITurn(String gameId, GameEngine game) {
@@ -57,30 +91,38 @@ public class AIService {
         String currentPlayer = state.getCurrentTurnPlayerId();
 
         if (!currentPlayer.startsWith("AI-")) {
-            return new AITurnResult(false, null);
+            return new AITurnResult(false, null, false);
         }
 
         AIPlayer aiPlayer = aiPlayers.get(currentPlayer);
         if (aiPlayer == null) {
             logger.warn("AI игрок {} не найден для игры {}", currentPlayer, gameId);
-            return new AITurnResult(false, null);
+            return new AITurnResult(false, null, false);
         }
 
         Coordinate move = aiPlayer.chooseMove(game);
         if (move == null) {
             logger.error("AI {} не смог выбрать ход", currentPlayer);
-            return new AITurnResult(false, null);
+            return new AITurnResult(false, null, false);
         }
 
-        logger.debug("AI {} выстрелил в {}{}", currentPlayer, (char)('A' + move.x()), move.y());
+        if (logger.isDebugEnabled() && SHOT_LOG_SAMPLER.tryAcquire()) {
+            logger.debug("AI {} выстрелил в {}{} (пропущено записей: {})", currentPlayer, (char)('A' + move.x()), move.y(),
+                SHOT_LOG_SAMPLER.drainSuppressed());
+        }
 
         var fireResult = game.fire(currentPlayer, move.x(), move.y());
 
         if (fireResult.success()) {
-            return new AITurnResult(true, move);
+            return new AITurnResult(true, move, fireResult.gameOver());
         }
 
-        return new AITurnResult(false, null);
+        return new AITurnResult(false, null, false);
+    }
+
+    // Новые AI игроки будут искать корабли с учётом этой тепловой карты
+    public void setHuntingPrior(HeatmapPrior prior) {
+        this.huntingPrior = prior;
     }
 
     public void removeAIPlayer(String aiPlayerId) {
@@ -88,24 +130,50 @@ public class AIService {
         logger.debug("AI игрок {} удален", aiPlayerId);
     }
 
-    public record AITurnResult(boolean success, Coordinate coordinate) {}
+    public int getAIPlayerCount() {
+        return aiPlayers.size();
+    }
+
+    /**
+     * Снимок: id AI игрока → id его партии
+     */
+    public Map<String, String> getAIPlayerGames() {
+        Map<String, String> games = new HashMap<>();
+        aiPlayers.forEach((id, player) -> games.put(id, player.getGameId()));
+        return games;
+    }
+
+    public record AITurnResult(boolean success, Coordinate coordinate, boolean gameOver) {}
 
     private static class AIPlayer {
         private final String playerId;
+        private final String gameId;
         private final HuntTargetAgent agent;
+        private final RemoteAIWorkerPool workerPool;
 
-        public AIPlayer(String playerId) {
+        public AIPlayer(String playerId, String gameId, HuntTargetAgent agent, RemoteAIWorkerPool workerPool) {
             this.playerId = playerId;
-            this.agent = new HuntTargetAgent();
+            this.gameId = gameId;
+            this.agent = agent;
+            this.workerPool = workerPool;
         }
 
         public String getPlayerId() {
             return playerId;
         }
 
+        public String getGameId() {
+            return gameId;
+        }
+
         public Coordinate chooseMove(GameEngine game) {
             var state = game.getGameState();
             Board opponentBoard = state.getOpponentBoard(playerId);
+            if (workerPool != null) {
+                // При недоступном или медленном воркере ход считается локально
+                return workerPool.requestMove(opponentBoard)
+                    .orElseGet(() -> agent.chooseAction(opponentBoard));
+            }
             return agent.chooseAction(opponentBoard);
         }
     }
@@ -0,0 +1,17 @@
+package com.battleship.server.ai;
+
+/**
+ * Момент выполнения хода AI. На сервере ход откладывается в отдельный поток, чтобы игрок видел паузу;
+ * во встроенном стенде бенчмарков ход выполняется сразу, и партия идёт детерминированно в одном потоке.
+ */
+public interface AITurnScheduler {
+
+    void schedule(Runnable turn);
+
+    /**
+     * Ход выполняется сразу в потоке вызова, до возврата из обработки сообщения игрока
+     */
+    static AITurnScheduler inline() {
+        return Runnable::run;
+    }
+}
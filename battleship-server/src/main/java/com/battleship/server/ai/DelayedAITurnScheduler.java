@@ -0,0 +1,30 @@
+package com.battleship.server.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ход AI в отдельном потоке после паузы — поведение сервера по умолчанию
+ */
+public class DelayedAITurnScheduler implements AITurnScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(DelayedAITurnScheduler.class);
+
+    private final long delayMillis;
+
+    public DelayedAITurnScheduler(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public void schedule(Runnable turn) {
+        new Thread(() -> {
+            try {
+                Thread.sleep(delayMillis);
+                turn.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("AI turn interrupted", e);
+            }
+        }).start();
+    }
+}
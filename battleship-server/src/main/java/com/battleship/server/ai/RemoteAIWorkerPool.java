@@ -0,0 +1,327 @@
+package com.battleship.server.ai;
+
+import com.battleship.ai.remote.AIWorkerProtocol;
+import com.battleship.common.model.Board;
+import com.battleship.common.model.Coordinate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пул внешних AI воркеров, подключённых по Unix domain socket или loopback TCP.
+ * Запросы ставятся в очередь соединения, пишутся пачками и обрабатываются конвейерно;
+ * ответы сопоставляются по requestId. Медленные и упавшие воркеры исключаются до
+ * восстановления, а вызывающий код получает пустой результат и считает ход сам.
+ */
+public class RemoteAIWorkerPool implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RemoteAIWorkerPool.class);
+
+    private static final int MAX_BATCH = 256;
+    private static final int MAX_IN_FLIGHT = 1024;
+    private static final int MAX_CONSECUTIVE_TIMEOUTS = 3;
+    private static final long HEALTH_CHECK_INTERVAL_MS = 1000;
+
+    private final List<WorkerConnection> connections = new ArrayList<>();
+    private final long timeoutMillis;
+    private final AtomicInteger nextConnection = new AtomicInteger();
+    private final AtomicInteger nextRequestId = new AtomicInteger();
+    private final Thread healthThread;
+    private volatile boolean closed;
+
+    public RemoteAIWorkerPool(List<SocketAddress> addresses, long timeoutMillis) {
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("Не указаны адреса AI воркеров");
+        }
+        this.timeoutMillis = timeoutMillis;
+        for (SocketAddress address : addresses) {
+            connections.add(new WorkerConnection(address));
+        }
+
+        this.healthThread = new Thread(this::healthLoop, "ai-worker-health");
+        this.healthThread.setDaemon(true);
+    }
+
+    public static RemoteAIWorkerPool fromSpec(String spec, long timeoutMillis) {
+        List<SocketAddress> addresses = new ArrayList<>();
+        for (String address : spec.split(",")) {
+            if (!address.isBlank()) {
+                addresses.add(AIWorkerProtocol.parseAddress(address));
+            }
+        }
+        return new RemoteAIWorkerPool(addresses, timeoutMillis);
+    }
+
+    public void start() {
+        for (WorkerConnection connection : connections) {
+            connection.tryConnect();
+        }
+        healthThread.start();
+    }
+
+    /**
+     * Запрашивает ход у воркера. Пустой результат означает, что воркеры недоступны
+     * или не уложились в таймаут, и ход нужно посчитать в процессе сервера.
+     */
+    public Optional<Coordinate> requestMove(Board opponentBoard) {
+        WorkerConnection connection = pickHealthy();
+        if (connection == null) {
+            return Optional.empty();
+        }
+
+        int requestId = nextRequestId.incrementAndGet();
+        CompletableFuture<Integer> future = connection.submit(requestId, AIWorkerProtocol.encodeObservation(opponentBoard));
+        if (future == null) {
+            return Optional.empty();
+        }
+
+        try {
+            int index = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            connection.consecutiveTimeouts.set(0);
+            return index == AIWorkerProtocol.NO_MOVE ? Optional.empty() : Optional.of(Coordinate.fromIndex(index));
+        } catch (TimeoutException e) {
+            connection.inFlight.remove(requestId);
+            if (connection.consecutiveTimeouts.incrementAndGet() >= MAX_CONSECUTIVE_TIMEOUTS) {
+                logger.warn("AI воркер {} не отвечает вовремя, переподключаемся", connection.address);
+                connection.disconnect();
+            }
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    public int getHealthyWorkerCount() {
+        int healthy = 0;
+        for (WorkerConnection connection : connections) {
+            if (connection.isHealthy()) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    private WorkerConnection pickHealthy() {
+        int size = connections.size();
+        int start = Math.floorMod(nextConnection.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            WorkerConnection connection = connections.get((start + i) % size);
+            if (connection.isHealthy()) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    private void healthLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(HEALTH_CHECK_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            for (WorkerConnection connection : connections) {
+                if (!connection.connected) {
+                    connection.tryConnect();
+                } else if (System.nanoTime() - connection.lastPongNanos > TimeUnit.MILLISECONDS.toNanos(3 * HEALTH_CHECK_INTERVAL_MS)) {
+                    logger.warn("AI воркер {} не отвечает на ping", connection.address);
+                    connection.disconnect();
+                } else {
+                    connection.ping(nextRequestId.incrementAndGet());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        healthThread.interrupt();
+        for (WorkerConnection connection : connections) {
+            connection.disconnect();
+        }
+    }
+
+    private record OutboundFrame(byte type, int requestId, byte[] observation) {}
+
+    /**
+     * Одно соединение с воркером: поток записи собирает очередь в пачки, поток чтения разбирает ответы
+     */
+    private static class WorkerConnection {
+        private final SocketAddress address;
+        private final Map<Integer, CompletableFuture<Integer>> inFlight = new ConcurrentHashMap<>();
+        private final AtomicInteger consecutiveTimeouts = new AtomicInteger();
+
+        private volatile BlockingQueue<OutboundFrame> outbound = new LinkedBlockingQueue<>();
+        private volatile SocketChannel channel;
+        private volatile boolean connected;
+        private volatile long lastPongNanos;
+
+        WorkerConnection(SocketAddress address) {
+            this.address = address;
+        }
+
+        boolean isHealthy() {
+            return connected
+                && consecutiveTimeouts.get() < MAX_CONSECUTIVE_TIMEOUTS
+                && inFlight.size() < MAX_IN_FLIGHT;
+        }
+
+        synchronized void tryConnect() {
+            if (connected) {
+                return;
+            }
+
+            try {
+                SocketChannel newChannel = AIWorkerProtocol.connect(address);
+                BlockingQueue<OutboundFrame> queue = new LinkedBlockingQueue<>();
+
+                channel = newChannel;
+                outbound = queue;
+                lastPongNanos = System.nanoTime();
+                consecutiveTimeouts.set(0);
+                connected = true;
+
+                startThread("ai-worker-writer", () -> writeLoop(newChannel, queue));
+                startThread("ai-worker-reader", () -> readLoop(newChannel));
+                logger.info("Подключён AI воркер {}", address);
+            } catch (IOException e) {
+                logger.debug("AI воркер {} недоступен: {}", address, e.getMessage());
+            }
+        }
+
+        CompletableFuture<Integer> submit(int requestId, byte[] observation) {
+            CompletableFuture<Integer> future = new CompletableFuture<>();
+            inFlight.put(requestId, future);
+            if (!outbound.offer(new OutboundFrame(AIWorkerProtocol.MOVE_REQUEST, requestId, observation))) {
+                inFlight.remove(requestId);
+                return null;
+            }
+            return future;
+        }
+
+        void ping(int requestId) {
+            outbound.offer(new OutboundFrame(AIWorkerProtocol.PING, requestId, null));
+        }
+
+        void disconnect() {
+            disconnect(channel);
+        }
+
+        // Закрывает только то соединение, на котором произошла ошибка, а не уже переподключённое
+        private synchronized void disconnect(SocketChannel failed) {
+            if (!connected || channel != failed) {
+                return;
+            }
+            connected = false;
+
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Ошибка закрытия соединения с AI воркером: {}", e.getMessage());
+            }
+
+            IOException cause = new IOException("AI воркер " + address + " отключён");
+            inFlight.values().forEach(future -> future.completeExceptionally(cause));
+            inFlight.clear();
+        }
+
+        private void writeLoop(SocketChannel target, BlockingQueue<OutboundFrame> queue) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_BATCH * (AIWorkerProtocol.LENGTH_SIZE + AIWorkerProtocol.MAX_BODY_SIZE));
+            List<OutboundFrame> batch = new ArrayList<>(MAX_BATCH);
+
+            try {
+                while (target.isOpen()) {
+                    OutboundFrame first = queue.poll(HEALTH_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+
+                    for (OutboundFrame frame : batch) {
+                        if (frame.type() == AIWorkerProtocol.MOVE_REQUEST) {
+                            AIWorkerProtocol.writeMoveRequest(buffer, frame.requestId(), frame.observation());
+                        } else {
+                            AIWorkerProtocol.writeControl(buffer, frame.type(), frame.requestId());
+                        }
+                    }
+                    batch.clear();
+
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                logger.warn("Ошибка записи в AI воркер {}: {}", address, e.getMessage());
+                disconnect(target);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void readLoop(SocketChannel source) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+            try {
+                while (source.read(buffer) >= 0) {
+                    buffer.flip();
+                    while (buffer.remaining() >= AIWorkerProtocol.LENGTH_SIZE + AIWorkerProtocol.HEADER_SIZE) {
+                        int length = buffer.getInt(buffer.position());
+                        if (buffer.remaining() < AIWorkerProtocol.LENGTH_SIZE + length) {
+                            break;
+                        }
+
+                        buffer.getInt();
+                        byte type = buffer.get();
+                        int requestId = buffer.getInt();
+
+                        if (type == AIWorkerProtocol.MOVE_RESPONSE) {
+                            byte index = buffer.get();
+                            CompletableFuture<Integer> future = inFlight.remove(requestId);
+                            if (future != null) {
+                                future.complete((int) index);
+                            }
+                        } else {
+                            buffer.position(buffer.position() + length - AIWorkerProtocol.HEADER_SIZE);
+                        }
+                        lastPongNanos = System.nanoTime();
+                    }
+                    buffer.compact();
+                }
+            } catch (IOException e) {
+                logger.debug("Чтение из AI воркера {} прервано: {}", address, e.getMessage());
+            }
+
+            disconnect(source);
+        }
+
+        private static void startThread(String name, Runnable task) {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package com.battleship.server.game;
 
 import com.battleship.common.model.*;
+import com.battleship.common.protocol.BoardSnapshot;
 import com.battleship.common.rules.GameRules;
+import com.battleship.common.time.GameClock;
+import com.battleship.server.jfr.GameStartedEvent;
+import com.battleship.server.jfr.ShotFiredEvent;
+import com.battleship.server.journal.GameJournal;
+import com.battleship.server.journal.JournalEvent;
 import static com.battleship.common.model.ModelTypes.*;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Движок игровой логики
  */
@@ -14,10 +22,41 @@ public class GameEngine {
     private static final Logger logger = LoggerFactory.getLogger(GameEngine.class);
 
     private final GameState gameState;
+    private final GameClock clock;
+    private final long seed;
+    private final TurnClockPolicy.Limits limits;
+    private final GameJournal journal;
 
     public GameEngine(String gameId, String player1Id, String player2Id) {
-        this.gameState = new GameState(gameId, player1Id, player2Id);
-        logger.info("Создана игра {} между {} и {}", gameId, player1Id, player2Id);
+        this(gameId, player1Id, player2Id, GameClock.system(), ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * @param seed сид партии: от него считаются расстановка и ходы AI, по нему партию можно повторить
+     */
+    public GameEngine(String gameId, String player1Id, String player2Id, GameClock clock, long seed) {
+        this(gameId, player1Id, player2Id, clock, seed, TurnClockPolicy.DEFAULT_LIMITS);
+    }
+
+    /**
+     * @param limits сроки расстановки и хода; партию по истечении срока завершает TurnClocks
+     */
+    public GameEngine(String gameId, String player1Id, String player2Id, GameClock clock, long seed,
+                      TurnClockPolicy.Limits limits) {
+        this(gameId, player1Id, player2Id, clock, seed, limits, GameJournal.disabled());
+    }
+
+    /**
+     * @param journal получает каждое изменение партии под её монитором, поэтому события одной партии идут по порядку
+     */
+    public GameEngine(String gameId, String player1Id, String player2Id, GameClock clock, long seed,
+                      TurnClockPolicy.Limits limits, GameJournal journal) {
+        this.journal = journal;
+        this.gameState = new GameState(gameId, player1Id, player2Id, clock);
+        this.clock = clock;
+        this.seed = seed;
+        this.limits = limits;
+        logger.info("Создана игра {} между {} и {} (сид {})", gameId, player1Id, player2Id, seed);
     }
 
     public synchronized PlaceShipResult placeShip(String playerId, ShipType shipType,
@@ -40,6 +79,8 @@ public class GameEngine {
 
             if (board.placeShip(ship)) {
                 logger.debug("Игрок {} разместил корабль {}", playerId, shipType);
+                journal.append(new JournalEvent.ShipPlaced(clock.millis(), gameState.getGameId(),
+                    playerNumber(playerId), shipType, startX, startY, resolvedOrientation));
                 return new PlaceShipResult(true, "Корабль размещён");
             } else {
                 return new PlaceShipResult(false, "Невозможно разместить корабль в этой позиции");
@@ -54,7 +95,26 @@ public class GameEngine {
         return GameRules.validateShipPlacement(board);
     }
 
-    public synchronized boolean startGame() {
+    public boolean startGame() {
+        boolean started;
+        synchronized (this) {
+            started = tryStart();
+        }
+        if (!started) {
+            return false;
+        }
+
+        logger.info("Игра {} началась", gameState.getGameId());
+        GameStartedEvent event = new GameStartedEvent();
+        if (event.shouldCommit()) {
+            event.gameId = gameState.getGameId();
+            event.firstPlayerId = gameState.getCurrentTurnPlayerId();
+            event.commit();
+        }
+        return true;
+    }
+
+    private boolean tryStart() {
         if (gameState.getStatus() != GameStatus.SETUP) {
             return false;
         }
@@ -64,28 +124,53 @@ public class GameEngine {
 
         if (player1Ready && player2Ready) {
             gameState.setStatus(GameStatus.IN_PROGRESS);
-            logger.info("Игра {} началась", gameState.getGameId());
+            // Часы первого хода идут со старта, а не с создания партии
+            gameState.refreshTurnTimer();
+            journal.append(new JournalEvent.GameStarted(clock.millis(), gameState.getGameId(),
+                playerNumber(gameState.getCurrentTurnPlayerId())));
             return true;
         }
 
         return false;
     }
 
-    public synchronized FireResult fire(String shooterId, int x, int y) {
+    public FireResult fire(String shooterId, int x, int y) {
+        // Событие начинается до захвата монитора: длительность включает ожидание других потоков этой партии
+        ShotFiredEvent event = new ShotFiredEvent();
+        event.begin();
+        FireResult result;
+        synchronized (this) {
+            result = fireLocked(shooterId, x, y);
+        }
+        event.end();
+
+        // Логируем после выхода из монитора: второй игрок и поток AI не ждут записи лога
+        if (result.gameOver()) {
+            logger.info("Игра {} завершена, победитель: {}", gameState.getGameId(), shooterId);
+        }
+        if (event.shouldCommit()) {
+            event.gameId = gameState.getGameId();
+            event.shooterId = shooterId;
+            event.x = x;
+            event.y = y;
+            event.result = result.success() ? result.shotResult().type().name() : "REJECTED";
+            event.commit();
+        }
+        return result;
+    }
+
+    private FireResult fireLocked(String shooterId, int x, int y) {
         if (gameState.getStatus() != GameStatus.IN_PROGRESS) {
-            return new FireResult(false, null, "Игра не начата или уже завершена");
+            return new FireResult(false, null, false, "Игра не начата или уже завершена");
         }
 
         if (!gameState.isPlayerTurn(shooterId)) {
-            return new FireResult(false, null, "Сейчас не ваш ход");
+            return new FireResult(false, null, false, "Сейчас не ваш ход");
         }
 
-        long now = System.currentTimeMillis();
-        if (now - gameState.getLastTurnStartMillis() > 10 * 60 * 1000L) { // 10 минут
-            String opponent = gameState.getOpponentId(shooterId);
-            gameState.endGame(opponent);
-            logger.warn("Игра {} завершена по таймауту хода (>10 мин), победитель {}", gameState.getGameId(), opponent);
-            return new FireResult(false, null, "Ход превысил 10 минут, игра завершена");
+        // Партию завершит TurnClocks не позже чем через тик, до этого опоздавший выстрел не принимается
+        if (clock.millis() - gameState.getLastTurnStartMillis() > limits.turnMillis()) {
+            return new FireResult(false, null, false, "Время хода истекло");
         }
 
         try {
@@ -94,33 +179,150 @@ public class GameEngine {
             ShotResult shotResult = targetBoard.shoot(coord);
 
             boolean gameOver = targetBoard.allShipsSunk();
+            journal.append(new JournalEvent.ShotFired(clock.millis(), gameState.getGameId(),
+                playerNumber(shooterId), x, y, shotResult.type()));
 
             if (gameOver) {
                 gameState.endGame(shooterId);
-                logger.info("Игра {} завершена, победитель: {}", gameState.getGameId(), shooterId);
+                journalEnded(shooterId, JournalEvent.EndReason.FLEET_SUNK);
             } else if (shotResult.type() != ShotResultType.HIT && shotResult.type() != ShotResultType.SUNK) {
                 gameState.switchTurn();
             } else {
                 gameState.refreshTurnTimer();
             }
 
-            return new FireResult(true, shotResult, null);
+            return new FireResult(true, shotResult, gameOver, null);
         } catch (IllegalArgumentException e) {
-            return new FireResult(false, null, e.getMessage());
+            return new FireResult(false, null, false, e.getMessage());
         }
     }
 
-    public synchronized void surrender(String playerId) {
-        String opponentId = gameState.getOpponentId(playerId);
-        gameState.endGame(opponentId);
+    /**
+     * @return false, если партия уже завершена: её итог не меняется
+     */
+    public boolean surrender(String playerId) {
+        synchronized (this) {
+            if (gameState.getStatus() == GameStatus.FINISHED) {
+                return false;
+            }
+            gameState.endGame(gameState.getOpponentId(playerId));
+            journalEnded(gameState.getOpponentId(playerId), JournalEvent.EndReason.SURRENDER);
+        }
         logger.info("Игрок {} сдался в игре {}", playerId, gameState.getGameId());
+        return true;
+    }
+
+    /**
+     * Завершает партию без победителя, когда её освобождают не по правилам игры: отмена на расстановке
+     * или сверка. Так в журнале у каждой партии есть конец
+     *
+     * @return false, если партия уже завершена
+     */
+    public boolean abandon(JournalEvent.EndReason reason) {
+        synchronized (this) {
+            if (gameState.getStatus() == GameStatus.FINISHED) {
+                return false;
+            }
+            gameState.endGame(null);
+            journalEnded(null, reason);
+        }
+        logger.info("Игра {} прервана ({})", gameState.getGameId(), reason);
+        return true;
+    }
+
+    /**
+     * Сколько осталось до конца расстановки или текущего хода; отрицательное — срок прошёл
+     */
+    public synchronized long millisUntilDeadline() {
+        long limit = gameState.getStatus() == GameStatus.SETUP ? limits.setupMillis() : limits.turnMillis();
+        return gameState.getLastTurnStartMillis() + limit - clock.millis();
+    }
+
+    /**
+     * Завершает партию, если срок расстановки или хода истёк. Ход проигрывает тот, чья очередь;
+     * на расстановке побеждает игрок, успевший расставить флот, если он один, иначе победителя нет.
+     *
+     * @return что истекло; NONE, если срок не прошёл или партия уже завершена
+     */
+    public Expiry expireIfOverdue() {
+        Expiry expiry;
+        String winnerId;
+        synchronized (this) {
+            GameStatus status = gameState.getStatus();
+            if (status == GameStatus.FINISHED || millisUntilDeadline() > 0) {
+                return Expiry.NONE;
+            }
+
+            if (status == GameStatus.SETUP) {
+                boolean player1Ready = checkReady(gameState.getPlayer1Id());
+                boolean player2Ready = checkReady(gameState.getPlayer2Id());
+                winnerId = player1Ready == player2Ready ? null
+                    : player1Ready ? gameState.getPlayer1Id() : gameState.getPlayer2Id();
+                expiry = Expiry.SETUP;
+            } else {
+                winnerId = gameState.getOpponentId(gameState.getCurrentTurnPlayerId());
+                expiry = Expiry.TURN;
+            }
+            gameState.endGame(winnerId);
+            journalEnded(winnerId, expiry == Expiry.SETUP
+                ? JournalEvent.EndReason.SETUP_EXPIRED : JournalEvent.EndReason.TURN_EXPIRED);
+        }
+
+        logger.info("Игра {} завершена по часам ({}), победитель: {}", gameState.getGameId(), expiry, winnerId);
+        return expiry;
+    }
+
+    /**
+     * Снимок партии для игрока, вернувшегося по RESUME: согласован с выстрелами, идущими параллельно
+     */
+    public synchronized Snapshot snapshot(String playerId) {
+        return new Snapshot(
+            gameState.getStatus(),
+            gameState.getStatus() == GameStatus.IN_PROGRESS && gameState.isPlayerTurn(playerId),
+            BoardSnapshot.encode(gameState.getBoard(playerId), false),
+            BoardSnapshot.encode(gameState.getOpponentBoard(playerId), true));
+    }
+
+    /**
+     * Снимок партии для зрителя: корабли на обеих досках скрыты
+     */
+    public synchronized SpectatorSnapshot spectatorSnapshot() {
+        GameStatus status = gameState.getStatus();
+        return new SpectatorSnapshot(
+            status,
+            status == GameStatus.IN_PROGRESS ? gameState.getCurrentTurnPlayerId() : null,
+            BoardSnapshot.encode(gameState.getPlayer1Board(), true),
+            BoardSnapshot.encode(gameState.getPlayer2Board(), true));
+    }
+
+    private void journalEnded(String winnerId, JournalEvent.EndReason reason) {
+        journal.append(new JournalEvent.GameEnded(clock.millis(), gameState.getGameId(),
+            winnerId != null ? playerNumber(winnerId) : 0, reason));
+    }
+
+    // В журнале игрок — номер в партии: 1 или 2
+    private int playerNumber(String playerId) {
+        return playerId.equals(gameState.getPlayer1Id()) ? 1 : 2;
     }
 
     public GameState getGameState() {
         return gameState;
     }
 
+    public long getSeed() {
+        return seed;
+    }
+
+    public enum Expiry { NONE, SETUP, TURN }
+
     public record PlaceShipResult(boolean success, String message) {}
 
-    public record FireResult(boolean success, ShotResult shotResult, String errorMessage) {}
+    /**
+     * gameOver решается под монитором: партию завершил именно этот выстрел, а не сдача или часы после него
+     */
+    public record FireResult(boolean success, ShotResult shotResult, boolean gameOver, String errorMessage) {}
+
+    public record Snapshot(GameStatus status, boolean yourTurn, String ownBoard, String opponentBoard) {}
+
+    public record SpectatorSnapshot(GameStatus status, String turnPlayerId, String player1Board, String player2Board) {}
 }
@@ -0,0 +1,101 @@
+package com.battleship.server.game;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Идентификаторы и сиды партий сервера.
+ * Без мастер-сида всё как раньше: UUID.randomUUID и случайный сид у каждой партии.
+ * С мастер-сидом id игроков и игр выводятся из сида и порядкового номера, а сид партии N — из сида и N,
+ * поэтому расстановка AI и его выстрелы в партии N не зависят от того, как перемежались другие партии.
+ */
+public class SeedSource {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long PLAYER_STREAM = 1;
+    private static final long GAME_STREAM = 2;
+    private static final long AI_STREAM = 3;
+    private static final long SEED_STREAM = 4;
+    private static final long RESUME_STREAM = 5;
+
+    private final Long masterSeed;
+    private final AtomicLong players = new AtomicLong();
+    private final AtomicLong games = new AtomicLong();
+    private final AtomicLong aiPlayers = new AtomicLong();
+    private final AtomicLong resumeTokens = new AtomicLong();
+
+    private SeedSource(Long masterSeed) {
+        this.masterSeed = masterSeed;
+    }
+
+    public static SeedSource random() {
+        return new SeedSource(null);
+    }
+
+    public static SeedSource seeded(long masterSeed) {
+        return new SeedSource(masterSeed);
+    }
+
+    // -Dbattleship.seed=42 включает детерминированный режим
+    public static SeedSource fromSystemProperties() {
+        String seed = System.getProperty("battleship.seed");
+        return seed != null && !seed.isBlank() ? seeded(Long.parseLong(seed.trim())) : random();
+    }
+
+    public boolean isDeterministic() {
+        return masterSeed != null;
+    }
+
+    public Long getMasterSeed() {
+        return masterSeed;
+    }
+
+    public String nextPlayerId() {
+        return nextId(PLAYER_STREAM, players);
+    }
+
+    public String nextAIPlayerId() {
+        return "AI-" + nextId(AI_STREAM, aiPlayers);
+    }
+
+    /**
+     * Токен возврата в сессию. Обычно это UUID.randomUUID на SecureRandom; в детерминированном режиме
+     * токен выводится из сида и угадывается, поэтому этот режим только для тестовых стендов
+     */
+    public String nextResumeToken() {
+        return nextId(RESUME_STREAM, resumeTokens);
+    }
+
+    /**
+     * Id и сид новой партии. Номер партии общий для обоих, поэтому сид однозначно связан с id.
+     */
+    public GameSeed nextGame() {
+        if (masterSeed == null) {
+            return new GameSeed(UUID.randomUUID().toString(), ThreadLocalRandom.current().nextLong());
+        }
+        long n = games.incrementAndGet();
+        return new GameSeed(seededId(GAME_STREAM, n), mix(masterSeed + SEED_STREAM * GOLDEN_GAMMA + n));
+    }
+
+    private String nextId(long stream, AtomicLong counter) {
+        if (masterSeed == null) {
+            return UUID.randomUUID().toString();
+        }
+        return seededId(stream, counter.incrementAndGet());
+    }
+
+    private String seededId(long stream, long n) {
+        long high = mix(masterSeed + stream * GOLDEN_GAMMA + n);
+        long low = mix(high + GOLDEN_GAMMA);
+        return new UUID(high, low).toString();
+    }
+
+    // Финализатор SplitMix64: соседние номера дают несвязанные значения
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public record GameSeed(String gameId, long seed) {}
+}
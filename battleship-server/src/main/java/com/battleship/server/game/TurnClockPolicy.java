@@ -0,0 +1,53 @@
+package com.battleship.server.game;
+
+import com.battleship.common.protocol.GameMode;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Часы партии по режимам: сколько даётся на расстановку флота и на один ход.
+ * Задаются свойствами -Dbattleship.clock.&lt;MODE&gt;=расстановка:ход в секундах,
+ * например -Dbattleship.clock.BLITZ=30:10.
+ */
+public record TurnClockPolicy(Map<GameMode, Limits> limits) {
+    private static final String PREFIX = "battleship.clock.";
+
+    /** Прежний предел хода, который проверялся только в fire */
+    public static final Limits DEFAULT_LIMITS = new Limits(10 * 60 * 1000L, 10 * 60 * 1000L);
+
+    /**
+     * @param setupMillis от создания партии до старта
+     * @param turnMillis  на ход; попадание даёт ещё один ход и заново запускает часы
+     */
+    public record Limits(long setupMillis, long turnMillis) {
+        static Limits parse(String property, Limits defaultLimits) {
+            String value = System.getProperty(property);
+            if (value == null || value.isBlank()) {
+                return defaultLimits;
+            }
+            String[] parts = value.split(":");
+            try {
+                return new Limits(Long.parseLong(parts[0]) * 1000, Long.parseLong(parts[parts.length - 1]) * 1000);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("-D" + property + " должно быть расстановка:ход в секундах, получено "
+                    + value, e);
+            }
+        }
+    }
+
+    public Limits limitsFor(GameMode mode) {
+        return limits.getOrDefault(mode, DEFAULT_LIMITS);
+    }
+
+    public static TurnClockPolicy fromSystemProperties() {
+        Map<GameMode, Limits> defaults = new EnumMap<>(GameMode.class);
+        defaults.put(GameMode.PVP, DEFAULT_LIMITS);
+        defaults.put(GameMode.PVE, DEFAULT_LIMITS);
+        defaults.put(GameMode.BLITZ, new Limits(60_000, 15_000));
+
+        Map<GameMode, Limits> limits = new EnumMap<>(GameMode.class);
+        defaults.forEach((mode, value) -> limits.put(mode, Limits.parse(PREFIX + mode, value)));
+        return new TurnClockPolicy(limits);
+    }
+}
@@ -0,0 +1,133 @@
+package com.battleship.server.game;
+
+import com.battleship.common.model.ModelTypes.GameStatus;
+import com.battleship.server.logging.GameLogContext;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Часы всех идущих партий на одном HashedWheelTimer: у партии не больше одного таймаута в колесе.
+ * Ход таймер не трогает — GameEngine только сдвигает начало хода. Сработав, таймаут сверяет срок
+ * под монитором партии: если он сдвинулся, таймаут ставится заново на остаток, иначе партия
+ * завершается и вызывается слушатель. Поэтому постановка и отмена — O(1) и случаются раз за срок,
+ * а не на каждый выстрел, и 100 тысяч партий держат в колесе 100 тысяч таймаутов.
+ * Срок может только отодвигаться, кроме старта партии: ход короче расстановки, поэтому на старте
+ * таймаут переставляется.
+ * Слушатель вызывается в потоке таймера и должен быть коротким.
+ */
+public class TurnClocks {
+    private static final Logger logger = LoggerFactory.getLogger(TurnClocks.class);
+
+    private final TurnClockPolicy policy;
+    private final HashedWheelTimer timer;
+    private final Map<String, Timeout> pending = new ConcurrentHashMap<>();
+    private volatile ExpiryListener listener = (game, expiry) -> {};
+
+    /**
+     * @param tickMillis точность срабатывания; срок может быть превышен не больше чем на тик
+     */
+    public TurnClocks(TurnClockPolicy policy, long tickMillis) {
+        this.policy = policy;
+        this.timer = new HashedWheelTimer(new DefaultThreadFactory("turn-clocks", true), tickMillis,
+            TimeUnit.MILLISECONDS, 512);
+    }
+
+    public static TurnClocks fromSystemProperties() {
+        return new TurnClocks(TurnClockPolicy.fromSystemProperties(), Long.getLong("battleship.clock.tickMs", 100));
+    }
+
+    public TurnClockPolicy getPolicy() {
+        return policy;
+    }
+
+    public void setExpiryListener(ExpiryListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Запускает часы партии, созданной в MatchmakingService
+     */
+    public void track(GameEngine game) {
+        schedule(game, null);
+    }
+
+    /**
+     * Переставляет таймаут на срок первого хода
+     */
+    public void restart(GameEngine game) {
+        Timeout previous = pending.get(game.getGameState().getGameId());
+        if (previous != null && schedule(game, previous)) {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * Снимает часы удаляемой партии, чтобы колесо не держало её до срока
+     */
+    public void untrack(String gameId) {
+        Timeout timeout = pending.remove(gameId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    public int getTrackedCount() {
+        return pending.size();
+    }
+
+    public void stop() {
+        timer.stop();
+    }
+
+    private boolean schedule(GameEngine game, Timeout previous) {
+        String gameId = game.getGameState().getGameId();
+        long delay = Math.max(1, game.millisUntilDeadline());
+        Timeout timeout = timer.newTimeout(t -> onTimeout(game, t), delay, TimeUnit.MILLISECONDS);
+
+        // Партию могли удалить, пока таймаут срабатывал: тогда новый таймаут не нужен
+        boolean registered = previous == null
+            ? pending.putIfAbsent(gameId, timeout) == null
+            : pending.replace(gameId, previous, timeout);
+        if (!registered) {
+            timeout.cancel();
+        }
+        return registered;
+    }
+
+    private void onTimeout(GameEngine game, Timeout timeout) {
+        try (GameLogContext ignored = GameLogContext.open(game.getGameState().getGameId(), null)) {
+            onTimeoutInContext(game, timeout);
+        }
+    }
+
+    private void onTimeoutInContext(GameEngine game, Timeout timeout) {
+        GameEngine.Expiry expiry = game.expireIfOverdue();
+        if (expiry == GameEngine.Expiry.NONE) {
+            if (game.getGameState().getStatus() != GameStatus.FINISHED) {
+                schedule(game, timeout);
+            } else {
+                pending.remove(game.getGameState().getGameId(), timeout);
+            }
+            return;
+        }
+
+        pending.remove(game.getGameState().getGameId(), timeout);
+        try {
+            listener.onExpired(game, expiry);
+        } catch (RuntimeException e) {
+            logger.error("Ошибка при завершении партии {} по часам: {}", game.getGameState().getGameId(), e.getMessage(), e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface ExpiryListener {
+        void onExpired(GameEngine game, GameEngine.Expiry expiry);
+    }
+}
@@ -0,0 +1,218 @@
+package com.battleship.server.handler;
+
+import com.battleship.server.jfr.JfrRecordingService;
+import com.battleship.server.lifecycle.GameLifecycleManager;
+import com.battleship.server.stats.ServerMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Служебные HTTP запросы на том же порту, что и WebSocket.
+ * GET /stats отдаёт JSON с числом сессий, активных игр, AI игроков, очередью PvP и занятой кучей;
+ * с параметром gc=true перед замером кучи выполняется сборка мусора — как и команды /admin, только локально.
+ * GET /metrics отдаёт ServerMetrics в текстовом формате Prometheus.
+ * POST /admin/jfr/start?durationSec=N начинает запись JFR, POST /admin/jfr/stop останавливает её и возвращает путь файла.
+ * Команды JFR выполняются в отдельном потоке: запись файла на диск не задерживает партии на event loop.
+ * Команды /admin принимаются только с loopback адреса, если не задан -Dbattleship.admin.allowRemote=true.
+ * Остальные запросы уходят дальше по pipeline к WebSocket handshake.
+ */
+@ChannelHandler.Sharable
+public class AdminHttpHandler extends ChannelInboundHandlerAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(AdminHttpHandler.class);
+
+    private static final String STATS_PATH = "/stats";
+    private static final String METRICS_PATH = "/metrics";
+    private static final String JFR_START_PATH = "/admin/jfr/start";
+    private static final String JFR_STOP_PATH = "/admin/jfr/stop";
+    private static final long DEFAULT_JFR_DURATION_SEC = 300;
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final GameLifecycleManager lifecycle;
+    private final ServerMetrics metrics;
+    private final JfrRecordingService jfrRecordingService;
+    private final boolean allowRemoteAdmin = Boolean.getBoolean("battleship.admin.allowRemote");
+    private final ExecutorService jfrExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "admin-jfr");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AdminHttpHandler(GameLifecycleManager lifecycle, ServerMetrics metrics,
+                            JfrRecordingService jfrRecordingService) {
+        this.lifecycle = lifecycle;
+        this.metrics = metrics;
+        this.jfrRecordingService = jfrRecordingService;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof FullHttpRequest request)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        QueryStringDecoder query = new QueryStringDecoder(request.uri());
+        if (request.method().equals(HttpMethod.POST)) {
+            handleAdminCommand(ctx, request, query);
+            return;
+        }
+        if (!request.method().equals(HttpMethod.GET)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        switch (query.path()) {
+            case STATS_PATH -> {
+                try {
+                    // Полная сборка останавливает сервер: с чужого адреса параметр игнорируется
+                    boolean gc = query.parameters().getOrDefault("gc", List.of()).contains("true")
+                        && (allowRemoteAdmin || isLoopback(ctx));
+                    sendJson(ctx, request, HttpResponseStatus.OK, stats(gc));
+                } finally {
+                    request.release();
+                }
+            }
+            case METRICS_PATH -> {
+                try {
+                    send(ctx, request, HttpResponseStatus.OK,
+                        metrics.renderPrometheus().getBytes(StandardCharsets.UTF_8), PROMETHEUS_CONTENT_TYPE);
+                } finally {
+                    request.release();
+                }
+            }
+            default -> ctx.fireChannelRead(msg);
+        }
+    }
+
+    private void handleAdminCommand(ChannelHandlerContext ctx, FullHttpRequest request, QueryStringDecoder query) {
+        if (!query.path().equals(JFR_START_PATH) && !query.path().equals(JFR_STOP_PATH)) {
+            ctx.fireChannelRead(request);
+            return;
+        }
+
+        if (!allowRemoteAdmin && !isLoopback(ctx)) {
+            try {
+                logger.warn("Команда {} отклонена: запрос не с loopback адреса {}", query.path(), ctx.channel().remoteAddress());
+                sendJson(ctx, request, HttpResponseStatus.FORBIDDEN, Map.of("error", "Команды /admin доступны только локально"));
+            } finally {
+                request.release();
+            }
+            return;
+        }
+
+        // Ответ пишется из потока команды: Netty сам передаёт запись в event loop канала
+        jfrExecutor.execute(() -> {
+            try {
+                AdminResponse response = jfrCommand(query);
+                sendJson(ctx, request, response.status(), response.body());
+            } finally {
+                request.release();
+            }
+        });
+    }
+
+    private AdminResponse jfrCommand(QueryStringDecoder query) {
+        try {
+            Map<String, Object> body = new LinkedHashMap<>();
+            if (query.path().equals(JFR_START_PATH)) {
+                long durationSec = query.parameters().getOrDefault("durationSec", List.of()).stream()
+                    .findFirst().map(Long::parseLong).orElse(DEFAULT_JFR_DURATION_SEC);
+                var info = jfrRecordingService.start(Duration.ofSeconds(durationSec));
+                body.put("file", info.file().toString());
+                body.put("durationSec", info.maxDuration().toSeconds());
+            } else {
+                body.put("file", jfrRecordingService.stop().toString());
+            }
+            return new AdminResponse(HttpResponseStatus.OK, body);
+        } catch (NumberFormatException e) {
+            return new AdminResponse(HttpResponseStatus.BAD_REQUEST, Map.of("error", "durationSec должен быть числом"));
+        } catch (IllegalStateException e) {
+            return new AdminResponse(HttpResponseStatus.CONFLICT, Map.of("error", e.getMessage()));
+        } catch (IOException | RuntimeException e) {
+            logger.error("Ошибка команды {}: {}", query.path(), e.getMessage());
+            return new AdminResponse(HttpResponseStatus.INTERNAL_SERVER_ERROR, Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    private static boolean isLoopback(ChannelHandlerContext ctx) {
+        return ctx.channel().remoteAddress() instanceof InetSocketAddress address
+            && address.getAddress() != null && address.getAddress().isLoopbackAddress();
+    }
+
+    private Map<String, Object> stats(boolean gc) {
+        if (gc) {
+            System.gc();
+        }
+
+        GameLifecycleManager.LiveCounts counts = lifecycle.liveCounts();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", counts.sessions());
+        stats.put("activeGames", counts.activeGames());
+        stats.put("aiPlayers", counts.aiPlayers());
+        stats.put("turnClocks", counts.turnClocks());
+        stats.put("pvpQueue", counts.pvpQueue());
+        stats.put("blitzQueue", counts.blitzQueue());
+        stats.put("heapUsedBytes", memory.getHeapMemoryUsage().getUsed());
+        stats.put("heapCommittedBytes", memory.getHeapMemoryUsage().getCommitted());
+        return stats;
+    }
+
+    private record AdminResponse(HttpResponseStatus status, Map<String, Object> body) {}
+
+    private void sendJson(ChannelHandlerContext ctx, FullHttpRequest request, HttpResponseStatus status, Object body) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (Exception e) {
+            logger.error("Ошибка формирования ответа {}: {}", request.uri(), e.getMessage());
+            json = new byte[0];
+        }
+        send(ctx, request, status, json, "application/json; charset=UTF-8");
+    }
+
+    private void send(ChannelHandlerContext ctx, FullHttpRequest request, HttpResponseStatus status,
+                      byte[] body, String contentType) {
+        FullHttpResponse response = new DefaultFullHttpResponse(
+            HttpVersion.HTTP_1_1, status, Unpooled.wrappedBuffer(body));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        HttpUtil.setContentLength(response, body.length);
+
+        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        if (keepAlive) {
+            response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+            ctx.writeAndFlush(response);
+        } else {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+}
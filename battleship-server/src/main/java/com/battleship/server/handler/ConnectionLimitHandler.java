@@ -0,0 +1,113 @@
+package com.battleship.server.handler;
+
+import com.battleship.server.ratelimit.RateLimitPolicy;
+import com.battleship.server.ratelimit.TokenBucket;
+import com.battleship.server.stats.ServerMetrics;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.AttributeKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Лимит подключений с одного IP: не больше maxConnectionsPerIp одновременно и не чаще бюджета
+ * connectionsPerIp. Лишнее соединение закрывается сразу после accept, до HTTP и WebSocket.
+ * Loopback по умолчанию не ограничивается: нагрузочные тесты запускаются с той же машины.
+ * Запись IP удаляется, когда у него нет соединений и ведро снова полное: при закрытии последнего соединения
+ * или при очистке, которая раз в SWEEP_INTERVAL проходит по всем IP во время очередного accept.
+ */
+@ChannelHandler.Sharable
+public class ConnectionLimitHandler extends ChannelInboundHandlerAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionLimitHandler.class);
+
+    private static final AttributeKey<InetAddress> COUNTED_ADDRESS = AttributeKey.valueOf("battleship.countedAddress");
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final RateLimitPolicy policy;
+    private final ServerMetrics metrics;
+    private final Map<InetAddress, IpState> states = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+
+    private static final class IpState {
+        final TokenBucket connects;
+        int connections;
+
+        IpState(TokenBucket connects) {
+            this.connects = connects;
+        }
+    }
+
+    public ConnectionLimitHandler(RateLimitPolicy policy, ServerMetrics metrics) {
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) {
+        if (!(ctx.channel().remoteAddress() instanceof InetSocketAddress socketAddress)
+                || socketAddress.getAddress() == null
+                || (policy.exemptLoopback() && socketAddress.getAddress().isLoopbackAddress())) {
+            ctx.fireChannelActive();
+            return;
+        }
+
+        InetAddress address = socketAddress.getAddress();
+        long now = System.nanoTime();
+        sweepIfDue(now);
+
+        boolean[] accepted = new boolean[1];
+        states.compute(address, (key, state) -> {
+            if (state == null) {
+                state = new IpState(policy.connectionsPerIp().newBucket(now));
+            }
+            if (state.connections < policy.maxConnectionsPerIp() && state.connects.tryAcquire(now) == 0) {
+                state.connections++;
+                accepted[0] = true;
+            }
+            return state;
+        });
+
+        if (!accepted[0]) {
+            logger.warn("Подключение с {} отклонено: превышен лимит подключений с IP", address.getHostAddress());
+            metrics.recordConnectionRejected();
+            ctx.close();
+            return;
+        }
+
+        ctx.channel().attr(COUNTED_ADDRESS).set(address);
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        InetAddress address = ctx.channel().attr(COUNTED_ADDRESS).getAndSet(null);
+        if (address != null) {
+            long now = System.nanoTime();
+            states.computeIfPresent(address, (key, state) -> {
+                state.connections--;
+                return state.connections == 0 && state.connects.isFull(now) ? null : state;
+            });
+        }
+        ctx.fireChannelInactive();
+    }
+
+    // Убирает IP, соединения с которых отклонялись или закрылись, пока ведро ещё пополнялось
+    private void sweepIfDue(long now) {
+        long last = lastSweepNanos.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweepNanos.compareAndSet(last, now)) {
+            return;
+        }
+        for (InetAddress address : states.keySet()) {
+            states.computeIfPresent(address, (key, state) ->
+                state.connections == 0 && state.connects.isFull(now) ? null : state);
+        }
+    }
+}
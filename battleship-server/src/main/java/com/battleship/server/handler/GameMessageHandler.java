@@ -1,11 +1,24 @@
 package com.battleship.server.handler;
 
+import com.battleship.common.protocol.MessageType;
 import com.battleship.common.protocol.Messages;
 import com.battleship.server.ai.AIService;
+import com.battleship.server.ai.AITurnScheduler;
 import com.battleship.server.game.GameEngine;
+import com.battleship.server.jfr.AIMoveEvent;
+import com.battleship.server.jfr.ShipPlacementEvent;
+import com.battleship.server.journal.JournalEvent;
+import com.battleship.server.lifecycle.GameLifecycleManager;
+import com.battleship.server.load.LoadShedder;
+import com.battleship.server.logging.GameLogContext;
+import com.battleship.server.lobby.LobbyService;
+import com.battleship.server.logging.LogSampler;
 import com.battleship.server.matchmaking.MatchmakingService;
 import com.battleship.server.session.PlayerSession;
 import com.battleship.server.session.SessionManager;
+import com.battleship.server.spectate.SpectatorHub;
+import com.battleship.server.stats.HeatmapAggregator;
+import com.battleship.server.stats.ServerMetrics;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
@@ -14,61 +27,226 @@ import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Handler для обработки игровых сообщений
  */
 public class GameMessageHandler extends SimpleChannelInboundHandler<TextWebSocketFrame> {
     private static final Logger logger = LoggerFactory.getLogger(GameMessageHandler.class);
+    private static final LogSampler SHOT_LOG_SAMPLER = LogSampler.fromSystemProperty("battleship.log.shotsPerSec", 20);
     private static final String SERVER_VERSION = "1.0.0";
 
     private final ObjectMapper objectMapper;
     private final SessionManager sessionManager;
     private final MatchmakingService matchmakingService;
     private final AIService aiService;
-
-    public GameMessageHandler(SessionManager sessionManager, MatchmakingService matchmakingService, AIService aiService) {
+    private final AITurnScheduler aiTurnScheduler;
+    private final ServerMetrics metrics;
+    private final LoadShedder loadShedder;
+    private final GameLifecycleManager lifecycle;
+    private final LobbyService lobby;
+    private final GameNotifier notifier;
+
+    public GameMessageHandler(SessionManager sessionManager, MatchmakingService matchmakingService,
+                              AIService aiService, HeatmapAggregator heatmapAggregator,
+                              AITurnScheduler aiTurnScheduler, ServerMetrics metrics, LoadShedder loadShedder,
+                              GameLifecycleManager lifecycle, LobbyService lobby) {
         this.objectMapper = new ObjectMapper();
         this.sessionManager = sessionManager;
         this.matchmakingService = matchmakingService;
         this.aiService = aiService;
+        this.aiTurnScheduler = aiTurnScheduler;
+        this.metrics = metrics;
+        this.loadShedder = loadShedder;
+        this.lifecycle = lifecycle;
+        this.lobby = lobby;
+        this.notifier = new GameNotifier(sessionManager, lifecycle, heatmapAggregator, metrics);
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, TextWebSocketFrame frame) {
         String json = frame.text();
         Channel channel = ctx.channel();
+        long start = System.nanoTime();
 
+        Messages.Message message;
         try {
-            Messages.Message message = objectMapper.readValue(json, Messages.Message.class);
-            handleMessage(channel, message);
+            message = objectMapper.readValue(json, Messages.Message.class);
+        } catch (Exception e) {
+            metrics.recordMalformed();
+            logger.error("Ошибка разбора сообщения: {}", e.getMessage());
+            sendError(channel, null, 400, "Неверный формат сообщения: " + e.getMessage());
+            return;
+        }
+
+        // Сессия выбирается по handle сообщения: на одном соединении их может быть много
+        PlayerSession session = sessionManager.getSession(channel, message.getHandle()).orElse(null);
+        try (GameLogContext ignored = session != null
+                ? GameLogContext.open(session.getCurrentGameId(), session.getPlayerId())
+                : GameLogContext.open(null, null)) {
+            if (loadShedder.isShedding() && startsNewWork(message.getType())) {
+                metrics.recordShed(message.getType());
+                sendError(channel, message.getHandle(), 503, "Сервер перегружен, повторите позже",
+                    loadShedder.getRetryAfterMs());
+            } else {
+                handleMessage(channel, message);
+            }
         } catch (Exception e) {
             logger.error("Ошибка обработки сообщения: {}", e.getMessage());
-            sendError(channel, 400, "Неверный формат сообщения: " + e.getMessage());
+            sendError(channel, message.getHandle(), 400, "Неверный формат сообщения: " + e.getMessage());
+        } finally {
+            // И при ошибке: иначе счётчики и гистограммы по типам не видят именно сбойные сообщения
+            metrics.recordReceived(message.getType(), System.nanoTime() - start);
         }
     }
 
+    // При перегрузке отклоняются только новые сессии и игры, ходы в идущих партиях обрабатываются
+    private static boolean startsNewWork(MessageType type) {
+        return type == MessageType.CONNECT || type == MessageType.FIND_GAME || type == MessageType.SPECTATE
+            || type == MessageType.LOBBY_SUBSCRIBE;
+    }
+
     private void handleMessage(Channel channel, Messages.Message message) {
         switch (message.getType()) {
             case CONNECT -> handleConnect(channel, (Messages.Connect) message);
             case FIND_GAME -> handleFindGame(channel, (Messages.FindGame) message);
             case PLACE_SHIP -> handlePlaceShip(channel, (Messages.PlaceShip) message);
-            case READY -> handleReady(channel);
+            case READY -> handleReady(channel, message);
             case FIRE -> handleFire(channel, (Messages.Fire) message);
-            case SURRENDER -> handleSurrender(channel);
-            default -> sendError(channel, 400, "Неизвестный тип сообщения");
+            case SURRENDER -> handleSurrender(channel, message);
+            case RESUME -> handleResume(channel, (Messages.Resume) message);
+            case SPECTATE -> handleSpectate(channel, (Messages.Spectate) message);
+            case LOBBY_SUBSCRIBE -> handleLobbySubscribe(channel, message);
+            case LOBBY_UNSUBSCRIBE -> handleLobbyUnsubscribe(channel, message);
+            default -> sendError(channel, message.getHandle(), 400, "Неизвестный тип сообщения");
         }
     }
 
     private void handleConnect(Channel channel, Messages.Connect msg) {
-        PlayerSession session = sessionManager.createSession(msg.getPlayerName(), channel);
-        Messages.Connected response = new Messages.Connected(session.getPlayerId(), SERVER_VERSION);
-        sendMessage(channel, response);
+        if (msg.getHandle() != null) {
+            // Сессия с handle не возобновляется: она живёт, пока живо соединение
+            sessionManager.createHandleSession(msg.getPlayerName(), channel, msg.getHandle()).ifPresentOrElse(
+                session -> sendMessage(session, new Messages.Connected(session.getPlayerId(), SERVER_VERSION)),
+                () -> sendError(channel, msg.getHandle(), 503, "Слишком много сессий на соединении")
+            );
+            return;
+        }
+
+        // Повторный CONNECT на том же канале (клиент повторяет его, пока не получит ответ) не создаёт новую сессию
+        PlayerSession session = sessionManager.getSessionByChannel(channel)
+            .orElseGet(() -> sessionManager.createSession(msg.getPlayerName(), channel));
+        String resumeToken = lifecycle.getResumeGraceMillis() > 0 ? session.getResumeToken() : null;
+        Messages.Connected response = new Messages.Connected(session.getPlayerId(), SERVER_VERSION, resumeToken);
+        sendMessage(session, response);
+    }
+
+    private void handleResume(Channel channel, Messages.Resume msg) {
+        if (msg.getHandle() != null) {
+            sendError(channel, msg.getHandle(), 400, "Возобновить можно только основную сессию соединения");
+            return;
+        }
+        if (sessionManager.getSessionByChannel(channel).isPresent()) {
+            sendError(channel, null, 409, "Соединение уже привязано к сессии");
+            return;
+        }
+        lifecycle.resumeSession(msg.getResumeToken(), channel).ifPresentOrElse(
+            session -> sendMessage(session, resumed(session)),
+            () -> sendError(channel, null, 404, "Сессия не найдена или время на возврат истекло")
+        );
+    }
+
+    // Снимок партии, в которой игрок остался; без полей партии, если она завершилась, пока его не было
+    private Messages.Resumed resumed(PlayerSession session) {
+        String gameId = session.getCurrentGameId();
+        GameEngine game = gameId != null ? matchmakingService.getGame(gameId) : null;
+        if (game == null) {
+            return new Messages.Resumed(session.getPlayerId());
+        }
+
+        var snapshot = game.snapshot(session.getPlayerId());
+        if (snapshot.status() == com.battleship.common.model.ModelTypes.GameStatus.FINISHED) {
+            return new Messages.Resumed(session.getPlayerId());
+        }
+        String opponentName = notifier.playerName(game.getGameState().getOpponentId(session.getPlayerId()));
+        return new Messages.Resumed(session.getPlayerId(), gameId, opponentName, snapshot.status().name(),
+            snapshot.yourTurn(), snapshot.ownBoard(), snapshot.opponentBoard());
+    }
+
+    private void handleSpectate(Channel channel, Messages.Spectate msg) {
+        if (rejectHandle(channel, msg)) {
+            return;
+        }
+        sessionManager.getSession(channel, msg.getHandle()).ifPresentOrElse(
+            session -> {
+                if (session.isInGame()) {
+                    sendError(session, 400, "Нельзя смотреть чужую партию во время своей");
+                    return;
+                }
+
+                String gameId = msg.getGameId();
+                GameEngine game = gameId != null ? matchmakingService.getGame(gameId) : null;
+                if (game == null) {
+                    sendError(session, 404, "Игра не найдена");
+                    return;
+                }
+
+                SpectatorHub spectators = lifecycle.getSpectators();
+                if (!spectators.join(gameId, channel)) {
+                    sendError(session, 503, "У партии слишком много зрителей");
+                    return;
+                }
+                // Партию могли освободить между проверкой и входом: группа без партии не должна остаться
+                if (matchmakingService.getGame(gameId) == null) {
+                    spectators.closeGame(gameId);
+                    sendError(session, 404, "Игра не найдена");
+                    return;
+                }
+
+                // Событие, разосланное между входом и снимком, может повториться в снимке — выстрел идемпотентен
+                var state = game.getGameState();
+                var snapshot = game.spectatorSnapshot();
+                sendMessage(session, new Messages.Spectating(gameId,
+                    notifier.playerName(state.getPlayer1Id()), notifier.playerName(state.getPlayer2Id()),
+                    snapshot.status().name(),
+                    snapshot.turnPlayerId() != null ? notifier.playerName(snapshot.turnPlayerId()) : null,
+                    snapshot.player1Board(), snapshot.player2Board(), spectators.getViewerCount(gameId)));
+            },
+            () -> sendError(channel, msg.getHandle(), 401, "Сессия не найдена")
+        );
+    }
+
+    private void handleLobbySubscribe(Channel channel, Messages.Message msg) {
+        if (rejectHandle(channel, msg)) {
+            return;
+        }
+        if (sessionManager.getSession(channel, msg.getHandle()).isEmpty()) {
+            sendError(channel, msg.getHandle(), 401, "Сессия не найдена");
+            return;
+        }
+        lobby.subscribe(channel);
+    }
+
+    private void handleLobbyUnsubscribe(Channel channel, Messages.Message msg) {
+        if (rejectHandle(channel, msg)) {
+            return;
+        }
+        lobby.unsubscribe(channel);
+    }
+
+    // Зрители и лобби подписывают соединение целиком, а не сессию с handle: их кадры идут без handle
+    private boolean rejectHandle(Channel channel, Messages.Message msg) {
+        if (msg.getHandle() == null) {
+            return false;
+        }
+        sendError(channel, msg.getHandle(), 400, "Зрители и лобби доступны только основной сессии соединения");
+        return true;
     }
 
     private void handleFindGame(Channel channel, Messages.FindGame msg) {
-        sessionManager.getSessionByChannel(channel).ifPresentOrElse(
+        sessionManager.getSession(channel, msg.getHandle()).ifPresentOrElse(
             session -> {
-                var result = matchmakingService.findGame(session, msg.getGameMode());
+                var result = lifecycle.findGame(session, msg.getGameMode());
 
                 if (result.found()) {
                     String opponentName = result.opponent() != null ?
@@ -78,113 +256,134 @@ public class GameMessageHandler extends SimpleChannelInboundHandler<TextWebSocke
                         result.game().getGameState().getGameId(),
                         opponentName
                     );
-                    sendMessage(channel, response);
+                    sendMessage(session, response);
 
                     if (result.opponent() != null) {
                         Messages.GameFound opponentMsg = new Messages.GameFound(
                             result.game().getGameState().getGameId(),
                             session.getPlayerName()
                         );
-                        sendMessage(result.opponent().getChannel(), opponentMsg);
-                    } else {
-                        String aiPlayerId = result.game().getGameState().getPlayer2Id();
-                        aiService.createAIPlayer(aiPlayerId, result.game());
+                        sendMessage(result.opponent(), opponentMsg);
                     }
                 }
             },
-            () -> sendError(channel, 401, "Сессия не найдена")
+            () -> sendError(channel, msg.getHandle(), 401, "Сессия не найдена")
         );
     }
 
     private void handlePlaceShip(Channel channel, Messages.PlaceShip msg) {
-        sessionManager.getSessionByChannel(channel).ifPresentOrElse(
+        sessionManager.getSession(channel, msg.getHandle()).ifPresentOrElse(
             session -> {
                 if (!session.isInGame()) {
-                    sendError(channel, 400, "Вы не в игре");
+                    sendError(session, 400, "Вы не в игре");
                     return;
                 }
 
                 GameEngine game = matchmakingService.getGame(session.getCurrentGameId());
                 if (game == null) {
-                    sendError(channel, 404, "Игра не найдена");
+                    sendError(session, 404, "Игра не найдена");
                     return;
                 }
 
+                ShipPlacementEvent event = new ShipPlacementEvent();
+                event.begin();
                 var result = game.placeShip(session.getPlayerId(), msg.getShipType(),
                                            msg.getStartX(), msg.getStartY(), msg.getOrientation());
+                event.end();
+                if (event.shouldCommit()) {
+                    event.gameId = session.getCurrentGameId();
+                    event.playerId = session.getPlayerId();
+                    event.ships = 1;
+                    event.success = result.success();
+                    event.commit();
+                }
 
                 Messages.ShipPlaced response = new Messages.ShipPlaced(
                     result.success(),
                     result.message()
                 );
-                sendMessage(channel, response);
+                sendMessage(session, response);
             },
-            () -> sendError(channel, 401, "Сессия не найдена")
+            () -> sendError(channel, msg.getHandle(), 401, "Сессия не найдена")
         );
     }
 
-    private void handleReady(Channel channel) {
-        sessionManager.getSessionByChannel(channel).ifPresentOrElse(
+    private void handleReady(Channel channel, Messages.Message msg) {
+        sessionManager.getSession(channel, msg.getHandle()).ifPresentOrElse(
             session -> {
                 if (!session.isInGame()) {
-                    sendError(channel, 400, "Вы не в игре");
+                    sendError(session, 400, "Вы не в игре");
                     return;
                 }
 
                 GameEngine game = matchmakingService.getGame(session.getCurrentGameId());
                 if (game == null) {
-                    sendError(channel, 404, "Игра не найдена");
+                    sendError(session, 404, "Игра не найдена");
                     return;
                 }
 
                 if (!game.checkReady(session.getPlayerId())) {
-                    sendError(channel, 400, "Не все корабли расставлены");
+                    sendError(session, 400, "Не все корабли расставлены");
                     return;
                 }
 
                 if (game.startGame()) {
+                    matchmakingService.gameStarted(game);
                     var state = game.getGameState();
                     boolean player1Turn = state.getCurrentTurnPlayerId().equals(state.getPlayer1Id());
 
                     sessionManager.getSession(state.getPlayer1Id()).ifPresent(p1 -> {
-                        sendMessage(p1.getChannel(), new Messages.GameStart(player1Turn));
+                        sendMessage(p1, new Messages.GameStart(player1Turn));
                     });
 
                     sessionManager.getSession(state.getPlayer2Id()).ifPresent(p2 -> {
-                        sendMessage(p2.getChannel(), new Messages.GameStart(!player1Turn));
+                        sendMessage(p2, new Messages.GameStart(!player1Turn));
                     });
 
                     processAITurnIfNeeded(game);
                 }
             },
-            () -> sendError(channel, 401, "Сессия не найдена")
+            () -> sendError(channel, msg.getHandle(), 401, "Сессия не найдена")
         );
     }
 
     private void handleFire(Channel channel, Messages.Fire msg) {
-        sessionManager.getSessionByChannel(channel).ifPresentOrElse(
+        sessionManager.getSession(channel, msg.getHandle()).ifPresentOrElse(
             session -> {
                 if (!session.isInGame()) {
-                    sendError(channel, 400, "Вы не в игре");
+                    sendError(session, 400, "Вы не в игре");
                     return;
                 }
 
                 GameEngine game = matchmakingService.getGame(session.getCurrentGameId());
                 if (game == null) {
-                    sendError(channel, 404, "Игра не найдена");
+                    sendError(session, 404, "Игра не найдена");
                     return;
                 }
 
                 var fireResult = game.fire(session.getPlayerId(), msg.getX(), msg.getY());
 
                 if (!fireResult.success()) {
-                    sendError(channel, 400, fireResult.errorMessage());
+                    // Опоздавший выстрел завершает партию сам: без TurnClocks её больше некому завершить
+                    GameEngine.Expiry expiry = game.expireIfOverdue();
+                    if (expiry != GameEngine.Expiry.NONE) {
+                        boolean setup = expiry == GameEngine.Expiry.SETUP;
+                        metrics.recordClockExpired(setup);
+                        notifier.sendGameOver(game, setup ? "Время на расстановку истекло" : "Время хода истекло");
+                        return;
+                    }
+                    sendError(session, 400, fireResult.errorMessage());
                     return;
                 }
 
                 var shotResult = fireResult.shotResult();
                 var state = game.getGameState();
 
+                if (logger.isDebugEnabled() && SHOT_LOG_SAMPLER.tryAcquire()) {
+                    logger.debug("Выстрел в {}{}: {} (пропущено записей: {})", (char) ('A' + msg.getX()), msg.getY(),
+                        shotResult.type(), SHOT_LOG_SAMPLER.drainSuppressed());
+                }
+
                 Messages.ShotResult shotMsg = new Messages.ShotResult(
                     session.getPlayerName(),
                     msg.getX(), msg.getY(),
@@ -193,7 +392,7 @@ public class GameMessageHandler extends SimpleChannelInboundHandler<TextWebSocke
                     state.isPlayerTurn(session.getPlayerId())
                 );
 
-                sendMessage(channel, shotMsg);
+                sendMessage(session, shotMsg);
 
                 String opponentId = state.getOpponentId(session.getPlayerId());
                 sessionManager.getSession(opponentId).ifPresent(opponent -> {
@@ -204,37 +403,48 @@ public class GameMessageHandler extends SimpleChannelInboundHandler<TextWebSocke
                         shotResult.ship() != null ? shotResult.ship().getType() : null,
                         state.isPlayerTurn(opponentId)
                     );
-                    sendMessage(opponent.getChannel(), opponentMsg);
+                    sendMessage(opponent, opponentMsg);
                 });
+                lifecycle.getSpectators().publish(state.getGameId(), new Messages.ShotResult(
+                    session.getPlayerName(),
+                    msg.getX(), msg.getY(),
+                    shotResult.type(),
+                    shotResult.ship() != null ? shotResult.ship().getType() : null,
+                    false
+                ));
 
-                if (state.getStatus() == com.battleship.common.model.ModelTypes.GameStatus.FINISHED) {
+                // Итог партии рассылает тот, кто её завершил: сдача или отключение соперника рассылают свой
+                if (fireResult.gameOver()) {
                     sendGameOver(game);
-                } else {
+                } else if (state.getStatus() != com.battleship.common.model.ModelTypes.GameStatus.FINISHED) {
                     processAITurnIfNeeded(game);
                 }
             },
-            () -> sendError(channel, 401, "Сессия не найдена")
+            () -> sendError(channel, msg.getHandle(), 401, "Сессия не найдена")
         );
     }
 
-    private void handleSurrender(Channel channel) {
-        sessionManager.getSessionByChannel(channel).ifPresentOrElse(
+    private void handleSurrender(Channel channel, Messages.Message msg) {
+        sessionManager.getSession(channel, msg.getHandle()).ifPresentOrElse(
             session -> {
                 if (!session.isInGame()) {
-                    sendError(channel, 400, "Вы не в игре");
+                    sendError(session, 400, "Вы не в игре");
                     return;
                 }
 
                 GameEngine game = matchmakingService.getGame(session.getCurrentGameId());
                 if (game == null) {
-                    sendError(channel, 404, "Игра не найдена");
+                    sendError(session, 404, "Игра не найдена");
                     return;
                 }
 
-                game.surrender(session.getPlayerId());
+                if (!game.surrender(session.getPlayerId())) {
+                    sendError(session, 400, "Игра уже завершена");
+                    return;
+                }
                 sendGameOver(game);
             },
-            () -> sendError(channel, 401, "Сессия не найдена")
+            () -> sendError(channel, msg.getHandle(), 401, "Сессия не найдена")
         );
     }
 
@@ -246,19 +456,32 @@ public class GameMessageHandler extends SimpleChannelInboundHandler<TextWebSocke
             return;
         }
 
-        new Thread(() -> {
-            try {
-                Thread.sleep(500);
-                executeAITurn(game, state, currentPlayer);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                logger.error("AI turn interrupted", e);
-            }
-        }).start();
+        aiTurnScheduler.schedule(() -> executeAITurn(game, state, currentPlayer));
     }
 
     private void executeAITurn(GameEngine game, com.battleship.common.model.GameState state, String currentPlayer) {
+        try (GameLogContext ignored = GameLogContext.open(state.getGameId(), currentPlayer)) {
+            executeAITurnInContext(game, state, currentPlayer);
+        }
+    }
+
+    private void executeAITurnInContext(GameEngine game, com.battleship.common.model.GameState state, String currentPlayer) {
+        AIMoveEvent event = new AIMoveEvent();
+        event.begin();
+        long start = System.nanoTime();
         var aiResult = aiService.processAITurn(state.getGameId(), game);
+        metrics.recordAIMove(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.gameId = state.getGameId();
+            event.playerId = currentPlayer;
+            event.success = aiResult.success();
+            if (aiResult.coordinate() != null) {
+                event.x = aiResult.coordinate().x();
+                event.y = aiResult.coordinate().y();
+            }
+            event.commit();
+        }
 
         if (!aiResult.success()) {
             logger.error("AI failed to make a turn");
@@ -286,93 +509,108 @@ public class GameMessageHandler extends SimpleChannelInboundHandler<TextWebSocke
                 null,
                 updatedState.isPlayerTurn(updatedState.getPlayer1Id())
             );
-            sendMessage(player.getChannel(), shotMsg);
+            sendMessage(player, shotMsg);
         });
+        lifecycle.getSpectators().publish(updatedState.getGameId(),
+            new Messages.ShotResult("AI", coord.x(), coord.y(), shotType, null, false));
 
-        if (updatedState.getStatus() == com.battleship.common.model.ModelTypes.GameStatus.FINISHED) {
+        if (aiResult.gameOver()) {
             sendGameOver(game);
-            aiService.removeAIPlayer(currentPlayer);
-        } else if (updatedState.isPlayerTurn(currentPlayer)) {
+        } else if (updatedState.getStatus() != com.battleship.common.model.ModelTypes.GameStatus.FINISHED
+                && updatedState.isPlayerTurn(currentPlayer)) {
             processAITurnIfNeeded(game);
         }
     }
 
     private void sendGameOver(GameEngine game) {
-        var state = game.getGameState();
-        String winnerId = state.getWinnerId();
-
-        sessionManager.getSession(state.getPlayer1Id()).ifPresent(p1 -> {
-            Messages.GameOver msg = new Messages.GameOver(
-                winnerId.equals(p1.getPlayerId()) ? "Победа" : "Поражение",
-                "Игра завершена",
-                0, 0
-            );
-            sendMessage(p1.getChannel(), msg);
-            p1.setCurrentGameId(null);
-        });
+        notifier.sendGameOver(game, "Игра завершена");
+    }
 
-        sessionManager.getSession(state.getPlayer2Id()).ifPresent(p2 -> {
-            Messages.GameOver msg = new Messages.GameOver(
-                winnerId.equals(p2.getPlayerId()) ? "Победа" : "Поражение",
-                "Игра завершена",
-                0, 0
-            );
-            sendMessage(p2.getChannel(), msg);
-            p2.setCurrentGameId(null);
-        });
+    private void sendMessage(PlayerSession recipient, Messages.Message message) {
+        notifier.send(recipient, message);
+    }
 
-        matchmakingService.removeGame(state.getGameId());
+    private void sendError(PlayerSession recipient, int code, String message) {
+        sendMessage(recipient, new Messages.Error(code, message));
     }
 
-    private void sendMessage(Channel channel, Messages.Message message) {
-        try {
-            String json = objectMapper.writeValueAsString(message);
-            channel.writeAndFlush(new TextWebSocketFrame(json));
-        } catch (Exception e) {
-            logger.error("Ошибка отправки сообщения: {}", e.getMessage());
-        }
+    /**
+     * Ошибка до того, как нашлась сессия; handle запроса возвращается, чтобы клиент понял, чей это ответ
+     */
+    private void sendError(Channel channel, String handle, int code, String message) {
+        sendError(channel, handle, code, message, 0);
     }
 
-    private void sendError(Channel channel, int code, String message) {
-        Messages.Error error = new Messages.Error(code, message);
-        sendMessage(channel, error);
+    private void sendError(Channel channel, String handle, int code, String message, long retryAfterMs) {
+        Messages.Error error = new Messages.Error(code, message, retryAfterMs);
+        error.setHandle(handle);
+        notifier.send(channel, error);
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
-        sessionManager.getSessionByChannel(ctx.channel()).ifPresent(session -> {
-            if (session.isInGame()) {
-                String gameId = session.getCurrentGameId();
-                GameEngine game = matchmakingService.getGame(gameId);
+        Channel channel = ctx.channel();
+        sessionManager.getSessionByChannel(channel).ifPresent(session -> {
+            try (GameLogContext ignored = GameLogContext.open(session.getCurrentGameId(), session.getPlayerId())) {
+                if (lifecycle.detachSession(session, channel)) {
+                    logger.info("Игрок {} потерял соединение, ждём возврата {} мс",
+                        session.getPlayerName(), lifecycle.getResumeGraceMillis());
+                    channel.eventLoop().schedule(() -> expireDetached(session, channel),
+                        lifecycle.getResumeGraceMillis(), TimeUnit.MILLISECONDS);
+                } else {
+                    closeSession(session);
+                }
+            }
+        });
+        // Сессии с handle не ждут возврата: их партии завершаются вместе с соединением
+        for (PlayerSession session : sessionManager.getHandleSessions(channel)) {
+            try (GameLogContext ignored = GameLogContext.open(session.getCurrentGameId(), session.getPlayerId())) {
+                closeSession(session);
+            }
+        }
+    }
+
+    private void expireDetached(PlayerSession session, Channel lostChannel) {
+        if (!lifecycle.expireDetached(session, lostChannel)) {
+            return;
+        }
+        try (GameLogContext ignored = GameLogContext.open(session.getCurrentGameId(), session.getPlayerId())) {
+            logger.info("Игрок {} не вернулся за {} мс", session.getPlayerName(), lifecycle.getResumeGraceMillis());
+            closeSession(session);
+        }
+    }
 
-                if (game != null) {
-                    var status = game.getGameState().getStatus();
+    private void closeSession(PlayerSession session) {
+        if (session.isInGame()) {
+            String gameId = session.getCurrentGameId();
+            GameEngine game = matchmakingService.getGame(gameId);
 
-                    if (status == com.battleship.common.model.ModelTypes.GameStatus.IN_PROGRESS) {
-                        logger.info("Игрок {} отключился во время игры {}, засчитываем поражение", session.getPlayerName(), gameId);
-                        game.surrender(session.getPlayerId());
+            if (game != null) {
+                var status = game.getGameState().getStatus();
+
+                if (status == com.battleship.common.model.ModelTypes.GameStatus.IN_PROGRESS) {
+                    logger.info("Игрок {} отключился во время игры {}, засчитываем поражение", session.getPlayerName(), gameId);
+                    if (game.surrender(session.getPlayerId())) {
                         sendGameOver(game);
-                    } else if (status == com.battleship.common.model.ModelTypes.GameStatus.SETUP) {
-                        logger.info("Игрок {} отключился во время расстановки кораблей в игре {}", session.getPlayerName(), gameId);
-                        String opponentId = game.getGameState().getOpponentId(session.getPlayerId());
-
-                        sessionManager.getSession(opponentId).ifPresent(opponent -> {
-                            Messages.Error cancelMsg = new Messages.Error(
-                                410,
-                                "Противник отключился во время расстановки кораблей. Игра отменена."
-                            );
-                            sendMessage(opponent.getChannel(), cancelMsg);
-                            opponent.setCurrentGameId(null);
-                        });
-
-                        matchmakingService.removeGame(gameId);
                     }
-                } else {
-                    matchmakingService.cancelSearch(session);
+                } else if (status == com.battleship.common.model.ModelTypes.GameStatus.SETUP) {
+                    logger.info("Игрок {} отключился во время расстановки кораблей в игре {}", session.getPlayerName(), gameId);
+                    String opponentId = game.getGameState().getOpponentId(session.getPlayerId());
+                    // До отправки: получив отмену, соперник сразу ищет новую игру
+                    game.abandon(JournalEvent.EndReason.CANCELLED);
+                    lifecycle.releaseGame(game);
+
+                    sessionManager.getSession(opponentId).ifPresent(opponent -> {
+                        Messages.Error cancelMsg = new Messages.Error(
+                            410,
+                            "Противник отключился во время расстановки кораблей. Игра отменена."
+                        );
+                        sendMessage(opponent, cancelMsg);
+                    });
                 }
             }
-            sessionManager.removeSession(ctx.channel());
-        });
+        }
+        lifecycle.releaseSession(session);
     }
 
     @Override
@@ -0,0 +1,105 @@
+package com.battleship.server.handler;
+
+import com.battleship.common.protocol.Messages;
+import com.battleship.server.game.GameEngine;
+import com.battleship.server.jfr.GameOverEvent;
+import com.battleship.server.lifecycle.GameLifecycleManager;
+import com.battleship.server.session.PlayerSession;
+import com.battleship.server.session.SessionManager;
+import com.battleship.server.stats.HeatmapAggregator;
+import com.battleship.server.stats.ServerMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Отправка сообщений игрокам и завершение партии: GameOver обоим, освобождение ресурсов игры.
+ * Общий для GameMessageHandler и часов партий, которые завершают игру вне обработки сообщения.
+ * Потокобезопасен: запись в канал из чужого потока Netty передаёт в event loop канала.
+ */
+public class GameNotifier {
+    private static final Logger logger = LoggerFactory.getLogger(GameNotifier.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SessionManager sessionManager;
+    private final GameLifecycleManager lifecycle;
+    private final HeatmapAggregator heatmapAggregator;
+    private final ServerMetrics metrics;
+
+    public GameNotifier(SessionManager sessionManager, GameLifecycleManager lifecycle,
+                        HeatmapAggregator heatmapAggregator, ServerMetrics metrics) {
+        this.sessionManager = sessionManager;
+        this.lifecycle = lifecycle;
+        this.heatmapAggregator = heatmapAggregator;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Сообщает обоим игрокам итог уже завершённой партии и освобождает её ресурсы
+     *
+     * @param reason причина для клиента; победителя может не быть, тогда оба получают поражение
+     */
+    public void sendGameOver(GameEngine game, String reason) {
+        var state = game.getGameState();
+        String winnerId = state.getWinnerId();
+
+        heatmapAggregator.recordGame(state);
+
+        GameOverEvent event = new GameOverEvent();
+        if (event.shouldCommit()) {
+            event.gameId = state.getGameId();
+            event.winnerId = winnerId;
+            event.player1Shots = state.getPlayer2Board().getShots().size();
+            event.player2Shots = state.getPlayer1Board().getShots().size();
+            event.commit();
+        }
+
+        sessionManager.getSession(state.getPlayer1Id()).ifPresent(p1 -> sendGameOver(p1, state.getGameId(), winnerId, reason));
+        sessionManager.getSession(state.getPlayer2Id()).ifPresent(p2 -> sendGameOver(p2, state.getGameId(), winnerId, reason));
+        lifecycle.getSpectators().publish(state.getGameId(),
+            new Messages.GameOver(winnerId != null ? playerName(winnerId) : "Нет победителя", reason, 0, 0));
+
+        lifecycle.releaseGame(game);
+    }
+
+    private void sendGameOver(PlayerSession player, String gameId, String winnerId, String reason) {
+        // До отправки: получив GameOver, клиент сразу ищет новую игру
+        player.leaveGame(gameId);
+        Messages.GameOver msg = new Messages.GameOver(
+            player.getPlayerId().equals(winnerId) ? "Победа" : "Поражение",
+            reason,
+            0, 0
+        );
+        send(player, msg);
+    }
+
+    /**
+     * Имя игрока для соперника и зрителей; у AI сессии нет
+     */
+    public String playerName(String playerId) {
+        if (playerId.startsWith("AI-")) {
+            return "AI";
+        }
+        return sessionManager.getSession(playerId).map(PlayerSession::getPlayerName).orElse(null);
+    }
+
+    /**
+     * Сообщение сессии игрока: с её handle, если сессия не основная на своём соединении
+     */
+    public void send(PlayerSession recipient, Messages.Message message) {
+        message.setHandle(recipient.getHandle());
+        send(recipient.getChannel(), message);
+    }
+
+    public void send(Channel channel, Messages.Message message) {
+        try {
+            String json = objectMapper.writeValueAsString(message);
+            channel.writeAndFlush(new TextWebSocketFrame(json));
+            metrics.recordSent(message.getType());
+        } catch (Exception e) {
+            logger.error("Ошибка отправки сообщения: {}", e.getMessage());
+        }
+    }
+}
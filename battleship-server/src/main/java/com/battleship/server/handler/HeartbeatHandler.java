@@ -0,0 +1,64 @@
+package com.battleship.server.handler;
+
+import com.battleship.server.stats.ServerMetrics;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Проверка живости соединения по событиям IdleStateHandler, который стоит в начале pipeline
+ * и видит любые прочитанные байты, в том числе PONG, которые WebSocket handler дальше не передаёт.
+ * Первое событие READER_IDLE после чтения — повод отправить PING; если и после maxMissedPings
+ * следующих интервалов ничего не пришло, соединение закрывается. Игру, поиск и сессию затем
+ * освобождает GameMessageHandler.channelInactive, как при обычном отключении: соперник получает победу.
+ * Соединение, так и не перешедшее на WebSocket, закрывается после первого интервала тишины.
+ */
+public class HeartbeatHandler extends ChannelInboundHandlerAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(HeartbeatHandler.class);
+
+    private final int maxMissedPings;
+    private final ServerMetrics metrics;
+    private boolean websocket;
+    private int missedPings;
+
+    public HeartbeatHandler(int maxMissedPings, ServerMetrics metrics) {
+        this.maxMissedPings = maxMissedPings;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof WebSocketServerProtocolHandler.HandshakeComplete) {
+            websocket = true;
+        } else if (evt instanceof IdleStateEvent idle && idle.state() == IdleState.READER_IDLE) {
+            onReaderIdle(ctx, idle);
+            return;
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    private void onReaderIdle(ChannelHandlerContext ctx, IdleStateEvent idle) {
+        if (!websocket) {
+            metrics.recordIdleReaped();
+            ctx.close();
+            return;
+        }
+
+        if (idle.isFirst()) {
+            missedPings = 0;
+        } else if (++missedPings >= maxMissedPings) {
+            logger.info("Соединение {} не ответило на {} PING, закрываем", ctx.channel().remoteAddress(), missedPings);
+            metrics.recordIdleReaped();
+            ctx.close();
+            return;
+        }
+
+        ctx.channel().writeAndFlush(new PingWebSocketFrame());
+        metrics.recordPingSent();
+    }
+}
@@ -0,0 +1,37 @@
+package com.battleship.server.handler;
+
+import com.battleship.server.stats.ServerMetrics;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * Считает байты на уровне сокета, включая HTTP и WebSocket заголовки. Стоит первым в pipeline.
+ */
+@ChannelHandler.Sharable
+public class NetworkBytesHandler extends ChannelDuplexHandler {
+
+    private final ServerMetrics metrics;
+
+    public NetworkBytesHandler(ServerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof ByteBuf buf) {
+            metrics.recordBytesIn(buf.readableBytes());
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof ByteBuf buf) {
+            metrics.recordBytesOut(buf.readableBytes());
+        }
+        ctx.write(msg, promise);
+    }
+}
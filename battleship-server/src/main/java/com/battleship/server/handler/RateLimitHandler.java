@@ -0,0 +1,171 @@
+package com.battleship.server.handler;
+
+import com.battleship.common.protocol.MessageType;
+import com.battleship.common.protocol.Messages;
+import com.battleship.server.ratelimit.RateLimitPolicy;
+import com.battleship.server.ratelimit.TokenBucket;
+import com.battleship.server.stats.ServerMetrics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Лимит входящих сообщений соединения: своё ведро на каждый тип сообщения и одно на сообщения
+ * неизвестного типа. Тип читается из начала кадра без разбора JSON: Jackson пишет "type" первым полем,
+ * а кадр, где type не первый, попадает в самое строгое ведро OTHER.
+ * Сообщение сверх бюджета отбрасывается с ERROR 429 и retryAfterMs, каждое такое нарушение тратит
+ * бюджет нарушений; когда и он исчерпан, соединение закрывается.
+ * Один экземпляр на канал, вызывается только из его event loop.
+ */
+public class RateLimitHandler extends ChannelInboundHandlerAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitHandler.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final MessageType[] TYPES = MessageType.values();
+    private static final byte[][] TYPE_NAMES = new byte[TYPES.length][];
+    private static final byte[] TYPE_KEY = "\"type\"".getBytes(StandardCharsets.US_ASCII);
+
+    static {
+        for (MessageType type : TYPES) {
+            TYPE_NAMES[type.ordinal()] = type.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final RateLimitPolicy policy;
+    private final ServerMetrics metrics;
+    // По индексу типа, последний — OTHER; ведро создаётся при первом сообщении этого типа
+    private final TokenBucket[] buckets = new TokenBucket[TYPES.length + 1];
+    private TokenBucket violations;
+    // Кадры, уже прочитанные из сокета до закрытия, отбрасываются молча
+    private boolean closing;
+
+    public RateLimitHandler(RateLimitPolicy policy, ServerMetrics metrics) {
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof TextWebSocketFrame frame)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        if (closing) {
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+
+        MessageType type = sniffType(frame.content());
+        long now = System.nanoTime();
+        long waitNanos = bucket(type, now).tryAcquire(now);
+        if (waitNanos == 0) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        ReferenceCountUtil.release(msg);
+        metrics.recordRateLimited(type);
+
+        if (violationBucket(now).tryAcquire(now) != 0) {
+            logger.warn("Соединение {} закрыто: превышен лимит сообщений ({})", ctx.channel().remoteAddress(),
+                type != null ? type : "неизвестный тип");
+            metrics.recordRateLimitDisconnect();
+            closing = true;
+            ctx.close();
+            return;
+        }
+
+        long retryAfterMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        sendError(ctx, new Messages.Error(429, "Слишком много сообщений, повторите позже", retryAfterMs));
+    }
+
+    private TokenBucket bucket(MessageType type, long now) {
+        int index = type != null ? type.ordinal() : TYPES.length;
+        TokenBucket bucket = buckets[index];
+        if (bucket == null) {
+            bucket = policy.budgetFor(type).newBucket(now);
+            buckets[index] = bucket;
+        }
+        return bucket;
+    }
+
+    private TokenBucket violationBucket(long now) {
+        if (violations == null) {
+            violations = policy.violations().newBucket(now);
+        }
+        return violations;
+    }
+
+    private void sendError(ChannelHandlerContext ctx, Messages.Error error) {
+        try {
+            ctx.writeAndFlush(new TextWebSocketFrame(objectMapper.writeValueAsString(error)));
+            metrics.recordSent(MessageType.ERROR);
+        } catch (JsonProcessingException e) {
+            logger.error("Ошибка отправки сообщения: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Тип из префикса {"type":"FIRE", допускаются пробелы; null, если кадр начинается иначе
+     */
+    static MessageType sniffType(ByteBuf content) {
+        int i = skipSpaces(content, content.readerIndex());
+        if (i >= content.writerIndex() || content.getByte(i) != '{') {
+            return null;
+        }
+        i = skipSpaces(content, i + 1);
+        if (!matches(content, i, TYPE_KEY)) {
+            return null;
+        }
+        i = skipSpaces(content, i + TYPE_KEY.length);
+        if (i >= content.writerIndex() || content.getByte(i) != ':') {
+            return null;
+        }
+        i = skipSpaces(content, i + 1);
+        if (i >= content.writerIndex() || content.getByte(i) != '"') {
+            return null;
+        }
+        i++;
+
+        for (MessageType type : TYPES) {
+            byte[] name = TYPE_NAMES[type.ordinal()];
+            int end = i + name.length;
+            if (end < content.writerIndex() && content.getByte(end) == '"' && matches(content, i, name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    private static int skipSpaces(ByteBuf content, int index) {
+        while (index < content.writerIndex()) {
+            byte b = content.getByte(index);
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean matches(ByteBuf content, int index, byte[] expected) {
+        if (index + expected.length > content.writerIndex()) {
+            return false;
+        }
+        for (int j = 0; j < expected.length; j++) {
+            if (content.getByte(index + j) != expected[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
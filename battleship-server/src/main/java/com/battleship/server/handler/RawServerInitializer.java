@@ -0,0 +1,136 @@
+package com.battleship.server.handler;
+
+import com.battleship.server.ratelimit.RateLimitPolicy;
+import com.battleship.server.stats.ServerMetrics;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Pipeline соединения без HTTP и WebSocket для клиентов на той же машине: ботов, турнирных прогонов, AI воркеров.
+ * Кадр: [int длина][JSON в UTF-8], те же сообщения, что и в /game. Кадр оборачивается в TextWebSocketFrame,
+ * поэтому дальше работают те же RateLimitHandler и GameMessageHandler, а ответы, события зрителей и лобби
+ * уходят обратно без WebSocket заголовков. PING нет: клиент, которому нечего сказать, шлёт пустой кадр [int 0].
+ * Соединение, молчащее idleSec секунд, закрывается, и его сессии освобождаются как при отключении:
+ * обрыв без FIN иначе держал бы сессию, партию и место в очереди, пока его не заметит ОС.
+ */
+public class RawServerInitializer extends ChannelInitializer<Channel> {
+    private static final Logger logger = LoggerFactory.getLogger(RawServerInitializer.class);
+
+    // Как HttpObjectAggregator у /game
+    public static final int MAX_FRAME_SIZE = 65536;
+    public static final int LENGTH_SIZE = 4;
+
+    private final Supplier<GameMessageHandler> gameMessageHandlers;
+    private final int idleSec;
+    private final RateLimitPolicy rateLimitPolicy;
+    private final ServerMetrics metrics;
+    private final ConnectionLimitHandler connectionLimitHandler;
+    private final NetworkBytesHandler networkBytesHandler;
+    private final FrameCodec frameCodec = new FrameCodec();
+    private final IdleReaper idleReaper;
+    private final ChannelGroup connections = new DefaultChannelGroup("raw", GlobalEventExecutor.INSTANCE);
+
+    /**
+     * @param gameMessageHandlers новый GameMessageHandler на каждое соединение, как у /game
+     * @param idleSec сколько секунд тишины терпеть до закрытия; 0 — не закрывать
+     */
+    public RawServerInitializer(Supplier<GameMessageHandler> gameMessageHandlers, int idleSec,
+                                RateLimitPolicy rateLimitPolicy, ServerMetrics metrics) {
+        this.gameMessageHandlers = gameMessageHandlers;
+        this.idleSec = idleSec;
+        this.idleReaper = new IdleReaper(metrics);
+        this.rateLimitPolicy = rateLimitPolicy;
+        this.metrics = metrics;
+        this.connectionLimitHandler = new ConnectionLimitHandler(rateLimitPolicy, metrics);
+        this.networkBytesHandler = new NetworkBytesHandler(metrics);
+    }
+
+    @Override
+    protected void initChannel(Channel ch) {
+        connections.add(ch);
+        ChannelPipeline pipeline = ch.pipeline();
+
+        pipeline.addLast(networkBytesHandler);
+        // Unix сокет без IP handler пропускает сам
+        if (rateLimitPolicy.enabled()) {
+            pipeline.addLast(connectionLimitHandler);
+        }
+        // До декодера: пустой кадр keepalive тоже считается чтением
+        if (idleSec > 0) {
+            pipeline.addLast(new IdleStateHandler(idleSec, 0, 0));
+            pipeline.addLast(idleReaper);
+        }
+        pipeline.addLast(new LengthFieldBasedFrameDecoder(MAX_FRAME_SIZE, 0, LENGTH_SIZE, 0, LENGTH_SIZE));
+        pipeline.addLast(new LengthFieldPrepender(LENGTH_SIZE));
+        pipeline.addLast(frameCodec);
+
+        if (rateLimitPolicy.enabled()) {
+            pipeline.addLast(new RateLimitHandler(rateLimitPolicy, metrics));
+        }
+
+        pipeline.addLast(gameMessageHandlers.get());
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Тело кадра ↔ TextWebSocketFrame без копирования: обе стороны делят один буфер
+     */
+    @ChannelHandler.Sharable
+    private static class FrameCodec extends MessageToMessageCodec<ByteBuf, TextWebSocketFrame> {
+        @Override
+        protected void encode(ChannelHandlerContext ctx, TextWebSocketFrame frame, List<Object> out) {
+            out.add(frame.content().retain());
+        }
+
+        // Пустой кадр — keepalive, дальше не идёт
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf body, List<Object> out) {
+            if (body.isReadable()) {
+                out.add(new TextWebSocketFrame(body.retain()));
+            }
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static class IdleReaper extends ChannelInboundHandlerAdapter {
+        private final ServerMetrics metrics;
+
+        IdleReaper(ServerMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt instanceof IdleStateEvent idle && idle.state() == IdleState.READER_IDLE) {
+                logger.info("Соединение {} молчит дольше допустимого, закрываем", ctx.channel().remoteAddress());
+                metrics.recordIdleReaped();
+                ctx.close();
+                return;
+            }
+            super.userEventTriggered(ctx, evt);
+        }
+    }
+}
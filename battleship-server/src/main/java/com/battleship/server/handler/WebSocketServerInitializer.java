@@ -1,8 +1,16 @@
 package com.battleship.server.handler;
 
 import com.battleship.server.ai.AIService;
+import com.battleship.server.ai.AITurnScheduler;
+import com.battleship.server.jfr.JfrRecordingService;
+import com.battleship.server.lifecycle.GameLifecycleManager;
+import com.battleship.server.load.LoadShedder;
+import com.battleship.server.lobby.LobbyService;
 import com.battleship.server.matchmaking.MatchmakingService;
+import com.battleship.server.ratelimit.RateLimitPolicy;
 import com.battleship.server.session.SessionManager;
+import com.battleship.server.stats.HeatmapAggregator;
+import com.battleship.server.stats.ServerMetrics;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
@@ -10,6 +18,7 @@ import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.timeout.IdleStateHandler;
 
 /**
  * Инициализатор pipeline для WebSocket
@@ -20,27 +29,87 @@ public class WebSocketServerInitializer extends ChannelInitializer<SocketChannel
     private final SessionManager sessionManager;
     private final MatchmakingService matchmakingService;
     private final AIService aiService;
+    private final HeatmapAggregator heatmapAggregator;
+    private final AITurnScheduler aiTurnScheduler;
+    private final ServerMetrics metrics;
+    private final LoadShedder loadShedder;
+    private final GameLifecycleManager lifecycle;
+    private final LobbyService lobby;
+    private final RateLimitPolicy rateLimitPolicy;
+    private final int heartbeatIntervalSec;
+    private final int heartbeatMaxMissed;
+    private final ConnectionLimitHandler connectionLimitHandler;
+    private final NetworkBytesHandler networkBytesHandler;
+    private final AdminHttpHandler adminHttpHandler;
 
     public WebSocketServerInitializer(String websocketPath,
                                      SessionManager sessionManager,
                                      MatchmakingService matchmakingService,
-                                     AIService aiService) {
+                                     AIService aiService,
+                                     HeatmapAggregator heatmapAggregator,
+                                     AITurnScheduler aiTurnScheduler,
+                                     ServerMetrics metrics,
+                                     LoadShedder loadShedder,
+                                     GameLifecycleManager lifecycle,
+                                     LobbyService lobby,
+                                     RateLimitPolicy rateLimitPolicy,
+                                     JfrRecordingService jfrRecordingService) {
         this.websocketPath = websocketPath;
         this.sessionManager = sessionManager;
         this.matchmakingService = matchmakingService;
         this.aiService = aiService;
+        this.heatmapAggregator = heatmapAggregator;
+        this.aiTurnScheduler = aiTurnScheduler;
+        this.metrics = metrics;
+        this.loadShedder = loadShedder;
+        this.lifecycle = lifecycle;
+        this.lobby = lobby;
+        this.rateLimitPolicy = rateLimitPolicy;
+        this.heartbeatIntervalSec = Integer.getInteger("battleship.heartbeat.intervalSec", 15);
+        this.heartbeatMaxMissed = Integer.getInteger("battleship.heartbeat.maxMissed", 2);
+        this.connectionLimitHandler = new ConnectionLimitHandler(rateLimitPolicy, metrics);
+        this.networkBytesHandler = new NetworkBytesHandler(metrics);
+        this.adminHttpHandler = new AdminHttpHandler(lifecycle, metrics, jfrRecordingService);
     }
 
     @Override
     protected void initChannel(SocketChannel ch) {
         ChannelPipeline pipeline = ch.pipeline();
 
+        pipeline.addLast(networkBytesHandler);
+        if (rateLimitPolicy.enabled()) {
+            pipeline.addLast(connectionLimitHandler);
+        }
+        // Тишина считается по сырым байтам, до кодеков: PONG дальше WebSocket handler не проходит
+        if (heartbeatIntervalSec > 0) {
+            pipeline.addLast(new IdleStateHandler(heartbeatIntervalSec, 0, 0));
+        }
         pipeline.addLast(new HttpServerCodec());
         pipeline.addLast(new HttpObjectAggregator(65536));
         pipeline.addLast(new ChunkedWriteHandler());
 
+        // Служебные HTTP запросы (/stats, /metrics, /admin) обрабатываются до WebSocket handshake
+        pipeline.addLast(adminHttpHandler);
+
         pipeline.addLast(new WebSocketServerProtocolHandler(websocketPath, null, true));
 
-        pipeline.addLast(new GameMessageHandler(sessionManager, matchmakingService, aiService));
+        if (heartbeatIntervalSec > 0) {
+            pipeline.addLast(new HeartbeatHandler(heartbeatMaxMissed, metrics));
+        }
+
+        // Лимит сообщений стоит до разбора JSON: флуд отбрасывается, не доходя до GameMessageHandler
+        if (rateLimitPolicy.enabled()) {
+            pipeline.addLast(new RateLimitHandler(rateLimitPolicy, metrics));
+        }
+
+        pipeline.addLast(newGameMessageHandler());
+    }
+
+    /**
+     * Обработчик сообщений одного соединения; общий для /game и RawServerInitializer
+     */
+    public GameMessageHandler newGameMessageHandler() {
+        return new GameMessageHandler(sessionManager, matchmakingService, aiService, heatmapAggregator,
+                aiTurnScheduler, metrics, loadShedder, lifecycle, lobby);
     }
 }
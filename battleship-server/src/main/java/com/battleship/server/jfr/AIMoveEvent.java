@@ -0,0 +1,37 @@
+package com.battleship.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Ход AI: выбор клетки (локально или во внешнем воркере) и выстрел.
+ * Профиль jfr/battleship.jfc пишет ходы дольше 5 мс.
+ */
+@Name("battleship.AIMove")
+@Label("AI Move")
+@Category({"Battleship", "Hot Path"})
+@Description("Ход AI: выбор клетки (локально или во внешнем воркере) и выстрел")
+@Enabled(false)
+@StackTrace(false)
+public class AIMoveEvent extends Event {
+
+    @Label("Game Id")
+    public String gameId;
+
+    @Label("AI Player")
+    public String playerId;
+
+    @Label("X")
+    public int x;
+
+    @Label("Y")
+    public int y;
+
+    @Label("Success")
+    public boolean success;
+}
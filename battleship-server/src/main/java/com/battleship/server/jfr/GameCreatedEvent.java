@@ -0,0 +1,36 @@
+package com.battleship.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Создана игра PvP или PvE
+ */
+@Name("battleship.GameCreated")
+@Label("Game Created")
+@Category({"Battleship", "Games"})
+@Description("Создана игра PvP или PvE")
+@Enabled(false)
+@StackTrace(false)
+public class GameCreatedEvent extends Event {
+
+    @Label("Game Id")
+    public String gameId;
+
+    @Label("Mode")
+    public String mode;
+
+    @Label("Player 1")
+    public String player1Id;
+
+    @Label("Player 2")
+    public String player2Id;
+
+    @Label("Seed")
+    public long seed;
+}
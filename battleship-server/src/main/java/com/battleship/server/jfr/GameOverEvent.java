@@ -0,0 +1,33 @@
+package com.battleship.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Игра завершена победой, сдачей или отключением
+ */
+@Name("battleship.GameOver")
+@Label("Game Over")
+@Category({"Battleship", "Games"})
+@Description("Игра завершена победой, сдачей или отключением")
+@Enabled(false)
+@StackTrace(false)
+public class GameOverEvent extends Event {
+
+    @Label("Game Id")
+    public String gameId;
+
+    @Label("Winner")
+    public String winnerId;
+
+    @Label("Player 1 Shots")
+    public int player1Shots;
+
+    @Label("Player 2 Shots")
+    public int player2Shots;
+}
@@ -0,0 +1,27 @@
+package com.battleship.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Оба игрока готовы, начался первый ход
+ */
+@Name("battleship.GameStarted")
+@Label("Game Started")
+@Category({"Battleship", "Games"})
+@Description("Оба игрока готовы, начался первый ход")
+@Enabled(false)
+@StackTrace(false)
+public class GameStartedEvent extends Event {
+
+    @Label("Game Id")
+    public String gameId;
+
+    @Label("First Turn")
+    public String firstPlayerId;
+}
@@ -0,0 +1,149 @@
+package com.battleship.server.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Запись JFR по команде администратора: одна запись за раз, настройки — профиль JDK default
+ * плюс пороги событий сервера из jfr/battleship.jfc. Файл пишется в каталог записей при остановке
+ * или по истечении maxDuration, если запись не остановили раньше.
+ */
+public class JfrRecordingService {
+    private static final Logger logger = LoggerFactory.getLogger(JfrRecordingService.class);
+
+    public static final String PROFILE_RESOURCE = "/jfr/battleship.jfc";
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private Recording recording;
+    private Path file;
+
+    /**
+     * @param directory каталог для файлов .jfr, создаётся при первой записи
+     */
+    public JfrRecordingService(Path directory) {
+        this.directory = directory;
+    }
+
+    public static JfrRecordingService fromSystemProperties() {
+        return new JfrRecordingService(Path.of(System.getProperty("battleship.jfr.dir", "recordings")));
+    }
+
+    /**
+     * Регистрирует события сервера, чтобы их настройки были видны в JMC и jfr до первого commit
+     */
+    public static void registerEvents() {
+        FlightRecorder.register(SessionOpenedEvent.class);
+        FlightRecorder.register(SessionClosedEvent.class);
+        FlightRecorder.register(GameCreatedEvent.class);
+        FlightRecorder.register(ShipPlacementEvent.class);
+        FlightRecorder.register(GameStartedEvent.class);
+        FlightRecorder.register(ShotFiredEvent.class);
+        FlightRecorder.register(AIMoveEvent.class);
+        FlightRecorder.register(GameOverEvent.class);
+    }
+
+    /**
+     * Начинает запись
+     *
+     * @throws IllegalStateException если запись уже идёт
+     */
+    public synchronized RecordingInfo start(Duration maxDuration) throws IOException {
+        if (isRunning()) {
+            throw new IllegalStateException("Запись JFR уже идёт: " + file);
+        }
+        closeFinished();
+
+        Files.createDirectories(directory);
+        Path target = directory.resolve("battleship-" + LocalDateTime.now().format(FILE_TIME) + ".jfr").toAbsolutePath();
+
+        Recording newRecording = new Recording(settings());
+        newRecording.setName("battleship-admin");
+        newRecording.setToDisk(true);
+        newRecording.setDestination(target);
+        newRecording.setDuration(maxDuration);
+        newRecording.start();
+
+        recording = newRecording;
+        file = target;
+        logger.info("Запись JFR начата: {}, не дольше {} с", target, maxDuration.toSeconds());
+        return new RecordingInfo(target, maxDuration);
+    }
+
+    /**
+     * Останавливает запись и возвращает файл. Если запись уже закончилась по maxDuration,
+     * возвращает её файл.
+     *
+     * @throws IllegalStateException если записи не было
+     */
+    public synchronized Path stop() {
+        if (recording == null) {
+            throw new IllegalStateException("Запись JFR не запущена");
+        }
+
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        recording.close();
+
+        Path written = file;
+        recording = null;
+        file = null;
+        logger.info("Запись JFR сохранена: {}", written);
+        return written;
+    }
+
+    public synchronized boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    private void closeFinished() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            file = null;
+        }
+    }
+
+    private static Map<String, String> settings() throws IOException {
+        Map<String, String> settings;
+        try {
+            settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+        } catch (ParseException e) {
+            throw new IOException("Не удалось прочитать профиль JFR default", e);
+        }
+
+        try (InputStream in = JfrRecordingService.class.getResourceAsStream(PROFILE_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("Не найден профиль " + PROFILE_RESOURCE);
+            }
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                settings.putAll(Configuration.create(reader).getSettings());
+            }
+        } catch (ParseException e) {
+            throw new IOException("Некорректный профиль " + PROFILE_RESOURCE, e);
+        }
+        return settings;
+    }
+
+    public record RecordingInfo(Path file, Duration maxDuration) {}
+}
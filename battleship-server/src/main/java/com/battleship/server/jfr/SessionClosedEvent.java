@@ -0,0 +1,27 @@
+package com.battleship.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Сессия игрока удалена после отключения
+ */
+@Name("battleship.SessionClosed")
+@Label("Session Closed")
+@Category({"Battleship", "Sessions"})
+@Description("Сессия игрока удалена после отключения")
+@Enabled(false)
+@StackTrace(false)
+public class SessionClosedEvent extends Event {
+
+    @Label("Player Id")
+    public String playerId;
+
+    @Label("Player Name")
+    public String playerName;
+}
@@ -0,0 +1,27 @@
+package com.battleship.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Игрок подключился и получил сессию
+ */
+@Name("battleship.SessionOpened")
+@Label("Session Opened")
+@Category({"Battleship", "Sessions"})
+@Description("Игрок подключился и получил сессию")
+@Enabled(false)
+@StackTrace(false)
+public class SessionOpenedEvent extends Event {
+
+    @Label("Player Id")
+    public String playerId;
+
+    @Label("Player Name")
+    public String playerName;
+}
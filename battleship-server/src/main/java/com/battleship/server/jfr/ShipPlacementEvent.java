@@ -0,0 +1,33 @@
+package com.battleship.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Расстановка кораблей: один PLACE_SHIP игрока или весь флот AI
+ */
+@Name("battleship.ShipPlacement")
+@Label("Ship Placement")
+@Category({"Battleship", "Games"})
+@Description("Расстановка кораблей: один PLACE_SHIP игрока или весь флот AI")
+@Enabled(false)
+@StackTrace(false)
+public class ShipPlacementEvent extends Event {
+
+    @Label("Game Id")
+    public String gameId;
+
+    @Label("Player Id")
+    public String playerId;
+
+    @Label("Ships")
+    public int ships;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,37 @@
+package com.battleship.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Выстрел в GameEngine, включая ожидание монитора игры.
+ * Как и остальные события сервера, выключено по умолчанию; профиль jfr/battleship.jfc включает его с порогом 1 мс.
+ */
+@Name("battleship.ShotFired")
+@Label("Shot Fired")
+@Category({"Battleship", "Hot Path"})
+@Description("Выстрел в GameEngine, включая ожидание монитора игры")
+@Enabled(false)
+@StackTrace(false)
+public class ShotFiredEvent extends Event {
+
+    @Label("Game Id")
+    public String gameId;
+
+    @Label("Shooter")
+    public String shooterId;
+
+    @Label("X")
+    public int x;
+
+    @Label("Y")
+    public int y;
+
+    @Label("Result")
+    public String result;
+}
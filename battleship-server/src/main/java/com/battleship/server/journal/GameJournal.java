@@ -0,0 +1,17 @@
+package com.battleship.server.journal;
+
+/**
+ * Журнал партий. append вызывается под монитором партии из event loop и потоков AI,
+ * поэтому не должен блокироваться: запись на диск — дело реализации.
+ */
+public interface GameJournal {
+
+    void append(JournalEvent event);
+
+    /**
+     * Журнал выключен: события никуда не пишутся
+     */
+    static GameJournal disabled() {
+        return event -> {};
+    }
+}
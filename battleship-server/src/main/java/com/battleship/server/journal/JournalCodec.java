@@ -0,0 +1,125 @@
+package com.battleship.server.journal;
+
+import com.battleship.common.protocol.GameMode;
+import com.battleship.server.journal.JournalEvent.*;
+
+import static com.battleship.common.model.ModelTypes.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Бинарный формат журнала партий.
+ * Сегмент: [int MAGIC][int VERSION], затем записи [int длина тела][int CRC32C тела][тело].
+ * Тело: [byte тип][long время][short+UTF-8 gameId][поля события]. Длина 0 — конец записанного:
+ * файл сегмента заранее заполнен нулями. Enum'ы записаны ordinal, их порядок — часть формата.
+ */
+public final class JournalCodec {
+
+    public static final int MAGIC = 0x42534A4C;
+    public static final int VERSION = 1;
+    public static final int SEGMENT_HEADER_SIZE = 8;
+    public static final int RECORD_HEADER_SIZE = 8;
+    // id партий и игроков генерирует сервер, они короткие
+    public static final int MAX_BODY_SIZE = 1024;
+
+    public static final byte GAME_CREATED = 1;
+    public static final byte SHIP_PLACED = 2;
+    public static final byte GAME_STARTED = 3;
+    public static final byte SHOT_FIRED = 4;
+    public static final byte GAME_ENDED = 5;
+    public static final byte EVENTS_DROPPED = 6;
+
+    private static final GameMode[] MODES = GameMode.values();
+    private static final ShipType[] SHIP_TYPES = ShipType.values();
+    private static final Orientation[] ORIENTATIONS = Orientation.values();
+    private static final ShotResultType[] SHOT_RESULTS = ShotResultType.values();
+    private static final EndReason[] END_REASONS = EndReason.values();
+
+    private JournalCodec() {
+    }
+
+    /**
+     * Пишет тело события с текущей позиции буфера
+     */
+    public static void encode(JournalEvent event, ByteBuffer buffer) {
+        switch (event) {
+            case GameCreated created -> {
+                header(buffer, GAME_CREATED, created);
+                buffer.put((byte) created.mode().ordinal());
+                putString(buffer, created.player1Id());
+                putString(buffer, created.player2Id());
+                buffer.putLong(created.seed());
+            }
+            case ShipPlaced placed -> {
+                header(buffer, SHIP_PLACED, placed);
+                buffer.put((byte) placed.player());
+                buffer.put((byte) placed.shipType().ordinal());
+                buffer.put((byte) placed.x());
+                buffer.put((byte) placed.y());
+                buffer.put((byte) placed.orientation().ordinal());
+            }
+            case GameStarted started -> {
+                header(buffer, GAME_STARTED, started);
+                buffer.put((byte) started.firstPlayer());
+            }
+            case ShotFired shot -> {
+                header(buffer, SHOT_FIRED, shot);
+                buffer.put((byte) shot.player());
+                buffer.put((byte) shot.x());
+                buffer.put((byte) shot.y());
+                buffer.put((byte) shot.result().ordinal());
+            }
+            case GameEnded ended -> {
+                header(buffer, GAME_ENDED, ended);
+                buffer.put((byte) ended.winner());
+                buffer.put((byte) ended.reason().ordinal());
+            }
+            case EventsDropped dropped -> {
+                header(buffer, EVENTS_DROPPED, dropped);
+                buffer.putInt(dropped.count());
+            }
+        }
+    }
+
+    /**
+     * Читает тело события целиком
+     *
+     * @throws IllegalArgumentException неизвестный тип записи
+     */
+    public static JournalEvent decode(ByteBuffer buffer) {
+        byte type = buffer.get();
+        long timeMillis = buffer.getLong();
+        String gameId = getString(buffer);
+        return switch (type) {
+            case GAME_CREATED -> new GameCreated(timeMillis, gameId, MODES[buffer.get()],
+                getString(buffer), getString(buffer), buffer.getLong());
+            case SHIP_PLACED -> new ShipPlaced(timeMillis, gameId, buffer.get(), SHIP_TYPES[buffer.get()],
+                buffer.get(), buffer.get(), ORIENTATIONS[buffer.get()]);
+            case GAME_STARTED -> new GameStarted(timeMillis, gameId, buffer.get());
+            case SHOT_FIRED -> new ShotFired(timeMillis, gameId, buffer.get(), buffer.get(), buffer.get(),
+                SHOT_RESULTS[buffer.get()]);
+            case GAME_ENDED -> new GameEnded(timeMillis, gameId, buffer.get(), END_REASONS[buffer.get()]);
+            case EVENTS_DROPPED -> new EventsDropped(timeMillis, gameId, buffer.getInt());
+            default -> throw new IllegalArgumentException("Неизвестный тип записи журнала: " + type);
+        };
+    }
+
+    private static void header(ByteBuffer buffer, byte type, JournalEvent event) {
+        buffer.put(type);
+        buffer.putLong(event.timeMillis());
+        putString(buffer, event.gameId());
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,40 @@
+package com.battleship.server.journal;
+
+import com.battleship.common.protocol.GameMode;
+
+import static com.battleship.common.model.ModelTypes.*;
+
+/**
+ * Событие журнала партий: одно изменение состояния GameEngine. Игрок записан номером (1 или 2, 0 — нет),
+ * его id есть в GameCreated той же партии. По событиям партии её можно проиграть заново.
+ */
+public sealed interface JournalEvent {
+
+    long timeMillis();
+
+    String gameId();
+
+    record GameCreated(long timeMillis, String gameId, GameMode mode, String player1Id, String player2Id,
+                       long seed) implements JournalEvent {}
+
+    record ShipPlaced(long timeMillis, String gameId, int player, ShipType shipType, int x, int y,
+                      Orientation orientation) implements JournalEvent {}
+
+    record GameStarted(long timeMillis, String gameId, int firstPlayer) implements JournalEvent {}
+
+    record ShotFired(long timeMillis, String gameId, int player, int x, int y,
+                     ShotResultType result) implements JournalEvent {}
+
+    record GameEnded(long timeMillis, String gameId, int winner, EndReason reason) implements JournalEvent {}
+
+    /**
+     * Пропуск: count событий партии, начиная с timeMillis, отброшены на полной очереди.
+     * Пишется, когда поток записи её разобрал; партию с пропуском проиграть заново нельзя
+     */
+    record EventsDropped(long timeMillis, String gameId, int count) implements JournalEvent {}
+
+    /**
+     * CANCELLED — игрок отключился на расстановке, ABANDONED — партию без игроков освободила сверка
+     */
+    enum EndReason { FLEET_SUNK, SURRENDER, SETUP_EXPIRED, TURN_EXPIRED, CANCELLED, ABANDONED }
+}
@@ -0,0 +1,92 @@
+package com.battleship.server.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Чтение журнала партий для аудита, повторов и аналитики. Сегменты читаются по порядку;
+ * сегмент заканчивается на нулевой длине, конце файла или записи с неверной CRC — это хвост,
+ * который не успел попасть на диск до аварийной остановки.
+ * Запуск: java -cp battleship-server.jar com.battleship.server.journal.JournalReader каталог
+ */
+public final class JournalReader {
+    private static final Logger logger = LoggerFactory.getLogger(JournalReader.class);
+
+    private JournalReader() {
+    }
+
+    /**
+     * @return сколько событий прочитано
+     */
+    public static long read(Path directory, Consumer<JournalEvent> consumer) throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(MappedGameJournal::isSegment).sorted().toList();
+        }
+
+        long events = 0;
+        for (Path segment : segments) {
+            events += readSegment(segment, consumer);
+        }
+        return events;
+    }
+
+    private static long readSegment(Path path, Consumer<JournalEvent> consumer) throws IOException {
+        MappedByteBuffer segment;
+        try (FileChannel channel = FileChannel.open(path)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (segment.remaining() < JournalCodec.SEGMENT_HEADER_SIZE || segment.getInt() != JournalCodec.MAGIC) {
+            logger.warn("Сегмент {} не похож на журнал партий, пропущен", path.getFileName());
+            return 0;
+        }
+        int version = segment.getInt();
+        if (version != JournalCodec.VERSION) {
+            logger.warn("Сегмент {} версии {} не поддерживается, пропущен", path.getFileName(), version);
+            return 0;
+        }
+
+        CRC32C crc = new CRC32C();
+        long events = 0;
+        while (segment.remaining() >= JournalCodec.RECORD_HEADER_SIZE) {
+            int length = segment.getInt();
+            int checksum = segment.getInt();
+            if (length <= 0 || length > segment.remaining()) {
+                break;
+            }
+
+            ByteBuffer body = segment.slice(segment.position(), length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                logger.warn("Сегмент {}: запись на смещении {} повреждена, дальше не читается",
+                    path.getFileName(), segment.position() - JournalCodec.RECORD_HEADER_SIZE);
+                break;
+            }
+            consumer.accept(JournalCodec.decode(body));
+            segment.position(segment.position() + length);
+            events++;
+        }
+        return events;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Использование: JournalReader <каталог журнала>");
+            System.exit(1);
+        }
+        long events = read(Path.of(args[0]), System.out::println);
+        System.err.println("Событий: " + events);
+    }
+}
@@ -0,0 +1,302 @@
+package com.battleship.server.journal;
+
+import com.battleship.server.stats.ServerMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Журнал партий в отображённых в память сегментах. append только кладёт событие в ограниченную очередь;
+ * единственный поток записи забирает события пачками, кодирует прямо в сегмент и по политике делает fsync.
+ * Заполненный сегмент сбрасывается на диск, обрезается по записанному и сменяется следующим.
+ * Если очередь полна, событие отбрасывается и считается в battleship_journal_dropped_total:
+ * event loop не ждёт диска. Разобрав очередь, поток записи отмечает каждую такую партию записью EventsDropped.
+ * После перезапуска запись начинается с нового сегмента.
+ */
+public class MappedGameJournal implements GameJournal, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MappedGameJournal.class);
+
+    private static final int MAX_BATCH = 1024;
+    private static final long POLL_INTERVAL_MS = 100;
+    private static final String SEGMENT_SUFFIX = ".journal";
+    // Чужие файлы в каталоге (backup.journal и т.п.) не сегменты и пропускаются
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(\\d{12})\\.journal");
+
+    /**
+     * Когда сбрасывать записанное на диск. NONE — только при смене сегмента и остановке,
+     * BATCH — после каждой пачки, INTERVAL — не чаще раза в fsyncIntervalMs
+     */
+    public enum FsyncPolicy { NONE, BATCH, INTERVAL }
+
+    public record Settings(Path directory, int segmentBytes, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis,
+                           int queueCapacity) {}
+
+    private final Settings settings;
+    private final ServerMetrics metrics;
+    private final BlockingQueue<JournalEvent> queue;
+    // Партии, чьи события отброшены и ещё не отмечены пропуском
+    private final ConcurrentHashMap<String, JournalEvent.EventsDropped> gaps = new ConcurrentHashMap<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile long writtenCount;
+
+    // Состояние потока записи
+    private final ByteBuffer body = ByteBuffer.allocate(JournalCodec.MAX_BODY_SIZE);
+    private final CRC32C crc = new CRC32C();
+    private long segmentIndex;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int forcedPosition;
+    private long lastForceNanos;
+    private boolean failed;
+
+    /**
+     * Открывает первый сегмент сразу, чтобы ошибка каталога была видна при старте, и запускает поток записи
+     */
+    public MappedGameJournal(Settings settings, ServerMetrics metrics) throws IOException {
+        if (settings.segmentBytes() < JournalCodec.SEGMENT_HEADER_SIZE + JournalCodec.RECORD_HEADER_SIZE
+                + JournalCodec.MAX_BODY_SIZE) {
+            throw new IllegalArgumentException("Сегмент журнала слишком мал: " + settings.segmentBytes());
+        }
+        this.settings = settings;
+        this.metrics = metrics;
+        this.queue = new ArrayBlockingQueue<>(settings.queueCapacity());
+
+        Files.createDirectories(settings.directory());
+        segmentIndex = lastSegmentIndex(settings.directory());
+        openNextSegment();
+
+        writer = new Thread(this::writeLoop, "game-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Журнал партий: {} (сегмент {}, сегменты по {} МБ, fsync {})", settings.directory(),
+            segmentFileName(segmentIndex), settings.segmentBytes() >> 20, settings.fsyncPolicy());
+    }
+
+    /**
+     * -Dbattleship.journal.dir=/var/lib/battleship/journal включает журнал; без него журнал выключен
+     */
+    public static MappedGameJournal fromSystemProperties(ServerMetrics metrics) {
+        String dir = System.getProperty("battleship.journal.dir");
+        if (dir == null || dir.isBlank()) {
+            return null;
+        }
+
+        Settings settings = new Settings(
+            Path.of(dir),
+            Integer.getInteger("battleship.journal.segmentMb", 64) << 20,
+            FsyncPolicy.valueOf(System.getProperty("battleship.journal.fsync", "interval").toUpperCase()),
+            Long.getLong("battleship.journal.fsyncIntervalMs", 1000),
+            Integer.getInteger("battleship.journal.queueCapacity", 65536));
+        try {
+            return new MappedGameJournal(settings, metrics);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть журнал партий " + dir, e);
+        }
+    }
+
+    @Override
+    public void append(JournalEvent event) {
+        if (!queue.offer(event)) {
+            metrics.recordJournalDropped();
+            gaps.merge(event.gameId(), new JournalEvent.EventsDropped(event.timeMillis(), event.gameId(), 1),
+                (gap, next) -> new JournalEvent.EventsDropped(gap.timeMillis(), gap.gameId(), gap.count() + 1));
+        }
+    }
+
+    /**
+     * Дописывает очередь, сбрасывает сегмент на диск и останавливает поток записи
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * События, записанные в сегменты с момента старта
+     */
+    public long getWrittenCount() {
+        return writtenCount;
+    }
+
+    private void writeLoop() {
+        List<JournalEvent> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (running || !queue.isEmpty()) {
+                JournalEvent first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    writeBatch(batch);
+                    batch.clear();
+                }
+                writeGaps();
+                if (settings.fsyncPolicy() == FsyncPolicy.INTERVAL
+                        && System.nanoTime() - lastForceNanos >= TimeUnit.MILLISECONDS.toNanos(settings.fsyncIntervalMillis())) {
+                    force();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeGaps();
+        closeSegment();
+    }
+
+    // Пропуск пишется после того, что успело попасть в журнал: читатель видит, что раньше в партии были потери
+    private void writeGaps() {
+        if (gaps.isEmpty()) {
+            return;
+        }
+        if (failed) {
+            gaps.clear();
+            return;
+        }
+        List<JournalEvent> marks = new ArrayList<>();
+        for (String gameId : gaps.keySet()) {
+            JournalEvent.EventsDropped gap = gaps.remove(gameId);
+            if (gap != null) {
+                marks.add(gap);
+            }
+        }
+        writeBatch(marks);
+    }
+
+    private void writeBatch(List<JournalEvent> batch) {
+        if (failed) {
+            // Диск уже отказал: события не теряются молча, а считаются отброшенными
+            batch.forEach(event -> metrics.recordJournalDropped());
+            return;
+        }
+
+        int written = 0;
+        int bytes = 0;
+        try {
+            for (JournalEvent event : batch) {
+                bytes += write(event);
+                written++;
+            }
+            if (settings.fsyncPolicy() == FsyncPolicy.BATCH) {
+                force();
+            }
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            logger.error("Журнал партий остановлен, события дальше не пишутся: {}", e.getMessage(), e);
+            for (int i = written; i < batch.size(); i++) {
+                metrics.recordJournalDropped();
+            }
+        }
+        writtenCount += written;
+        metrics.recordJournalBatch(written, bytes);
+    }
+
+    /**
+     * @return размер записи в сегменте
+     */
+    private int write(JournalEvent event) throws IOException {
+        body.clear();
+        JournalCodec.encode(event, body);
+        body.flip();
+        int length = body.remaining();
+
+        // Ноль после последней записи — признак конца для читателя, поэтому запись не доходит до края вплотную
+        if (segment.remaining() < JournalCodec.RECORD_HEADER_SIZE + length + 4) {
+            closeSegment();
+            openNextSegment();
+        }
+
+        crc.reset();
+        crc.update(body.array(), 0, length);
+        int start = segment.position();
+        segment.position(start + JournalCodec.RECORD_HEADER_SIZE);
+        segment.put(body);
+        // Длина пишется последней: читатель не увидит запись, пока она не дописана целиком
+        segment.putInt(start + 4, (int) crc.getValue());
+        segment.putInt(start, length);
+        return JournalCodec.RECORD_HEADER_SIZE + length;
+    }
+
+    private void force() {
+        if (segment == null) {
+            return;
+        }
+        int position = segment.position();
+        if (position > forcedPosition) {
+            segment.force(forcedPosition, position - forcedPosition);
+            forcedPosition = position;
+            metrics.recordJournalFsync();
+        }
+        lastForceNanos = System.nanoTime();
+    }
+
+    private void openNextSegment() throws IOException {
+        segmentIndex++;
+        Path path = settings.directory().resolve(segmentFileName(segmentIndex));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, settings.segmentBytes());
+        segment.putInt(JournalCodec.MAGIC);
+        segment.putInt(JournalCodec.VERSION);
+        forcedPosition = 0;
+    }
+
+    // Сегмент, дописанный до конца или при остановке: на диск и обрезка незаполненного хвоста
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            force();
+            channel.truncate(segment.position());
+            channel.close();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Не удалось закрыть сегмент журнала {}: {}", segmentFileName(segmentIndex), e.getMessage());
+        }
+        segment = null;
+    }
+
+    private static long lastSegmentIndex(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> SEGMENT_NAME.matcher(path.getFileName().toString()))
+                .filter(Matcher::matches)
+                .mapToLong(name -> Long.parseLong(name.group(1)))
+                .max()
+                .orElse(0);
+        }
+    }
+
+    static String segmentFileName(long index) {
+        return String.format("%012d%s", index, SEGMENT_SUFFIX);
+    }
+
+    static boolean isSegment(Path path) {
+        return SEGMENT_NAME.matcher(path.getFileName().toString()).matches();
+    }
+}
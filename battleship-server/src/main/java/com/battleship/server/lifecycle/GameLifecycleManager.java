@@ -0,0 +1,275 @@
+package com.battleship.server.lifecycle;
+
+import com.battleship.common.model.ModelTypes.GameStatus;
+import com.battleship.common.protocol.GameMode;
+import com.battleship.server.ai.AIService;
+import com.battleship.server.game.GameEngine;
+import com.battleship.server.journal.JournalEvent;
+import com.battleship.server.matchmaking.MatchmakingService;
+import com.battleship.server.session.PlayerSession;
+import com.battleship.server.session.SessionManager;
+import com.battleship.server.spectate.SpectatorHub;
+import com.battleship.server.stats.ServerMetrics;
+import io.netty.channel.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Владелец ресурсов партии: запись в MatchmakingService с часами, AI игрок и ссылки сессий на игру
+ * создаются и освобождаются только здесь. Освобождение идемпотентно, поэтому его можно вызывать
+ * из любого пути завершения: победа, сдача, отключение, часы.
+ * Сверка по таймеру находит то, что пути завершения пропустили: завершённые или никому не нужные
+ * партии, AI игроков без партии и сессии, ссылающиеся на удалённую игру. Партию она освобождает,
+ * только если та была подозрительной и на прошлой сверке — чтобы не забрать партию, которую
+ * в этот момент завершает обработчик сообщения.
+ * Сессия игрока, потерявшего соединение посреди партии, живёт ещё resumeGraceMillis: за это время
+ * игрок может вернуться по RESUME, а партия ждёт его под обычными часами хода.
+ */
+public class GameLifecycleManager {
+    private static final Logger logger = LoggerFactory.getLogger(GameLifecycleManager.class);
+
+    private final SessionManager sessionManager;
+    private final MatchmakingService matchmakingService;
+    private final AIService aiService;
+    private final ServerMetrics metrics;
+    private final long resumeGraceMillis;
+    private final SpectatorHub spectators;
+
+    // Трогает только поток сверки
+    private Set<String> suspectGames = new HashSet<>();
+    private ScheduledExecutorService scheduler;
+
+    public GameLifecycleManager(SessionManager sessionManager, MatchmakingService matchmakingService,
+                                AIService aiService, ServerMetrics metrics) {
+        this(sessionManager, matchmakingService, aiService, metrics, 0, SpectatorHub.fromSystemProperties(metrics));
+    }
+
+    /**
+     * @param resumeGraceMillis сколько держать сессию и партию после обрыва связи; 0 — поражение сразу, как раньше
+     * @param spectators        зрители партий; их группа освобождается вместе с партией
+     */
+    public GameLifecycleManager(SessionManager sessionManager, MatchmakingService matchmakingService,
+                                AIService aiService, ServerMetrics metrics, long resumeGraceMillis,
+                                SpectatorHub spectators) {
+        this.sessionManager = sessionManager;
+        this.matchmakingService = matchmakingService;
+        this.aiService = aiService;
+        this.metrics = metrics;
+        this.resumeGraceMillis = resumeGraceMillis;
+        this.spectators = spectators;
+    }
+
+    /**
+     * Ищет игру; для PvE сразу создаёт AI игрока и расставляет его флот. Зритель, начав искать свою партию,
+     * перестаёт смотреть чужую. Сессия с handle не зритель: смотрит основная сессия её соединения
+     */
+    public MatchmakingService.MatchResult findGame(PlayerSession player, GameMode mode) {
+        if (player.getHandle() == null) {
+            spectators.leave(player.getChannel());
+        }
+        var result = matchmakingService.findGame(player, mode);
+        if (result.found() && result.opponent() == null) {
+            aiService.createAIPlayer(result.game().getGameState().getPlayer2Id(), result.game());
+        }
+        return result;
+    }
+
+    /**
+     * Освобождает всё, что держит партия: удаляет её вместе с часами и группой зрителей, удаляет AI игрока
+     * и снимает игроков с партии, если они ещё в ней
+     */
+    public void releaseGame(GameEngine game) {
+        var state = game.getGameState();
+        String gameId = state.getGameId();
+
+        matchmakingService.removeGame(gameId);
+        spectators.closeGame(gameId);
+        releasePlayer(state.getPlayer1Id(), gameId);
+        releasePlayer(state.getPlayer2Id(), gameId);
+    }
+
+    private void releasePlayer(String playerId, String gameId) {
+        if (playerId.startsWith("AI-")) {
+            aiService.removeAIPlayer(playerId);
+        } else {
+            sessionManager.getSession(playerId).ifPresent(session -> session.leaveGame(gameId));
+        }
+    }
+
+    /**
+     * Удаляет сессию закрытого соединения и снимает игрока с поиска. Партию игрока к этому моменту
+     * уже должен завершить или отменить вызывающий
+     */
+    public void releaseSession(PlayerSession session) {
+        if (!session.isInGame()) {
+            matchmakingService.cancelSearch(session);
+        }
+        sessionManager.removeSession(session);
+    }
+
+    /**
+     * Оставляет сессию игрока в партии ждать возврата после обрыва lostChannel
+     *
+     * @return false, если окна возврата нет или игрок не в партии — сессию нужно закрыть сразу
+     */
+    public boolean detachSession(PlayerSession session, Channel lostChannel) {
+        if (resumeGraceMillis <= 0 || !session.isInGame()) {
+            return false;
+        }
+        if (sessionManager.detach(session, lostChannel)) {
+            metrics.recordSessionDetached();
+        }
+        return true;
+    }
+
+    /**
+     * Привязывает сессию по токену к новому соединению
+     */
+    public Optional<PlayerSession> resumeSession(String resumeToken, Channel channel) {
+        Optional<PlayerSession> session = sessionManager.resume(resumeToken, channel);
+        metrics.recordResume(session.isPresent());
+        return session;
+    }
+
+    /**
+     * Окно возврата истекло. true — игрок не вернулся, сессия закрыта и вызывающий завершает её партию
+     */
+    public boolean expireDetached(PlayerSession session, Channel lostChannel) {
+        if (!sessionManager.expireDetached(session, lostChannel)) {
+            return false;
+        }
+        metrics.recordGraceExpired();
+        return true;
+    }
+
+    public long getResumeGraceMillis() {
+        return resumeGraceMillis;
+    }
+
+    public SpectatorHub getSpectators() {
+        return spectators;
+    }
+
+    public void start(long intervalSeconds) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lifecycle-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::reconcileSafely, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // Исключение в задаче ScheduledExecutorService молча отменяет все следующие запуски
+    private void reconcileSafely() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            logger.error("Ошибка сверки ресурсов: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Одна сверка. Вызывается из потока сверки, в тестовых стендах — напрямую
+     */
+    public synchronized ReconcileResult reconcile() {
+        int finishedGames = 0;
+        int orphanGames = 0;
+        Set<String> suspects = new HashSet<>();
+
+        for (GameEngine game : matchmakingService.getActiveGames()) {
+            var state = game.getGameState();
+            String gameId = state.getGameId();
+            boolean finished = state.getStatus() == GameStatus.FINISHED;
+            if (!finished && (isReferenced(state.getPlayer1Id(), gameId) || isReferenced(state.getPlayer2Id(), gameId))) {
+                continue;
+            }
+            if (!suspectGames.contains(gameId)) {
+                suspects.add(gameId);
+                continue;
+            }
+
+            if (!finished) {
+                game.abandon(JournalEvent.EndReason.ABANDONED);
+            }
+            releaseGame(game);
+            if (finished) {
+                finishedGames++;
+            } else {
+                orphanGames++;
+            }
+        }
+        suspectGames = suspects;
+
+        int orphanAIPlayers = 0;
+        for (Map.Entry<String, String> entry : aiService.getAIPlayerGames().entrySet()) {
+            if (matchmakingService.getGame(entry.getValue()) == null) {
+                aiService.removeAIPlayer(entry.getKey());
+                orphanAIPlayers++;
+            }
+        }
+
+        // Игра попадает в MatchmakingService раньше, чем id игры — в сессию, поэтому ссылка на отсутствующую игру устарела
+        int danglingSessions = 0;
+        for (PlayerSession session : sessionManager.getSessions()) {
+            String gameId = session.getCurrentGameId();
+            if (gameId != null && matchmakingService.getGame(gameId) == null) {
+                session.leaveGame(gameId);
+                danglingSessions++;
+            }
+        }
+
+        ReconcileResult result = new ReconcileResult(finishedGames, orphanGames, orphanAIPlayers, danglingSessions);
+        metrics.recordReclaimed(result);
+        if (result.total() > 0) {
+            logger.warn("Сверка освободила ресурсы, пропущенные при завершении: {}", result);
+        }
+        return result;
+    }
+
+    // Партию держит сессия игрока, который в ней; у AI сессии нет
+    private boolean isReferenced(String playerId, String gameId) {
+        return sessionManager.getSession(playerId)
+            .map(session -> gameId.equals(session.getCurrentGameId()))
+            .orElse(false);
+    }
+
+    public LiveCounts liveCounts() {
+        return new LiveCounts(
+            sessionManager.getSessionCount(),
+            matchmakingService.getActiveGameCount(),
+            aiService.getAIPlayerCount(),
+            matchmakingService.getTurnClockCount(),
+            matchmakingService.getPvpQueueSize(),
+            matchmakingService.getBlitzQueueSize());
+    }
+
+    /**
+     * Что освободила сверка
+     *
+     * @param finishedGames     завершённые партии, которые никто не удалил
+     * @param orphanGames       незавершённые партии, на которые не ссылается ни одна сессия
+     * @param orphanAIPlayers   AI игроки без партии
+     * @param danglingSessions  сессии, ссылавшиеся на удалённую партию
+     */
+    public record ReconcileResult(int finishedGames, int orphanGames, int orphanAIPlayers, int danglingSessions) {
+        public int total() {
+            return finishedGames + orphanGames + orphanAIPlayers + danglingSessions;
+        }
+    }
+
+    public record LiveCounts(int sessions, int activeGames, int aiPlayers, int turnClocks, int pvpQueue, int blitzQueue) {}
+}
@@ -0,0 +1,87 @@
+package com.battleship.server.load;
+
+import com.battleship.server.stats.ServerMetrics;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Задержка планирования на каждом event loop: пробная задача ставится в расписание самого loop
+ * на intervalMs вперёд, и её опоздание — это время, которое loop был занят другими задачами.
+ * После каждого замера LoadShedder получает наибольшую задержку и очередь среди всех loop.
+ * Если loop заблокирован и проба не выполняется, в расчёт идёт время, на которое она уже опоздала.
+ */
+public class EventLoopLagMonitor {
+
+    private final List<EventExecutor> loops = new ArrayList<>();
+    private final long intervalNanos;
+    private final LoadShedder loadShedder;
+    private final ServerMetrics metrics;
+
+    // По индексу loop: последняя измеренная задержка и когда должна выполниться следующая проба
+    private final AtomicLongArray lastLagNanos;
+    private final AtomicLongArray probeDeadlines;
+
+    private volatile boolean running;
+
+    public EventLoopLagMonitor(EventLoopGroup group, long intervalMs, LoadShedder loadShedder, ServerMetrics metrics) {
+        group.forEach(loops::add);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        this.loadShedder = loadShedder;
+        this.metrics = metrics;
+        this.lastLagNanos = new AtomicLongArray(loops.size());
+        this.probeDeadlines = new AtomicLongArray(loops.size());
+    }
+
+    public void start() {
+        running = true;
+        for (int i = 0; i < loops.size(); i++) {
+            scheduleProbe(i);
+        }
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    private void scheduleProbe(int index) {
+        if (!running) {
+            return;
+        }
+        probeDeadlines.set(index, System.nanoTime() + intervalNanos);
+        loops.get(index).schedule(() -> probe(index), intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void probe(int index) {
+        long lag = Math.max(0, System.nanoTime() - probeDeadlines.get(index));
+        lastLagNanos.set(index, lag);
+        metrics.recordEventLoopLag(lag);
+        loadShedder.update(getMaxLagNanos(), getMaxPendingTasks());
+        scheduleProbe(index);
+    }
+
+    public long getMaxLagNanos() {
+        long now = System.nanoTime();
+        long max = 0;
+        for (int i = 0; i < loops.size(); i++) {
+            long overdue = now - probeDeadlines.get(i);
+            max = Math.max(max, Math.max(lastLagNanos.get(i), overdue));
+        }
+        return max;
+    }
+
+    public int getMaxPendingTasks() {
+        int max = 0;
+        for (EventExecutor loop : loops) {
+            if (loop instanceof SingleThreadEventExecutor executor) {
+                max = Math.max(max, executor.pendingTasks());
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,77 @@
+package com.battleship.server.load;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Решает, принимать ли новые подключения и поиски игр, по задержке и очереди задач event loop.
+ * Сброс включается, когда задержка или очередь выше верхнего порога, и выключается, только когда
+ * обе опустились ниже нижнего: без гистерезиса сервер переключался бы на каждом замере.
+ * Идущие партии сброс не затрагивает — лучше отказать новой игре, чем замедлить все текущие.
+ */
+public class LoadShedder {
+    private static final Logger logger = LoggerFactory.getLogger(LoadShedder.class);
+
+    private final long highLagNanos;
+    private final long lowLagNanos;
+    private final int highPendingTasks;
+    private final int lowPendingTasks;
+    private final long retryAfterMs;
+
+    private volatile boolean shedding;
+    private long sheddingSinceNanos;
+
+    /**
+     * @param highLagMs        задержка event loop, с которой начинается сброс
+     * @param lowLagMs         задержка, ниже которой сброс заканчивается
+     * @param highPendingTasks задачи в очереди одного event loop, с которых начинается сброс
+     * @param lowPendingTasks  задачи, ниже которых сброс заканчивается
+     * @param retryAfterMs     через сколько клиенту повторить отклонённый запрос
+     */
+    public LoadShedder(long highLagMs, long lowLagMs, int highPendingTasks, int lowPendingTasks, long retryAfterMs) {
+        if (lowLagMs > highLagMs || lowPendingTasks > highPendingTasks) {
+            throw new IllegalArgumentException("Нижний порог сброса нагрузки выше верхнего");
+        }
+        this.highLagNanos = TimeUnit.MILLISECONDS.toNanos(highLagMs);
+        this.lowLagNanos = TimeUnit.MILLISECONDS.toNanos(lowLagMs);
+        this.highPendingTasks = highPendingTasks;
+        this.lowPendingTasks = lowPendingTasks;
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public static LoadShedder fromSystemProperties() {
+        return new LoadShedder(
+            Long.getLong("battleship.shed.highLagMs", 100),
+            Long.getLong("battleship.shed.lowLagMs", 20),
+            Integer.getInteger("battleship.shed.highPendingTasks", 1000),
+            Integer.getInteger("battleship.shed.lowPendingTasks", 100),
+            Long.getLong("battleship.shed.retryAfterMs", 2000));
+    }
+
+    /**
+     * Новый замер: наибольшая задержка и наибольшая очередь среди event loop
+     */
+    public synchronized void update(long maxLagNanos, int maxPendingTasks) {
+        if (!shedding && (maxLagNanos >= highLagNanos || maxPendingTasks >= highPendingTasks)) {
+            shedding = true;
+            sheddingSinceNanos = System.nanoTime();
+            logger.warn("Перегрузка: задержка event loop {} мс, задач в очереди {}; новые подключения и поиски игр отклоняются",
+                TimeUnit.NANOSECONDS.toMillis(maxLagNanos), maxPendingTasks);
+        } else if (shedding && maxLagNanos < lowLagNanos && maxPendingTasks < lowPendingTasks) {
+            shedding = false;
+            logger.info("Нагрузка снизилась: задержка event loop {} мс, задач в очереди {}; сброс длился {} мс",
+                TimeUnit.NANOSECONDS.toMillis(maxLagNanos), maxPendingTasks,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sheddingSinceNanos));
+        }
+    }
+
+    public boolean isShedding() {
+        return shedding;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -0,0 +1,241 @@
+package com.battleship.server.lobby;
+
+import com.battleship.common.protocol.Messages;
+import com.battleship.common.protocol.PresenceStatus;
+import com.battleship.server.matchmaking.MatchmakingService;
+import com.battleship.server.session.PlayerSession;
+import com.battleship.server.session.SessionManager;
+import com.battleship.server.stats.ServerMetrics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Лобби: кто в сети, кто ищет игру, кто играет и размеры очередей.
+ * Раз в тик состояние собирается из SessionManager и MatchmakingService и сравнивается с разосланным;
+ * разница кодируется один раз и уходит всем подписчикам как retainedDuplicate одного буфера.
+ * Подписчик, канал которого не принимает запись, пропускает дельты; когда канал освободится,
+ * он получает снимок вместо пропущенного. Без подписчиков тик ничего не собирает.
+ * Подписка и отписка выполняются в потоке лобби: event loop не ждёт тика, который обходит все сессии.
+ */
+public class LobbyService {
+    private static final Logger logger = LoggerFactory.getLogger(LobbyService.class);
+
+    private static final AttributeKey<Boolean> LAGGING = AttributeKey.valueOf("battleship.lobbyLagging");
+
+    private final SessionManager sessionManager;
+    private final MatchmakingService matchmakingService;
+    private final ServerMetrics metrics;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ChannelGroup subscribers = new DefaultChannelGroup("lobby", GlobalEventExecutor.INSTANCE);
+
+    // Разосланное состояние и его снимок; под монитором сервиса
+    private Map<String, Messages.LobbyPlayer> published = new HashMap<>();
+    private int online;
+    private int pvpQueue;
+    private int blitzQueue;
+    private long seq;
+    private TextWebSocketFrame snapshotFrame;
+
+    private volatile ScheduledExecutorService scheduler;
+
+    public LobbyService(SessionManager sessionManager, MatchmakingService matchmakingService, ServerMetrics metrics) {
+        this.sessionManager = sessionManager;
+        this.matchmakingService = matchmakingService;
+        this.metrics = metrics;
+    }
+
+    public void start(long tickMillis) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lobby-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::tickSafely, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Подписывает канал и отправляет ему снимок последнего разосланного состояния
+     */
+    public void subscribe(Channel channel) {
+        runOnTicker(() -> subscribeNow(channel));
+    }
+
+    public void unsubscribe(Channel channel) {
+        runOnTicker(() -> unsubscribeNow(channel));
+    }
+
+    private synchronized void subscribeNow(Channel channel) {
+        channel.attr(LAGGING).set(null);
+        subscribers.add(channel);
+        channel.writeAndFlush(snapshotFrame().retainedDuplicate());
+    }
+
+    private synchronized void unsubscribeNow(Channel channel) {
+        subscribers.remove(channel);
+    }
+
+    // Без запущенного потока (тестовые стенды) — сразу в потоке вызова; после stop подписки уже не нужны
+    private void runOnTicker(Runnable task) {
+        ScheduledExecutorService ticker = scheduler;
+        if (ticker == null) {
+            task.run();
+            return;
+        }
+        try {
+            ticker.execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Лобби остановлено, подписка не изменена");
+        }
+    }
+
+    // Исключение в задаче ScheduledExecutorService молча отменяет все следующие запуски
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            logger.error("Ошибка рассылки лобби: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Один тик. Вызывается из потока лобби, в тестовых стендах — напрямую
+     */
+    public synchronized void tick() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        Messages.LobbyUpdate update = collectChanges();
+        TextWebSocketFrame frame = update != null ? encode(update) : null;
+        int written = 0;
+        try {
+            for (Channel subscriber : subscribers) {
+                if (subscriber.attr(LAGGING).get() != null) {
+                    // Пропустил дельты: догоняет снимком, как только канал снова принимает запись
+                    if (subscriber.isWritable()) {
+                        subscriber.attr(LAGGING).set(null);
+                        subscriber.writeAndFlush(snapshotFrame().retainedDuplicate());
+                        metrics.recordLobbyResync();
+                    }
+                } else if (frame != null) {
+                    if (subscriber.isWritable()) {
+                        subscriber.writeAndFlush(frame.retainedDuplicate());
+                        written++;
+                    } else {
+                        subscriber.attr(LAGGING).set(Boolean.TRUE);
+                    }
+                }
+            }
+        } finally {
+            if (frame != null) {
+                frame.release();
+            }
+        }
+        if (update != null) {
+            metrics.recordLobbyUpdate(written);
+        }
+    }
+
+    /**
+     * Сравнивает текущее лобби с разосланным и запоминает текущее
+     *
+     * @return дельта со следующим seq; null, если ничего не изменилось
+     */
+    private Messages.LobbyUpdate collectChanges() {
+        Set<String> queued = matchmakingService.getQueuedPlayerIds();
+        Map<String, Messages.LobbyPlayer> current = new HashMap<>(published.size() * 2);
+        for (PlayerSession session : sessionManager.getSessions()) {
+            String gameId = session.getCurrentGameId();
+            PresenceStatus status = gameId != null ? PresenceStatus.PLAYING
+                : queued.contains(session.getPlayerId()) ? PresenceStatus.SEARCHING
+                : PresenceStatus.IDLE;
+            current.put(session.getPlayerId(),
+                new Messages.LobbyPlayer(session.getPlayerId(), session.getPlayerName(), status, gameId));
+        }
+
+        List<Messages.LobbyPlayer> changed = new ArrayList<>();
+        for (Messages.LobbyPlayer player : current.values()) {
+            if (!player.equals(published.get(player.playerId()))) {
+                changed.add(player);
+            }
+        }
+        List<String> left = new ArrayList<>();
+        for (String playerId : published.keySet()) {
+            if (!current.containsKey(playerId)) {
+                left.add(playerId);
+            }
+        }
+
+        int newOnline = current.size();
+        int newPvpQueue = matchmakingService.getPvpQueueSize();
+        int newBlitzQueue = matchmakingService.getBlitzQueueSize();
+        if (changed.isEmpty() && left.isEmpty()
+                && newOnline == online && newPvpQueue == pvpQueue && newBlitzQueue == blitzQueue) {
+            return null;
+        }
+
+        Messages.LobbyUpdate update = new Messages.LobbyUpdate(++seq,
+            changedOrNull(online, newOnline), changedOrNull(pvpQueue, newPvpQueue),
+            changedOrNull(blitzQueue, newBlitzQueue), changed, left);
+
+        published = current;
+        online = newOnline;
+        pvpQueue = newPvpQueue;
+        blitzQueue = newBlitzQueue;
+        if (snapshotFrame != null) {
+            snapshotFrame.release();
+            snapshotFrame = null;
+        }
+        return update;
+    }
+
+    private static Integer changedOrNull(int previous, int current) {
+        return previous == current ? null : current;
+    }
+
+    // Снимок кодируется один раз на seq и раздаётся всем, кто подписался или догоняет в этом тике
+    private TextWebSocketFrame snapshotFrame() {
+        if (snapshotFrame == null) {
+            snapshotFrame = encode(new Messages.LobbySnapshot(seq, online, pvpQueue, blitzQueue,
+                List.copyOf(published.values())));
+        }
+        return snapshotFrame;
+    }
+
+    private TextWebSocketFrame encode(Messages.Message message) {
+        try {
+            return new TextWebSocketFrame(Unpooled.wrappedBuffer(objectMapper.writeValueAsBytes(message)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось закодировать " + message.getType(), e);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+}
@@ -0,0 +1,44 @@
+package com.battleship.server.logging;
+
+import org.slf4j.MDC;
+
+/**
+ * MDC с gameId и playerId на время обработки сообщения или хода AI.
+ * Потоки event loop обслуживают много каналов, поэтому контекст снимается в close:
+ * <pre>
+ * try (GameLogContext ignored = GameLogContext.open(gameId, playerId)) { ... }
+ * </pre>
+ */
+public final class GameLogContext implements AutoCloseable {
+    public static final String GAME_ID = "gameId";
+    public static final String PLAYER_ID = "playerId";
+
+    private static final GameLogContext INSTANCE = new GameLogContext();
+
+    private GameLogContext() {
+    }
+
+    /**
+     * @param gameId   id игры или null, если игрок не в игре
+     * @param playerId id игрока или null до CONNECT
+     */
+    public static GameLogContext open(String gameId, String playerId) {
+        put(GAME_ID, gameId);
+        put(PLAYER_ID, playerId);
+        return INSTANCE;
+    }
+
+    private static void put(String key, String value) {
+        if (value != null) {
+            MDC.put(key, value);
+        } else {
+            MDC.remove(key);
+        }
+    }
+
+    @Override
+    public void close() {
+        MDC.remove(GAME_ID);
+        MDC.remove(PLAYER_ID);
+    }
+}
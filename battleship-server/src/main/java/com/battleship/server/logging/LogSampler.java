@@ -0,0 +1,54 @@
+package com.battleship.server.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограничитель частоты для частых логов (по строке на выстрел): не больше permitsPerSecond записей
+ * в секундное окно, остальные считаются пропущенными и сообщаются в следующей записи.
+ * Без блокировок; на границе окна несколько потоков могут пропустить пару лишних записей.
+ * Проверять уровень логгера нужно до tryAcquire, чтобы выключенный лог не тратил разрешения.
+ */
+public class LogSampler {
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int permitsPerSecond;
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger used = new AtomicInteger();
+    private final LongAdder suppressed = new LongAdder();
+
+    public LogSampler(int permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    /**
+     * Частота из системного свойства, например -Dbattleship.log.shotsPerSec=50; 0 выключает записи
+     */
+    public static LogSampler fromSystemProperty(String property, int defaultPermitsPerSecond) {
+        return new LogSampler(Integer.getInteger(property, defaultPermitsPerSecond));
+    }
+
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            used.set(0);
+        }
+
+        // Когда окно исчерпано, только читаем счётчик: потоки не дерутся за одну кэш-линию
+        if (used.get() < permitsPerSecond && used.incrementAndGet() <= permitsPerSecond) {
+            return true;
+        }
+        suppressed.increment();
+        return false;
+    }
+
+    /**
+     * Число записей, пропущенных с прошлого вызова
+     */
+    public long drainSuppressed() {
+        return suppressed.sumThenReset();
+    }
+}
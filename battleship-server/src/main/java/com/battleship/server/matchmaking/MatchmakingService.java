@@ -1,14 +1,23 @@
 package com.battleship.server.matchmaking;
 
 import com.battleship.common.protocol.GameMode;
+import com.battleship.common.time.GameClock;
 import com.battleship.server.game.GameEngine;
+import com.battleship.server.game.SeedSource;
+import com.battleship.server.game.TurnClockPolicy;
+import com.battleship.server.game.TurnClocks;
+import com.battleship.server.jfr.GameCreatedEvent;
+import com.battleship.server.journal.GameJournal;
+import com.battleship.server.journal.JournalEvent;
 import com.battleship.server.session.PlayerSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Queue;
-import java.util.UUID;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
@@ -19,58 +28,135 @@ public class MatchmakingService {
     private static final Logger logger = LoggerFactory.getLogger(MatchmakingService.class);
 
     private final Queue<PlayerSession> pvpQueue = new ConcurrentLinkedQueue<>();
+    private final Queue<PlayerSession> blitzQueue = new ConcurrentLinkedQueue<>();
     private final Map<String, GameEngine> activeGames = new ConcurrentHashMap<>();
+    private final SeedSource seeds;
+    private final GameClock clock;
+    private final TurnClocks turnClocks;
+    private final GameJournal journal;
+
+    public MatchmakingService() {
+        this(SeedSource.random(), GameClock.system());
+    }
+
+    /**
+     * Без часов партий: срок хода проверяется только при выстреле, зависшие партии не завершаются
+     */
+    public MatchmakingService(SeedSource seeds, GameClock clock) {
+        this(seeds, clock, null);
+    }
+
+    public MatchmakingService(SeedSource seeds, GameClock clock, TurnClocks turnClocks) {
+        this(seeds, clock, turnClocks, GameJournal.disabled());
+    }
+
+    public MatchmakingService(SeedSource seeds, GameClock clock, TurnClocks turnClocks, GameJournal journal) {
+        this.seeds = seeds;
+        this.clock = clock;
+        this.turnClocks = turnClocks;
+        this.journal = journal;
+    }
 
     public synchronized MatchResult findGame(PlayerSession player, GameMode gameMode) {
-        if (gameMode == GameMode.PVP) {
-            return findPvPGame(player);
-        } else {
-            return findPvEGame(player);
-        }
+        return switch (gameMode) {
+            case PVP -> findPvPGame(player, pvpQueue, GameMode.PVP);
+            case BLITZ -> findPvPGame(player, blitzQueue, GameMode.BLITZ);
+            default -> findPvEGame(player);
+        };
     }
 
-    private MatchResult findPvPGame(PlayerSession player) {
-        PlayerSession opponent = pvpQueue.poll();
+    private MatchResult findPvPGame(PlayerSession player, Queue<PlayerSession> queue, GameMode mode) {
+        PlayerSession opponent = queue.poll();
 
         if (opponent == null) {
-            pvpQueue.offer(player);
-            logger.info("Игрок {} ({}) добавлен в очередь PvP", player.getPlayerName(), player.getPlayerId());
+            queue.offer(player);
+            logger.info("Игрок {} ({}) добавлен в очередь {}", player.getPlayerName(), player.getPlayerId(), mode);
             return new MatchResult(false, null, null);
         }
 
-        String gameId = UUID.randomUUID().toString();
-        GameEngine game = new GameEngine(gameId, player.getPlayerId(), opponent.getPlayerId());
+        SeedSource.GameSeed gameSeed = seeds.nextGame();
+        String gameId = gameSeed.gameId();
+        GameEngine game = new GameEngine(gameId, player.getPlayerId(), opponent.getPlayerId(), clock, gameSeed.seed(),
+            limitsFor(mode), journal);
 
         activeGames.put(gameId, game);
         player.setCurrentGameId(gameId);
         opponent.setCurrentGameId(gameId);
 
-        logger.info("Создана PvP игра {} между {} и {}",
-                    gameId, player.getPlayerName(), opponent.getPlayerName());
+        logger.info("Создана {} игра {} между {} и {}",
+                    mode, gameId, player.getPlayerName(), opponent.getPlayerName());
+        recordGameCreated(game, mode);
+        journalGameCreated(game, mode);
+        if (turnClocks != null) {
+            turnClocks.track(game);
+        }
 
         return new MatchResult(true, game, opponent);
     }
 
     private MatchResult findPvEGame(PlayerSession player) {
-        String gameId = UUID.randomUUID().toString();
-        String aiPlayerId = "AI-" + UUID.randomUUID();
+        SeedSource.GameSeed gameSeed = seeds.nextGame();
+        String gameId = gameSeed.gameId();
+        String aiPlayerId = seeds.nextAIPlayerId();
 
-        GameEngine game = new GameEngine(gameId, player.getPlayerId(), aiPlayerId);
+        GameEngine game = new GameEngine(gameId, player.getPlayerId(), aiPlayerId, clock, gameSeed.seed(),
+            limitsFor(GameMode.PVE), journal);
 
         activeGames.put(gameId, game);
         player.setCurrentGameId(gameId);
 
         logger.info("Создана PvE игра {} для игрока {} против AI", gameId, player.getPlayerName());
+        recordGameCreated(game, GameMode.PVE);
+        journalGameCreated(game, GameMode.PVE);
+        if (turnClocks != null) {
+            turnClocks.track(game);
+        }
 
         return new MatchResult(true, game, null);
     }
 
+    private TurnClockPolicy.Limits limitsFor(GameMode mode) {
+        return turnClocks != null ? turnClocks.getPolicy().limitsFor(mode) : TurnClockPolicy.DEFAULT_LIMITS;
+    }
+
+    private static void recordGameCreated(GameEngine game, GameMode mode) {
+        GameCreatedEvent event = new GameCreatedEvent();
+        if (event.shouldCommit()) {
+            var state = game.getGameState();
+            event.gameId = state.getGameId();
+            event.mode = mode.name();
+            event.player1Id = state.getPlayer1Id();
+            event.player2Id = state.getPlayer2Id();
+            event.seed = game.getSeed();
+            event.commit();
+        }
+    }
+
+    // Игроки узнают о партии после возврата из findGame, поэтому GameCreated в журнале идёт раньше её ходов
+    private void journalGameCreated(GameEngine game, GameMode mode) {
+        var state = game.getGameState();
+        journal.append(new JournalEvent.GameCreated(clock.millis(), state.getGameId(), mode,
+            state.getPlayer1Id(), state.getPlayer2Id(), game.getSeed()));
+    }
+
+    /**
+     * Партия перешла из расстановки в игру: часы переключаются на срок хода
+     */
+    public void gameStarted(GameEngine game) {
+        if (turnClocks != null) {
+            turnClocks.restart(game);
+        }
+    }
+
     public GameEngine getGame(String gameId) {
         return activeGames.get(gameId);
     }
 
     public void removeGame(String gameId) {
         GameEngine game = activeGames.remove(gameId);
+        if (turnClocks != null) {
+            turnClocks.untrack(gameId);
+        }
         if (game != null) {
             logger.info("Игра {} удалена", gameId);
         }
@@ -78,9 +164,14 @@ public class MatchmakingService {
 
     public void cancelSearch(PlayerSession player) {
         pvpQueue.remove(player);
+        blitzQueue.remove(player);
         logger.info("Игрок {} ({}) отменил поиск игры", player.getPlayerName(), player.getPlayerId());
     }
 
+    public Collection<GameEngine> getActiveGames() {
+        return activeGames.values();
+    }
+
     public int getActiveGameCount() {
         return activeGames.size();
     }
@@ -89,5 +180,23 @@ public class MatchmakingService {
         return pvpQueue.size();
     }
 
+    public int getBlitzQueueSize() {
+        return blitzQueue.size();
+    }
+
+    /**
+     * Игроки в очередях PvP и блица на момент вызова
+     */
+    public Set<String> getQueuedPlayerIds() {
+        Set<String> queued = new HashSet<>();
+        pvpQueue.forEach(player -> queued.add(player.getPlayerId()));
+        blitzQueue.forEach(player -> queued.add(player.getPlayerId()));
+        return queued;
+    }
+
+    public int getTurnClockCount() {
+        return turnClocks != null ? turnClocks.getTrackedCount() : 0;
+    }
+
     public record MatchResult(boolean found, GameEngine game, PlayerSession opponent) {}
 }
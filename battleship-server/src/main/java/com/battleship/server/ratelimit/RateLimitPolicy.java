@@ -0,0 +1,79 @@
+package com.battleship.server.ratelimit;
+
+import com.battleship.common.protocol.MessageType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Бюджеты лимитера: скорость и запас по каждому типу входящего сообщения на соединение,
+ * бюджет нарушений до разрыва соединения и ограничения подключений с одного IP.
+ * Бюджеты задаются свойствами -Dbattleship.ratelimit.&lt;TYPE&gt;=скорость:запас, например
+ * -Dbattleship.ratelimit.FIRE=100:200; OTHER — сообщения, тип которых не удалось определить.
+ */
+public record RateLimitPolicy(
+    boolean enabled,
+    Map<MessageType, Budget> messageBudgets,
+    Budget otherMessages,
+    Budget violations,
+    int maxConnectionsPerIp,
+    Budget connectionsPerIp,
+    boolean exemptLoopback
+) {
+    private static final String PREFIX = "battleship.ratelimit.";
+
+    /**
+     * @param perSecond средняя скорость
+     * @param burst     сколько подряд после простоя
+     */
+    public record Budget(double perSecond, int burst) {
+        public TokenBucket newBucket(long nowNanos) {
+            return new TokenBucket(perSecond, burst, nowNanos);
+        }
+
+        static Budget parse(String property, Budget defaultBudget) {
+            String value = System.getProperty(property);
+            if (value == null || value.isBlank()) {
+                return defaultBudget;
+            }
+            String[] parts = value.split(":");
+            try {
+                return new Budget(Double.parseDouble(parts[0]),
+                    parts.length > 1 ? Integer.parseInt(parts[1]) : (int) Math.ceil(Double.parseDouble(parts[0])));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("-D" + property + " должно быть скорость:запас, получено " + value, e);
+            }
+        }
+    }
+
+    public Budget budgetFor(MessageType type) {
+        return type != null ? messageBudgets.getOrDefault(type, otherMessages) : otherMessages;
+    }
+
+    public static RateLimitPolicy fromSystemProperties() {
+        // Человек делает несколько ходов в секунду; запас покрывает расстановку флота и серию попаданий у ботов
+        Map<MessageType, Budget> defaults = new EnumMap<>(MessageType.class);
+        defaults.put(MessageType.CONNECT, new Budget(1, 5));
+        defaults.put(MessageType.FIND_GAME, new Budget(2, 5));
+        defaults.put(MessageType.PLACE_SHIP, new Budget(20, 30));
+        defaults.put(MessageType.READY, new Budget(2, 5));
+        defaults.put(MessageType.FIRE, new Budget(50, 100));
+        defaults.put(MessageType.SURRENDER, new Budget(1, 3));
+        defaults.put(MessageType.RESUME, new Budget(1, 3));
+        defaults.put(MessageType.SPECTATE, new Budget(1, 5));
+        defaults.put(MessageType.LOBBY_SUBSCRIBE, new Budget(1, 5));
+        defaults.put(MessageType.LOBBY_UNSUBSCRIBE, new Budget(1, 5));
+
+        Map<MessageType, Budget> budgets = new EnumMap<>(MessageType.class);
+        defaults.forEach((type, budget) -> budgets.put(type, Budget.parse(PREFIX + type, budget)));
+
+        return new RateLimitPolicy(
+            Boolean.parseBoolean(System.getProperty(PREFIX + "enabled", "true")),
+            budgets,
+            Budget.parse(PREFIX + "OTHER", new Budget(5, 10)),
+            Budget.parse(PREFIX + "violations", new Budget(1, 20)),
+            Integer.getInteger(PREFIX + "maxConnectionsPerIp", 32),
+            Budget.parse(PREFIX + "connectionsPerIp", new Budget(10, 20)),
+            Boolean.parseBoolean(System.getProperty(PREFIX + "exemptLoopback", "true")));
+    }
+}
@@ -0,0 +1,55 @@
+package com.battleship.server.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket в форме GCRA: вместо числа токенов хранится одно время — когда ведро станет полным.
+ * Взятие токена — один compareAndSet без блокировок, поэтому одно ведро можно делить между event loop
+ * (лимиты на IP), а для ведра одного канала это просто дешёвая запись.
+ */
+public final class TokenBucket {
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    // Теоретическое время прихода следующего запроса: при равенстве now ведро полное
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param permitsPerSecond средняя скорость пополнения
+     * @param burst            ёмкость ведра: сколько запросов подряд проходит после простоя
+     */
+    public TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Некорректный бюджет: " + permitsPerSecond + "/с, запас " + burst);
+        }
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstNanos = emissionIntervalNanos * burst;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Берёт токен
+     *
+     * @return 0, если токен взят, иначе через сколько наносекунд появится следующий
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long newTat = Math.max(tat, nowNanos) + emissionIntervalNanos;
+            long allowedAt = newTat - burstNanos;
+            if (nowNanos < allowedAt) {
+                return allowedAt - nowNanos;
+            }
+            if (theoreticalArrival.compareAndSet(tat, newTat)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Ведро полное: удалять его и создавать заново ничего не меняет
+     */
+    public boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() <= nowNanos;
+    }
+}
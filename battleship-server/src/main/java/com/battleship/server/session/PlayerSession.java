@@ -3,18 +3,29 @@ package com.battleship.server.session;
 import io.netty.channel.Channel;
 
 /**
- * Сессия игрока
+ * Сессия игрока. Переживает соединение: после обрыва связи её можно привязать к новому каналу
+ * по resumeToken, пока сессия не закрыта. Сессия с handle — одна из многих на соединении бота:
+ * у неё нет resumeToken, и она закрывается вместе с соединением
  */
 public class PlayerSession {
     private final String playerId;
     private final String playerName;
-    private final Channel channel;
-    private String currentGameId;
+    private final String resumeToken;
+    private final String handle;
+    private volatile Channel channel;
+    private volatile String currentGameId;
+    private boolean closed;
 
-    public PlayerSession(String playerId, String playerName, Channel channel) {
+    public PlayerSession(String playerId, String playerName, Channel channel, String resumeToken) {
+        this(playerId, playerName, channel, resumeToken, null);
+    }
+
+    public PlayerSession(String playerId, String playerName, Channel channel, String resumeToken, String handle) {
         this.playerId = playerId;
         this.playerName = playerName;
         this.channel = channel;
+        this.resumeToken = resumeToken;
+        this.handle = handle;
     }
 
     public String getPlayerId() {
@@ -25,18 +36,68 @@ public class PlayerSession {
         return playerName;
     }
 
+    public String getResumeToken() {
+        return resumeToken;
+    }
+
+    /**
+     * @return handle сессии на соединении; null у основной сессии
+     */
+    public String getHandle() {
+        return handle;
+    }
+
     public Channel getChannel() {
         return channel;
     }
 
+    /**
+     * Привязывает сессию к новому соединению
+     *
+     * @return прежний канал; null, если сессия уже закрыта
+     */
+    synchronized Channel rebind(Channel newChannel) {
+        if (closed) {
+            return null;
+        }
+        Channel previous = channel;
+        channel = newChannel;
+        return previous;
+    }
+
+    /**
+     * Закрывает сессию, если она так и осталась на оборвавшемся канале: игрок не вернулся за отведённое время
+     */
+    synchronized boolean closeIfStillOn(Channel lostChannel) {
+        if (closed || channel != lostChannel) {
+            return false;
+        }
+        closed = true;
+        return true;
+    }
+
+    synchronized void close() {
+        closed = true;
+    }
+
     public String getCurrentGameId() {
         return currentGameId;
     }
 
-    public void setCurrentGameId(String gameId) {
+    public synchronized void setCurrentGameId(String gameId) {
         this.currentGameId = gameId;
     }
 
+    /**
+     * Снимает игрока с партии, если он всё ещё в ней. Партию могут завершить из потока часов или AI,
+     * когда игрок уже нашёл следующую
+     */
+    public synchronized void leaveGame(String gameId) {
+        if (gameId.equals(currentGameId)) {
+            currentGameId = null;
+        }
+    }
+
     public boolean isInGame() {
         return currentGameId != null;
     }
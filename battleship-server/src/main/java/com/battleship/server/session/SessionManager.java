@@ -1,34 +1,92 @@
 package com.battleship.server.session;
 
+import com.battleship.server.game.SeedSource;
+import com.battleship.server.jfr.SessionClosedEvent;
+import com.battleship.server.jfr.SessionOpenedEvent;
 import io.netty.channel.Channel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Менеджер сессий игроков
+ * Менеджер сессий игроков. У соединения одна основная сессия и до maxHandlesPerConnection сессий с handle:
+ * так один бот ведёт сотни партий через одно соединение
  */
 public class SessionManager {
     private static final Logger logger = LoggerFactory.getLogger(SessionManager.class);
 
     private final Map<String, PlayerSession> sessionsById = new ConcurrentHashMap<>();
     private final Map<Channel, PlayerSession> sessionsByChannel = new ConcurrentHashMap<>();
+    private final Map<String, PlayerSession> sessionsByToken = new ConcurrentHashMap<>();
+    private final Map<Channel, Map<String, PlayerSession>> sessionsByHandle = new ConcurrentHashMap<>();
+    private final SeedSource seeds;
+    private final int maxHandlesPerConnection;
+
+    public SessionManager() {
+        this(SeedSource.random());
+    }
+
+    public SessionManager(SeedSource seeds) {
+        this(seeds, 1000);
+    }
+
+    public SessionManager(SeedSource seeds, int maxHandlesPerConnection) {
+        this.seeds = seeds;
+        this.maxHandlesPerConnection = maxHandlesPerConnection;
+    }
 
     public PlayerSession createSession(String playerName, Channel channel) {
-        String playerId = UUID.randomUUID().toString();
-        PlayerSession session = new PlayerSession(playerId, playerName, channel);
+        String playerId = seeds.nextPlayerId();
+        PlayerSession session = new PlayerSession(playerId, playerName, channel, seeds.nextResumeToken());
 
         sessionsById.put(playerId, session);
         sessionsByChannel.put(channel, session);
+        sessionsByToken.put(session.getResumeToken(), session);
 
         logger.info("Создана сессия для игрока {} ({})", playerName, playerId);
+        recordOpened(session);
         return session;
     }
 
+    /**
+     * Сессия с handle на соединении; повторный CONNECT с тем же handle возвращает прежнюю
+     *
+     * @return empty, если на соединении уже maxHandlesPerConnection сессий с handle
+     */
+    public Optional<PlayerSession> createHandleSession(String playerName, Channel channel, String handle) {
+        Map<String, PlayerSession> handles = sessionsByHandle.computeIfAbsent(channel, c -> new ConcurrentHashMap<>());
+        PlayerSession existing = handles.get(handle);
+        if (existing != null) {
+            return Optional.of(existing);
+        }
+        // Соединение читает один event loop, поэтому проверка и вставка не гоняются между собой
+        if (handles.size() >= maxHandlesPerConnection) {
+            return Optional.empty();
+        }
+
+        PlayerSession session = new PlayerSession(seeds.nextPlayerId(), playerName, channel, null, handle);
+        handles.put(handle, session);
+        sessionsById.put(session.getPlayerId(), session);
+
+        logger.debug("Создана сессия {} для игрока {} ({})", handle, playerName, session.getPlayerId());
+        recordOpened(session);
+        return Optional.of(session);
+    }
+
+    private static void recordOpened(PlayerSession session) {
+        SessionOpenedEvent event = new SessionOpenedEvent();
+        if (event.shouldCommit()) {
+            event.playerId = session.getPlayerId();
+            event.playerName = session.getPlayerName();
+            event.commit();
+        }
+    }
+
     public Optional<PlayerSession> getSession(String playerId) {
         return Optional.ofNullable(sessionsById.get(playerId));
     }
@@ -37,14 +95,98 @@ public class SessionManager {
         return Optional.ofNullable(sessionsByChannel.get(channel));
     }
 
-    public void removeSession(Channel channel) {
-        PlayerSession session = sessionsByChannel.remove(channel);
-        if (session != null) {
-            sessionsById.remove(session.getPlayerId());
+    /**
+     * Сессия, которой адресовано сообщение: по handle или основная, если handle нет
+     */
+    public Optional<PlayerSession> getSession(Channel channel, String handle) {
+        if (handle == null) {
+            return getSessionByChannel(channel);
+        }
+        Map<String, PlayerSession> handles = sessionsByHandle.get(channel);
+        return Optional.ofNullable(handles != null ? handles.get(handle) : null);
+    }
+
+    /**
+     * Сессии с handle на соединении; копия, чтобы закрывать их по одной
+     */
+    public List<PlayerSession> getHandleSessions(Channel channel) {
+        Map<String, PlayerSession> handles = sessionsByHandle.get(channel);
+        return handles != null ? List.copyOf(handles.values()) : List.of();
+    }
+
+    /**
+     * Отвязывает сессию от оборвавшегося соединения; сессия остаётся доступной по id и resumeToken
+     *
+     * @return false, если сессию уже забрало новое соединение
+     */
+    public boolean detach(PlayerSession session, Channel lostChannel) {
+        if (session.getChannel() != lostChannel) {
+            return false;
+        }
+        return sessionsByChannel.remove(lostChannel, session);
+    }
+
+    /**
+     * Привязывает сессию с этим токеном к новому соединению. Прежнее соединение, если оно ещё открыто,
+     * закрывается: одна сессия — один канал
+     */
+    public Optional<PlayerSession> resume(String resumeToken, Channel channel) {
+        PlayerSession session = resumeToken != null ? sessionsByToken.get(resumeToken) : null;
+        if (session == null) {
+            return Optional.empty();
+        }
+
+        Channel previous = session.rebind(channel);
+        if (previous == null) {
+            return Optional.empty();
+        }
+        sessionsByChannel.remove(previous, session);
+        sessionsByChannel.put(channel, session);
+        if (previous != channel && previous.isActive()) {
+            previous.close();
+        }
+        logger.info("Игрок {} ({}) вернулся в сессию", session.getPlayerName(), session.getPlayerId());
+        return Optional.of(session);
+    }
+
+    /**
+     * Закрывает сессию, если игрок так и не вернулся на новое соединение после обрыва lostChannel
+     */
+    public boolean expireDetached(PlayerSession session, Channel lostChannel) {
+        return session.closeIfStillOn(lostChannel);
+    }
+
+    public void removeSession(PlayerSession session) {
+        session.close();
+        if (session.getHandle() != null) {
+            removeHandle(session);
+        } else {
+            sessionsByChannel.remove(session.getChannel(), session);
+            sessionsByToken.remove(session.getResumeToken(), session);
+        }
+        if (sessionsById.remove(session.getPlayerId(), session)) {
             logger.info("Удалена сессия игрока {} ({})", session.getPlayerName(), session.getPlayerId());
+
+            SessionClosedEvent event = new SessionClosedEvent();
+            if (event.shouldCommit()) {
+                event.playerId = session.getPlayerId();
+                event.playerName = session.getPlayerName();
+                event.commit();
+            }
         }
     }
 
+    private void removeHandle(PlayerSession session) {
+        sessionsByHandle.computeIfPresent(session.getChannel(), (channel, handles) -> {
+            handles.remove(session.getHandle(), session);
+            return handles.isEmpty() ? null : handles;
+        });
+    }
+
+    public Collection<PlayerSession> getSessions() {
+        return sessionsById.values();
+    }
+
     public int getSessionCount() {
         return sessionsById.size();
     }
@@ -0,0 +1,147 @@
+package com.battleship.server.spectate;
+
+import com.battleship.common.protocol.Messages;
+import com.battleship.server.stats.ServerMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Зрители партий. У каждой партии со зрителями свой ChannelGroup; закрытый канал группа удаляет сама.
+ * Событие партии кодируется в JSON один раз, каждому зрителю уходит retainedDuplicate того же буфера,
+ * поэтому цена события не растёт с числом зрителей, кроме записи в сокет.
+ * Зритель, у которого исходящий буфер выше high water mark канала, не успевает читать и снимается с партии,
+ * чтобы не копить под него память. Соединение не закрывается: на нём могут идти партии сессий с handle.
+ * Число зрителей партии ограничено.
+ */
+public class SpectatorHub {
+    private static final Logger logger = LoggerFactory.getLogger(SpectatorHub.class);
+
+    private static final AttributeKey<String> WATCHING = AttributeKey.valueOf("battleship.spectating");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, ChannelGroup> viewersByGame = new ConcurrentHashMap<>();
+    private final int maxViewersPerGame;
+    private final ServerMetrics metrics;
+
+    public SpectatorHub(int maxViewersPerGame, ServerMetrics metrics) {
+        this.maxViewersPerGame = maxViewersPerGame;
+        this.metrics = metrics;
+    }
+
+    // -Dbattleship.spectate.maxViewers=1000 — зрителей на партию
+    public static SpectatorHub fromSystemProperties(ServerMetrics metrics) {
+        return new SpectatorHub(Integer.getInteger("battleship.spectate.maxViewers", 1000), metrics);
+    }
+
+    /**
+     * Добавляет зрителя партии; прежнюю партию, которую он смотрел, зритель покидает
+     *
+     * @return false, если у партии уже maxViewersPerGame зрителей
+     */
+    public boolean join(String gameId, Channel viewer) {
+        leave(viewer);
+        ChannelGroup viewers = viewersByGame.computeIfAbsent(gameId,
+            id -> new DefaultChannelGroup("spectators-" + id, GlobalEventExecutor.INSTANCE));
+        synchronized (viewers) {
+            if (viewers.size() >= maxViewersPerGame) {
+                metrics.recordSpectateRejected();
+                return false;
+            }
+            viewers.add(viewer);
+        }
+        viewer.attr(WATCHING).set(gameId);
+        return true;
+    }
+
+    public void leave(Channel viewer) {
+        String gameId = viewer.attr(WATCHING).getAndSet(null);
+        if (gameId != null) {
+            ChannelGroup viewers = viewersByGame.get(gameId);
+            if (viewers != null) {
+                viewers.remove(viewer);
+            }
+        }
+    }
+
+    public boolean isWatching(Channel channel) {
+        return channel.attr(WATCHING).get() != null;
+    }
+
+    /**
+     * Рассылает событие партии всем её зрителям. Без зрителей ничего не кодируется.
+     * Вызывается из любого потока: запись в чужой канал Netty передаёт в его event loop
+     */
+    public void publish(String gameId, Messages.Message message) {
+        ChannelGroup viewers = viewersByGame.get(gameId);
+        if (viewers == null || viewers.isEmpty()) {
+            return;
+        }
+
+        TextWebSocketFrame frame;
+        try {
+            frame = new TextWebSocketFrame(Unpooled.wrappedBuffer(objectMapper.writeValueAsBytes(message)));
+        } catch (Exception e) {
+            logger.error("Ошибка кодирования события для зрителей: {}", e.getMessage());
+            return;
+        }
+
+        int written = 0;
+        try {
+            for (Channel viewer : viewers) {
+                if (!viewer.isWritable()) {
+                    dropSlow(viewers, viewer);
+                    continue;
+                }
+                viewer.writeAndFlush(frame.retainedDuplicate());
+                written++;
+            }
+        } finally {
+            frame.release();
+        }
+        metrics.recordSpectatorEvent(written);
+    }
+
+    private void dropSlow(ChannelGroup viewers, Channel viewer) {
+        viewers.remove(viewer);
+        viewer.attr(WATCHING).set(null);
+        metrics.recordSpectatorDropped();
+        logger.info("Зритель {} не успевает читать события партии и снят с неё", viewer.remoteAddress());
+    }
+
+    /**
+     * Партия освобождена: зрители остаются подключены, но больше не получают её событий
+     */
+    public void closeGame(String gameId) {
+        ChannelGroup viewers = viewersByGame.remove(gameId);
+        if (viewers != null) {
+            for (Channel viewer : viewers) {
+                viewer.attr(WATCHING).compareAndSet(gameId, null);
+            }
+            viewers.clear();
+        }
+    }
+
+    public int getViewerCount(String gameId) {
+        ChannelGroup viewers = viewersByGame.get(gameId);
+        return viewers != null ? viewers.size() : 0;
+    }
+
+    public long getViewerCount() {
+        return viewersByGame.values().stream().mapToLong(ChannelGroup::size).sum();
+    }
+
+    public int getWatchedGameCount() {
+        return viewersByGame.size();
+    }
+}
@@ -0,0 +1,181 @@
+package com.battleship.server.stats;
+
+import com.battleship.ai.prior.HeatmapPrior;
+import com.battleship.common.model.Board;
+import com.battleship.common.model.Coordinate;
+import com.battleship.common.model.GameState;
+import com.battleship.common.model.Ship;
+import com.battleship.common.rules.GameRules;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Потоковый агрегатор тепловых карт по всем завершённым партиям: занятость клеток кораблями
+ * в расстановках людей и клетки их первых выстрелов.
+ * Запись — только атомарные инкременты в полосу (shard) текущего потока, без блокировок.
+ * Раз в окно фоновый поток забирает счётчики, добавляет их к затухающей сумме и сохраняет снимок.
+ */
+public class HeatmapAggregator {
+    private static final Logger logger = LoggerFactory.getLogger(HeatmapAggregator.class);
+
+    private static final int CELLS = HeatmapPrior.CELLS;
+    // Слот 0..99 — клетки, слот 100 — число записанных партий
+    private static final int SLOTS = CELLS + 1;
+    private static final int GAMES_SLOT = CELLS;
+
+    private final AtomicLongArray[] occupancyShards;
+    private final AtomicLongArray[] firstShotShards;
+    private final int shardMask;
+    private final double decay;
+    private final Path snapshotFile;
+
+    // Затухающие суммы меняет только поток снимков
+    private final double[] decayedOccupancy = new double[CELLS];
+    private final double[] decayedFirstShot = new double[CELLS];
+    private double decayedGames;
+    private double decayedFirstShotGames;
+
+    private volatile HeatmapPrior latest;
+    private volatile Consumer<HeatmapPrior> snapshotListener = prior -> { };
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param decay        множитель, с которым накопленные данные переходят в следующее окно (0..1)
+     * @param snapshotFile файл для снимков или null, если сохранять не нужно
+     */
+    public HeatmapAggregator(double decay, Path snapshotFile) {
+        int shards = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.occupancyShards = new AtomicLongArray[shards];
+        this.firstShotShards = new AtomicLongArray[shards];
+        for (int i = 0; i < shards; i++) {
+            occupancyShards[i] = new AtomicLongArray(SLOTS);
+            firstShotShards[i] = new AtomicLongArray(SLOTS);
+        }
+        this.shardMask = shards - 1;
+        this.decay = decay;
+        this.snapshotFile = snapshotFile;
+    }
+
+    public void start(long windowSeconds) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "heatmap-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::rollWindow, windowSeconds, windowSeconds, TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        rollWindow();
+    }
+
+    // Продолжает накопление с сохранённого снимка, чтобы перезапуск сервера не обнулял статистику
+    public synchronized void restore(HeatmapPrior prior) {
+        decayedGames = prior.getGames();
+        decayedFirstShotGames = prior.getGames();
+        for (int i = 0; i < CELLS; i++) {
+            decayedOccupancy[i] = prior.occupancy(i) * prior.getGames();
+            decayedFirstShot[i] = prior.firstShot(i) * prior.getGames();
+        }
+        latest = prior;
+    }
+
+    public void setSnapshotListener(Consumer<HeatmapPrior> listener) {
+        this.snapshotListener = listener;
+    }
+
+    /**
+     * Записывает завершённую партию. Учитываются только игроки-люди: флот AI и его выстрелы ничего не говорят о людях.
+     */
+    public void recordGame(GameState state) {
+        int shard = (int) Thread.currentThread().threadId() & shardMask;
+        recordPlayer(state.getPlayer1Id(), state.getPlayer1Board(), state.getPlayer2Board(), shard);
+        recordPlayer(state.getPlayer2Id(), state.getPlayer2Board(), state.getPlayer1Board(), shard);
+    }
+
+    private void recordPlayer(String playerId, Board ownBoard, Board opponentBoard, int shard) {
+        if (playerId.startsWith("AI-")) {
+            return;
+        }
+
+        // Только полный флот: после отмены или таймаута расстановки на доске лишь первые корабли
+        if (GameRules.validateShipPlacement(ownBoard)) {
+            AtomicLongArray occupancy = occupancyShards[shard];
+            for (Ship ship : ownBoard.getShips()) {
+                for (Coordinate coord : ship.getCoordinates()) {
+                    occupancy.getAndIncrement(coord.toIndex());
+                }
+            }
+            occupancy.getAndIncrement(GAMES_SLOT);
+        }
+
+        Coordinate firstShot = opponentBoard.getFirstShot();
+        if (firstShot != null) {
+            AtomicLongArray shots = firstShotShards[shard];
+            shots.getAndIncrement(firstShot.toIndex());
+            shots.getAndIncrement(GAMES_SLOT);
+        }
+    }
+
+    public HeatmapPrior getLatest() {
+        return latest;
+    }
+
+    private synchronized void rollWindow() {
+        long[] occupancyWindow = drain(occupancyShards);
+        long[] firstShotWindow = drain(firstShotShards);
+
+        decayedGames = decayedGames * decay + occupancyWindow[GAMES_SLOT];
+        decayedFirstShotGames = decayedFirstShotGames * decay + firstShotWindow[GAMES_SLOT];
+        for (int i = 0; i < CELLS; i++) {
+            decayedOccupancy[i] = decayedOccupancy[i] * decay + occupancyWindow[i];
+            decayedFirstShot[i] = decayedFirstShot[i] * decay + firstShotWindow[i];
+        }
+
+        if (decayedGames <= 0) {
+            return;
+        }
+
+        double[] occupancy = new double[CELLS];
+        double[] firstShot = new double[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            occupancy[i] = decayedOccupancy[i] / decayedGames;
+            firstShot[i] = decayedFirstShotGames > 0 ? decayedFirstShot[i] / decayedFirstShotGames : 0;
+        }
+
+        HeatmapPrior snapshot = new HeatmapPrior(decayedGames, occupancy, firstShot);
+        latest = snapshot;
+        snapshotListener.accept(snapshot);
+
+        if (snapshotFile != null) {
+            try {
+                snapshot.write(snapshotFile);
+                logger.debug("Тепловая карта сохранена в {} ({} партий)", snapshotFile, Math.round(decayedGames));
+            } catch (IOException e) {
+                logger.warn("Не удалось сохранить тепловую карту в {}: {}", snapshotFile, e.getMessage());
+            }
+        }
+    }
+
+    // Обнуление через getAndSet не блокирует писателей: инкременты после чтения попадут в следующее окно
+    private static long[] drain(AtomicLongArray[] shards) {
+        long[] totals = new long[SLOTS];
+        for (AtomicLongArray shard : shards) {
+            for (int i = 0; i < SLOTS; i++) {
+                totals[i] += shard.getAndSet(i, 0);
+            }
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,38 @@
+package com.battleship.server.stats;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек в микросекундах. Запись идёт в Recorder без блокировок и аллокаций,
+ * при чтении накопленный интервал переносится в общую гистограмму с начала работы.
+ */
+public class LatencyHistogram {
+    static final long MAX_MICROS = 60_000_000L;
+
+    private final Recorder recorder = new Recorder(MAX_MICROS, 2);
+    private final Histogram total = new Histogram(MAX_MICROS, 2);
+    private final LongAdder sumMicros = new LongAdder();
+    private Histogram recycled;
+
+    public void recordNanos(long nanos) {
+        long micros = Math.min(Math.max(nanos / 1000, 0), MAX_MICROS);
+        recorder.recordValue(micros);
+        sumMicros.add(micros);
+    }
+
+    /**
+     * Гистограмма с начала работы. Возвращается общий экземпляр, читать его нужно под монитором этого объекта.
+     */
+    public synchronized Histogram snapshot() {
+        recycled = recorder.getIntervalHistogram(recycled);
+        total.add(recycled);
+        return total;
+    }
+
+    public long getSumMicros() {
+        return sumMicros.sum();
+    }
+}
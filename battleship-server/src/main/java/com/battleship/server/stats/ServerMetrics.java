@@ -0,0 +1,408 @@
+package com.battleship.server.stats;
+
+import com.battleship.common.protocol.MessageType;
+import com.battleship.server.lifecycle.GameLifecycleManager;
+import org.HdrHistogram.Histogram;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Метрики сервера: счётчики и гистограммы задержки по типам сообщений, задержка хода AI,
+ * задержка event loop, запросы, отклонённые при перегрузке и лимитерами,
+ * закрытые за молчание соединения, партии, завершённые часами,
+ * ресурсы, освобождённые сверкой, байты по сети
+ * и датчики (сессии, игры, очередь), снимаемые в момент чтения.
+ * Запись — LongAdder и Recorder по индексу типа, без блокировок и аллокаций, поэтому метрики включены всегда.
+ * Отдаются в текстовом формате Prometheus.
+ */
+public class ServerMetrics {
+
+    // Границы корзин гистограмм в секундах, как принято в Prometheus
+    private static final double[] BUCKETS_SECONDS = {
+        0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5
+    };
+    private static final String[] BUCKET_LABELS = new String[BUCKETS_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BUCKETS_SECONDS.length; i++) {
+            BUCKET_LABELS[i] = "le=\"" + BigDecimal.valueOf(BUCKETS_SECONDS[i]).stripTrailingZeros().toPlainString() + "\"";
+        }
+    }
+
+    private static final MessageType[] TYPES = MessageType.values();
+
+    private final LongAdder[] received = adders(TYPES.length);
+    private final LongAdder[] sent = adders(TYPES.length);
+    private final LatencyHistogram[] handling = new LatencyHistogram[TYPES.length];
+    private final LatencyHistogram aiMove = new LatencyHistogram();
+    private final LatencyHistogram eventLoopLag = new LatencyHistogram();
+    private final LongAdder[] shed = adders(TYPES.length);
+    // Последний элемент — сообщения, тип которых не удалось определить
+    private final LongAdder[] rateLimited = adders(TYPES.length + 1);
+    private final LongAdder rateLimitDisconnects = new LongAdder();
+    private final LongAdder connectionsRejected = new LongAdder();
+    private final LongAdder pingsSent = new LongAdder();
+    private final LongAdder idleReaped = new LongAdder();
+    private final LongAdder setupExpired = new LongAdder();
+    private final LongAdder turnExpired = new LongAdder();
+    private final LongAdder reclaimedFinishedGames = new LongAdder();
+    private final LongAdder reclaimedOrphanGames = new LongAdder();
+    private final LongAdder reclaimedAIPlayers = new LongAdder();
+    private final LongAdder reclaimedSessionRefs = new LongAdder();
+    private final LongAdder sessionsDetached = new LongAdder();
+    private final LongAdder sessionsResumed = new LongAdder();
+    private final LongAdder resumesRejected = new LongAdder();
+    private final LongAdder graceExpired = new LongAdder();
+    private final LongAdder spectatorEvents = new LongAdder();
+    private final LongAdder spectatorFrames = new LongAdder();
+    private final LongAdder spectatorsDropped = new LongAdder();
+    private final LongAdder spectateRejected = new LongAdder();
+    private final LongAdder lobbyUpdates = new LongAdder();
+    private final LongAdder lobbyFrames = new LongAdder();
+    private final LongAdder lobbyResyncs = new LongAdder();
+    private final LongAdder journalEvents = new LongAdder();
+    private final LongAdder journalBytes = new LongAdder();
+    private final LongAdder journalDropped = new LongAdder();
+    private final LongAdder journalFsyncs = new LongAdder();
+    private final LongAdder malformed = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final Map<String, Gauge> gauges = new LinkedHashMap<>();
+
+    private record Gauge(String help, LongSupplier value) {}
+
+    public ServerMetrics() {
+        for (int i = 0; i < TYPES.length; i++) {
+            handling[i] = new LatencyHistogram();
+        }
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Датчик, значение которого читается при каждом запросе метрик
+     */
+    public synchronized void registerGauge(String name, String help, LongSupplier value) {
+        gauges.put(name, new Gauge(help, value));
+    }
+
+    /**
+     * Входящее сообщение обработано за handlingNanos (разбор JSON и логика сервера)
+     */
+    public void recordReceived(MessageType type, long handlingNanos) {
+        received[type.ordinal()].increment();
+        handling[type.ordinal()].recordNanos(handlingNanos);
+    }
+
+    public void recordSent(MessageType type) {
+        sent[type.ordinal()].increment();
+    }
+
+    public void recordMalformed() {
+        malformed.increment();
+    }
+
+    public void recordAIMove(long nanos) {
+        aiMove.recordNanos(nanos);
+    }
+
+    public void recordEventLoopLag(long nanos) {
+        eventLoopLag.recordNanos(nanos);
+    }
+
+    /**
+     * Запрос отклонён ответом 503, потому что сервер перегружен
+     */
+    public void recordShed(MessageType type) {
+        shed[type.ordinal()].increment();
+    }
+
+    /**
+     * Сообщение отброшено лимитером соединения; type null, если тип не определён
+     */
+    public void recordRateLimited(MessageType type) {
+        rateLimited[type != null ? type.ordinal() : TYPES.length].increment();
+    }
+
+    public void recordRateLimitDisconnect() {
+        rateLimitDisconnects.increment();
+    }
+
+    public void recordConnectionRejected() {
+        connectionsRejected.increment();
+    }
+
+    public void recordPingSent() {
+        pingsSent.increment();
+    }
+
+    /**
+     * Соединение закрыто, потому что клиент молчал и не отвечал на PING
+     */
+    public void recordIdleReaped() {
+        idleReaped.increment();
+    }
+
+    /**
+     * Партия завершена часами: истёк срок расстановки (setup) или хода
+     */
+    public void recordClockExpired(boolean setup) {
+        (setup ? setupExpired : turnExpired).increment();
+    }
+
+    /**
+     * Игрок потерял соединение посреди партии; сессия ждёт RESUME до конца окна возврата
+     */
+    public void recordSessionDetached() {
+        sessionsDetached.increment();
+    }
+
+    /**
+     * RESUME: resumed — сессия привязана к новому соединению, иначе токен неизвестен или окно истекло
+     */
+    public void recordResume(boolean resumed) {
+        (resumed ? sessionsResumed : resumesRejected).increment();
+    }
+
+    public void recordGraceExpired() {
+        graceExpired.increment();
+    }
+
+    /**
+     * Событие партии закодировано один раз и разослано frames зрителям
+     */
+    public void recordSpectatorEvent(int frames) {
+        spectatorEvents.increment();
+        spectatorFrames.add(frames);
+    }
+
+    public void recordSpectatorDropped() {
+        spectatorsDropped.increment();
+    }
+
+    public void recordSpectateRejected() {
+        spectateRejected.increment();
+    }
+
+    /**
+     * Дельта лобби закодирована один раз и разослана frames подписчикам
+     */
+    public void recordLobbyUpdate(int frames) {
+        lobbyUpdates.increment();
+        lobbyFrames.add(frames);
+    }
+
+    /**
+     * Отставший подписчик лобби получил снимок вместо пропущенных дельт
+     */
+    public void recordLobbyResync() {
+        lobbyResyncs.increment();
+    }
+
+    /**
+     * Поток журнала записал пачку событий в сегмент
+     */
+    public void recordJournalBatch(int events, int bytes) {
+        journalEvents.add(events);
+        journalBytes.add(bytes);
+    }
+
+    /**
+     * Событие не попало в журнал: очередь полна или диск отказал
+     */
+    public void recordJournalDropped() {
+        journalDropped.increment();
+    }
+
+    public void recordJournalFsync() {
+        journalFsyncs.increment();
+    }
+
+    /**
+     * Ресурсы, которые нашла сверка, а не путь завершения партии; рост означает утечку в одном из путей
+     */
+    public void recordReclaimed(GameLifecycleManager.ReconcileResult result) {
+        reclaimedFinishedGames.add(result.finishedGames());
+        reclaimedOrphanGames.add(result.orphanGames());
+        reclaimedAIPlayers.add(result.orphanAIPlayers());
+        reclaimedSessionRefs.add(result.danglingSessions());
+    }
+
+    public void recordBytesIn(long bytes) {
+        bytesIn.add(bytes);
+    }
+
+    public void recordBytesOut(long bytes) {
+        bytesOut.add(bytes);
+    }
+
+    public long getReceived(MessageType type) {
+        return received[type.ordinal()].sum();
+    }
+
+    public synchronized String renderPrometheus() {
+        StringBuilder sb = new StringBuilder(16 * 1024);
+
+        header(sb, "battleship_messages_received_total", "Входящие сообщения по типу", "counter");
+        for (MessageType type : TYPES) {
+            long count = received[type.ordinal()].sum();
+            if (count > 0) {
+                sample(sb, "battleship_messages_received_total", "type=\"" + type + "\"", count);
+            }
+        }
+
+        header(sb, "battleship_messages_sent_total", "Исходящие сообщения по типу", "counter");
+        for (MessageType type : TYPES) {
+            long count = sent[type.ordinal()].sum();
+            if (count > 0) {
+                sample(sb, "battleship_messages_sent_total", "type=\"" + type + "\"", count);
+            }
+        }
+
+        header(sb, "battleship_messages_malformed_total", "Сообщения, которые не удалось разобрать", "counter");
+        sample(sb, "battleship_messages_malformed_total", null, malformed.sum());
+
+        header(sb, "battleship_message_handling_seconds", "Время обработки входящего сообщения", "histogram");
+        for (MessageType type : TYPES) {
+            if (received[type.ordinal()].sum() > 0) {
+                histogram(sb, "battleship_message_handling_seconds", "type=\"" + type + "\"", handling[type.ordinal()]);
+            }
+        }
+
+        header(sb, "battleship_ai_move_seconds", "Время выбора и выполнения хода AI", "histogram");
+        histogram(sb, "battleship_ai_move_seconds", null, aiMove);
+
+        header(sb, "battleship_event_loop_lag_seconds", "Опоздание пробной задачи на event loop", "histogram");
+        histogram(sb, "battleship_event_loop_lag_seconds", null, eventLoopLag);
+
+        header(sb, "battleship_load_shed_total", "Запросы, отклонённые при перегрузке", "counter");
+        for (MessageType type : TYPES) {
+            long count = shed[type.ordinal()].sum();
+            if (count > 0) {
+                sample(sb, "battleship_load_shed_total", "type=\"" + type + "\"", count);
+            }
+        }
+
+        header(sb, "battleship_rate_limited_total", "Сообщения сверх бюджета соединения", "counter");
+        for (int i = 0; i <= TYPES.length; i++) {
+            long count = rateLimited[i].sum();
+            if (count > 0) {
+                String type = i < TYPES.length ? TYPES[i].name() : "OTHER";
+                sample(sb, "battleship_rate_limited_total", "type=\"" + type + "\"", count);
+            }
+        }
+        header(sb, "battleship_rate_limit_disconnects_total", "Соединения, закрытые за превышение лимита сообщений", "counter");
+        sample(sb, "battleship_rate_limit_disconnects_total", null, rateLimitDisconnects.sum());
+        header(sb, "battleship_connections_rejected_total", "Подключения, отклонённые лимитом на IP", "counter");
+        sample(sb, "battleship_connections_rejected_total", null, connectionsRejected.sum());
+
+        header(sb, "battleship_pings_sent_total", "PING, отправленные молчащим соединениям", "counter");
+        sample(sb, "battleship_pings_sent_total", null, pingsSent.sum());
+        header(sb, "battleship_idle_reaped_total", "Соединения, закрытые за молчание", "counter");
+        sample(sb, "battleship_idle_reaped_total", null, idleReaped.sum());
+
+        header(sb, "battleship_games_expired_total", "Партии, завершённые по истечении срока", "counter");
+        sample(sb, "battleship_games_expired_total", "phase=\"setup\"", setupExpired.sum());
+        sample(sb, "battleship_games_expired_total", "phase=\"turn\"", turnExpired.sum());
+
+        header(sb, "battleship_sessions_detached_total", "Сессии, потерявшие соединение посреди партии", "counter");
+        sample(sb, "battleship_sessions_detached_total", null, sessionsDetached.sum());
+        header(sb, "battleship_session_resumes_total", "Запросы RESUME", "counter");
+        sample(sb, "battleship_session_resumes_total", "result=\"resumed\"", sessionsResumed.sum());
+        sample(sb, "battleship_session_resumes_total", "result=\"rejected\"", resumesRejected.sum());
+        header(sb, "battleship_session_grace_expired_total", "Сессии, закрытые по истечении окна возврата", "counter");
+        sample(sb, "battleship_session_grace_expired_total", null, graceExpired.sum());
+
+        header(sb, "battleship_spectator_events_total", "События партий, закодированные для зрителей", "counter");
+        sample(sb, "battleship_spectator_events_total", null, spectatorEvents.sum());
+        header(sb, "battleship_spectator_frames_total", "Кадры событий, отправленные зрителям", "counter");
+        sample(sb, "battleship_spectator_frames_total", null, spectatorFrames.sum());
+        header(sb, "battleship_spectators_dropped_total", "Зрители, снятые с партии за медленное чтение", "counter");
+        sample(sb, "battleship_spectators_dropped_total", null, spectatorsDropped.sum());
+        header(sb, "battleship_spectate_rejected_total", "SPECTATE, отклонённые по лимиту зрителей", "counter");
+        sample(sb, "battleship_spectate_rejected_total", null, spectateRejected.sum());
+
+        header(sb, "battleship_lobby_updates_total", "Дельты лобби, закодированные за тики", "counter");
+        sample(sb, "battleship_lobby_updates_total", null, lobbyUpdates.sum());
+        header(sb, "battleship_lobby_frames_total", "Кадры дельт лобби, отправленные подписчикам", "counter");
+        sample(sb, "battleship_lobby_frames_total", null, lobbyFrames.sum());
+        header(sb, "battleship_lobby_resyncs_total", "Снимки лобби для отставших подписчиков", "counter");
+        sample(sb, "battleship_lobby_resyncs_total", null, lobbyResyncs.sum());
+
+        header(sb, "battleship_journal_events_total", "События партий, записанные в журнал", "counter");
+        sample(sb, "battleship_journal_events_total", null, journalEvents.sum());
+        header(sb, "battleship_journal_bytes_total", "Байт записей журнала партий", "counter");
+        sample(sb, "battleship_journal_bytes_total", null, journalBytes.sum());
+        header(sb, "battleship_journal_dropped_total", "События, не попавшие в журнал", "counter");
+        sample(sb, "battleship_journal_dropped_total", null, journalDropped.sum());
+        header(sb, "battleship_journal_fsyncs_total", "Сбросы сегмента журнала на диск", "counter");
+        sample(sb, "battleship_journal_fsyncs_total", null, journalFsyncs.sum());
+
+        header(sb, "battleship_lifecycle_reclaimed_total", "Ресурсы, освобождённые сверкой", "counter");
+        sample(sb, "battleship_lifecycle_reclaimed_total", "kind=\"finished_game\"", reclaimedFinishedGames.sum());
+        sample(sb, "battleship_lifecycle_reclaimed_total", "kind=\"orphan_game\"", reclaimedOrphanGames.sum());
+        sample(sb, "battleship_lifecycle_reclaimed_total", "kind=\"orphan_ai_player\"", reclaimedAIPlayers.sum());
+        sample(sb, "battleship_lifecycle_reclaimed_total", "kind=\"dangling_session\"", reclaimedSessionRefs.sum());
+
+        header(sb, "battleship_network_received_bytes_total", "Байт принято из сокетов", "counter");
+        sample(sb, "battleship_network_received_bytes_total", null, bytesIn.sum());
+        header(sb, "battleship_network_sent_bytes_total", "Байт отправлено в сокеты", "counter");
+        sample(sb, "battleship_network_sent_bytes_total", null, bytesOut.sum());
+
+        gauges.forEach((name, gauge) -> {
+            header(sb, name, gauge.help(), "gauge");
+            sample(sb, name, null, gauge.value().getAsLong());
+        });
+
+        return sb.toString();
+    }
+
+    private static void histogram(StringBuilder sb, String name, String labels, LatencyHistogram latency) {
+        long count;
+        synchronized (latency) {
+            Histogram h = latency.snapshot();
+            count = h.getTotalCount();
+            for (int i = 0; i < BUCKETS_SECONDS.length; i++) {
+                long boundMicros = Math.round(BUCKETS_SECONDS[i] * 1_000_000);
+                long below = count == 0 ? 0 : h.getCountBetweenValues(0, boundMicros);
+                sample(sb, name + "_bucket", join(labels, BUCKET_LABELS[i]), below);
+            }
+        }
+        sample(sb, name + "_bucket", join(labels, "le=\"+Inf\""), count);
+        sb.append(name).append("_sum");
+        appendLabels(sb, labels);
+        sb.append(' ').append(latency.getSumMicros() / 1e6).append('\n');
+        sample(sb, name + "_count", labels, count);
+    }
+
+    private static void header(StringBuilder sb, String name, String help, String type) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, long value) {
+        sb.append(name);
+        appendLabels(sb, labels);
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private static void appendLabels(StringBuilder sb, String labels) {
+        if (labels != null) {
+            sb.append('{').append(labels).append('}');
+        }
+    }
+
+    private static String join(String labels, String label) {
+        return labels == null ? label : labels + "," + label;
+    }
+}
@@ -0,0 +1,41 @@
+package com.battleship.sim;
+
+import com.battleship.ai.agent.BattleshipAgent;
+import com.battleship.ai.agent.HuntTargetAgent;
+import com.battleship.ai.agent.RandomAgent;
+
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Агенты, доступные для симуляции. Каждый создаётся со своим Random, чтобы партии были воспроизводимы.
+ */
+public enum AgentType {
+    HUNT_TARGET("hunt-target", HuntTargetAgent::new),
+    RANDOM("random", RandomAgent::new);
+
+    private final String id;
+    private final Function<Random, BattleshipAgent> factory;
+
+    AgentType(String id, Function<Random, BattleshipAgent> factory) {
+        this.id = id;
+        this.factory = factory;
+    }
+
+    public BattleshipAgent create(Random random) {
+        return factory.apply(random);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public static AgentType fromId(String id) {
+        for (AgentType type : values()) {
+            if (type.id.equalsIgnoreCase(id)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный агент: " + id);
+    }
+}
@@ -0,0 +1,146 @@
+package com.battleship.sim;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Массовая симуляция партий AI против AI.
+ * Партии распределяются по ядрам через parallel stream в отдельном ForkJoinPool,
+ * каждая партия детерминирована общим сидом и своим номером.
+ * Пример: java -jar battleship-sim-standalone.jar --games 1000000 --agent-a hunt-target --agent-b random --seed 42
+ */
+public class BattleshipSimulation {
+    private static final Logger logger = LoggerFactory.getLogger(BattleshipSimulation.class);
+
+    private final int games;
+    private final AgentType agentA;
+    private final AgentType agentB;
+    private final long seed;
+    private final int threads;
+
+    public BattleshipSimulation(int games, AgentType agentA, AgentType agentB, long seed, int threads) {
+        this.games = games;
+        this.agentA = agentA;
+        this.agentB = agentB;
+        this.seed = seed;
+        this.threads = threads;
+    }
+
+    public SimulationStats run() throws InterruptedException, ExecutionException {
+        GameSimulator simulator = new GameSimulator(agentA, agentB, seed);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        try {
+            return pool.submit(() -> IntStream.range(0, games)
+                .parallel()
+                .collect(SimulationStats::new, (stats, index) -> simulator.play(index, stats), SimulationStats::merge)
+            ).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public String report(SimulationStats stats, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("\n=== Симуляция ===\n");
+        sb.append(String.format(Locale.ROOT, "Агенты: A=%s, B=%s, сид=%d, потоков=%d%n", agentA.getId(), agentB.getId(), seed, threads));
+        sb.append(String.format(Locale.ROOT, "Партий: %d (сбоев: %d) за %.2f с%n", stats.getGames(), stats.getFailedGames(), seconds));
+        sb.append(String.format(Locale.ROOT, "Пропускная способность: %.0f партий/с, %.0f ходов/с%n",
+            stats.getGames() / seconds, stats.getTotalMoves() / seconds));
+        sb.append(String.format(Locale.ROOT, "Победы: A=%d (%.2f%%), B=%d (%.2f%%)%n",
+            stats.getWinsA(), percent(stats.getWinsA(), stats.getGames()),
+            stats.getWinsB(), percent(stats.getWinsB(), stats.getGames())));
+
+        sb.append("\n--- Выстрелов до победы ---\n");
+        appendShots(sb, "A", stats.getWinnerShotsA());
+        appendShots(sb, "B", stats.getWinnerShotsB());
+
+        Histogram latency = stats.getMoveLatencyNanos();
+        sb.append("\n--- Задержка хода (выбор + GameEngine.fire), мкс ---\n");
+        sb.append(String.format(Locale.ROOT, "p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f mean=%.1f%n",
+            micros(latency.getValueAtPercentile(50)),
+            micros(latency.getValueAtPercentile(90)),
+            micros(latency.getValueAtPercentile(99)),
+            micros(latency.getValueAtPercentile(99.9)),
+            micros(latency.getMaxValue()),
+            latency.getMean() / 1000.0));
+
+        return sb.toString();
+    }
+
+    private void appendShots(StringBuilder sb, String agent, Histogram shots) {
+        if (shots.getTotalCount() == 0) {
+            sb.append(agent).append(": побед нет\n");
+            return;
+        }
+
+        sb.append(String.format(Locale.ROOT, "%s: min=%d p50=%d p90=%d p99=%d max=%d mean=%.2f%n",
+            agent, shots.getMinValue(), shots.getValueAtPercentile(50), shots.getValueAtPercentile(90),
+            shots.getValueAtPercentile(99), shots.getMaxValue(), shots.getMean()));
+
+        // Распределение корзинами по 10 выстрелов
+        for (int from = 0; from < 100; from += 10) {
+            long count = shots.getCountBetweenValues(from, from + 9);
+            if (count > 0) {
+                sb.append(String.format(Locale.ROOT, "    %3d-%3d: %6.2f%%%n", from, from + 9, percent(count, shots.getTotalCount())));
+            }
+        }
+    }
+
+    private static double percent(long part, long total) {
+        return total == 0 ? 0 : 100.0 * part / total;
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+    public static void main(String[] args) {
+        int games = 100_000;
+        AgentType agentA = AgentType.HUNT_TARGET;
+        AgentType agentB = AgentType.HUNT_TARGET;
+        long seed = 42;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        try {
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--games" -> games = Integer.parseInt(value);
+                    case "--agent-a" -> agentA = AgentType.fromId(value);
+                    case "--agent-b" -> agentB = AgentType.fromId(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--threads" -> threads = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Неизвестный параметр: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            logger.error("{}", e.getMessage());
+            logger.error("Параметры: --games N --agent-a hunt-target|random --agent-b hunt-target|random --seed S --threads T");
+            System.exit(1);
+        }
+
+        BattleshipSimulation simulation = new BattleshipSimulation(games, agentA, agentB, seed, threads);
+        logger.info("Запуск {} партий на {} потоках", games, threads);
+
+        try {
+            long start = System.nanoTime();
+            SimulationStats stats = simulation.run();
+            logger.info(simulation.report(stats, System.nanoTime() - start));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Симуляция прервана");
+        } catch (ExecutionException e) {
+            logger.error("Ошибка симуляции: {}", e.getCause().getMessage(), e.getCause());
+            System.exit(1);
+        }
+    }
+}
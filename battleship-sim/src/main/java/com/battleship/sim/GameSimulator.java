@@ -0,0 +1,102 @@
+package com.battleship.sim;
+
+import com.battleship.ai.agent.BattleshipAgent;
+import com.battleship.common.model.Board;
+import com.battleship.common.model.Coordinate;
+import com.battleship.common.model.GameState;
+import com.battleship.common.model.Ship;
+import com.battleship.common.rules.GameRules;
+import com.battleship.server.game.GameEngine;
+import static com.battleship.common.model.ModelTypes.GameStatus;
+
+import java.util.Random;
+
+/**
+ * Проигрывает одну партию двух агентов напрямую на GameEngine, без сети и сессий
+ */
+public class GameSimulator {
+    private static final String PLAYER_A = "A";
+    private static final String PLAYER_B = "B";
+    private static final int MAX_MOVES = 2 * Coordinate.BOARD_SIZE * Coordinate.BOARD_SIZE;
+
+    private final AgentType agentA;
+    private final AgentType agentB;
+    private final long seed;
+
+    public GameSimulator(AgentType agentA, AgentType agentB, long seed) {
+        this.agentA = agentA;
+        this.agentB = agentB;
+        this.seed = seed;
+    }
+
+    public void play(int gameIndex, SimulationStats stats) {
+        Random random = new Random(gameSeed(gameIndex));
+
+        // Чётные партии начинает A, нечётные B — чтобы право первого хода не искажало результат
+        boolean aFirst = (gameIndex & 1) == 0;
+        String first = aFirst ? PLAYER_A : PLAYER_B;
+        String second = aFirst ? PLAYER_B : PLAYER_A;
+
+        GameEngine engine = new GameEngine("sim-" + gameIndex, first, second);
+        placeFleet(engine, PLAYER_A, random);
+        placeFleet(engine, PLAYER_B, random);
+        if (!engine.startGame()) {
+            stats.recordFailedGame();
+            return;
+        }
+
+        BattleshipAgent a = agentA.create(new Random(random.nextLong()));
+        BattleshipAgent b = agentB.create(new Random(random.nextLong()));
+        GameState state = engine.getGameState();
+        int shotsA = 0;
+        int shotsB = 0;
+
+        for (int move = 0; move < MAX_MOVES && state.getStatus() == GameStatus.IN_PROGRESS; move++) {
+            String shooter = state.getCurrentTurnPlayerId();
+            BattleshipAgent agent = shooter.equals(PLAYER_A) ? a : b;
+
+            long start = System.nanoTime();
+            Coordinate target = agent.chooseAction(state.getOpponentBoard(shooter));
+            GameEngine.FireResult result = engine.fire(shooter, target.x(), target.y());
+            stats.recordMove(System.nanoTime() - start);
+
+            if (!result.success()) {
+                stats.recordFailedGame();
+                return;
+            }
+
+            if (shooter.equals(PLAYER_A)) {
+                shotsA++;
+            } else {
+                shotsB++;
+            }
+        }
+
+        if (state.getStatus() != GameStatus.FINISHED) {
+            stats.recordFailedGame();
+            return;
+        }
+
+        boolean aWon = PLAYER_A.equals(state.getWinnerId());
+        stats.recordGame(aWon, aWon ? shotsA : shotsB);
+    }
+
+    private void placeFleet(GameEngine engine, String playerId, Random random) {
+        Board board = new Board();
+        while (!GameRules.autoPlaceShips(board, random)) {
+            board = new Board();
+        }
+
+        for (Ship ship : board.getShips()) {
+            engine.placeShip(playerId, ship.getType(), ship.getStart().x(), ship.getStart().y(), ship.getOrientation());
+        }
+    }
+
+    // Сид партии зависит только от общего сида и номера партии, а не от порядка выполнения потоками
+    private long gameSeed(int gameIndex) {
+        long z = seed + 0x9E3779B97F4A7C15L * (gameIndex + 1L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
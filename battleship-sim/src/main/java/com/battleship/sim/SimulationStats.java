@@ -0,0 +1,82 @@
+package com.battleship.sim;
+
+import com.battleship.common.model.Coordinate;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Накопитель результатов. Каждый поток пишет в свой экземпляр, в конце они сливаются через merge.
+ */
+public class SimulationStats {
+    private static final int MAX_SHOTS = Coordinate.BOARD_SIZE * Coordinate.BOARD_SIZE;
+    private static final long MAX_LATENCY_NANOS = 10_000_000_000L;
+
+    private final Histogram moveLatencyNanos = new Histogram(MAX_LATENCY_NANOS, 3);
+    private final Histogram winnerShotsA = new Histogram(MAX_SHOTS, 3);
+    private final Histogram winnerShotsB = new Histogram(MAX_SHOTS, 3);
+
+    private long games;
+    private long failedGames;
+    private long winsA;
+    private long totalMoves;
+
+    public void recordMove(long latencyNanos) {
+        moveLatencyNanos.recordValue(Math.min(latencyNanos, MAX_LATENCY_NANOS));
+        totalMoves++;
+    }
+
+    public void recordGame(boolean aWon, int winnerShots) {
+        games++;
+        if (aWon) {
+            winsA++;
+            winnerShotsA.recordValue(winnerShots);
+        } else {
+            winnerShotsB.recordValue(winnerShots);
+        }
+    }
+
+    public void recordFailedGame() {
+        failedGames++;
+    }
+
+    public void merge(SimulationStats other) {
+        moveLatencyNanos.add(other.moveLatencyNanos);
+        winnerShotsA.add(other.winnerShotsA);
+        winnerShotsB.add(other.winnerShotsB);
+        games += other.games;
+        failedGames += other.failedGames;
+        winsA += other.winsA;
+        totalMoves += other.totalMoves;
+    }
+
+    public Histogram getMoveLatencyNanos() {
+        return moveLatencyNanos;
+    }
+
+    public Histogram getWinnerShotsA() {
+        return winnerShotsA;
+    }
+
+    public Histogram getWinnerShotsB() {
+        return winnerShotsB;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getFailedGames() {
+        return failedGames;
+    }
+
+    public long getWinsA() {
+        return winsA;
+    }
+
+    public long getWinsB() {
+        return games - winsA;
+    }
+
+    public long getTotalMoves() {
+        return totalMoves;
+    }
+}